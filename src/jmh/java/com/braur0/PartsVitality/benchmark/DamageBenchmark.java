@@ -0,0 +1,69 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One server tick of damage for a single player: the damage events go through
+ * {@link ArmorDamageListener#onPlayerDamage} and the tick ends with the side effect flush.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DamageBenchmark {
+
+    @Param
+    public DamageScenario scenario;
+
+    // Damage events the player takes in the same tick (more than one shows the end-of-tick coalescing)
+    @Param({"1", "8"})
+    public int eventsPerTick;
+
+    private ArmorDamageListener listener;
+    private Player player;
+    private PartHP partHP;
+    private EntityDamageEvent event;
+    private ServerTickEndEvent tickEnd;
+
+    @Setup
+    public void setup() {
+        StandIns.Plugin plugin = StandIns.plugin();
+        listener = plugin.armorDamageListener;
+        player = StandIns.player();
+        partHP = plugin.armorStatsManager.getOrCreatePartHP(player);
+        tickEnd = new ServerTickEndEvent(0, 0.0, 0L);
+        event = StandIns.damageEvent(scenario, player);
+    }
+
+    @Benchmark
+    public double tick() {
+        for (int i = 0; i < eventsPerTick; i++) {
+            listener.onPlayerDamage(event);
+        }
+        listener.onTickEnd(tickEnd);
+
+        // Keep the player in a realistic state instead of letting every part break
+        if (partHP.getBrokenMask() != 0 || partHP.getTotalHP() < PartHP.getTotalMaxHP() * 0.4) {
+            for (Part part : Part.VALUES) {
+                partHP.setPartHP(part, PartHP.getMaxHPPerPart(part));
+            }
+        }
+        return partHP.getTotalHP();
+    }
+}
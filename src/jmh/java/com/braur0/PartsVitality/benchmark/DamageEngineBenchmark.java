@@ -0,0 +1,83 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.damage.DamageResult;
+import com.braur0.PartsVitality.damage.DamageSource;
+import com.braur0.PartsVitality.damage.DebuffTiers;
+import com.braur0.PartsVitality.damage.HitZoneTable;
+import com.braur0.PartsVitality.model.Part;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+
+/**
+ * Headless damage resolution: a stream of mixed hits resolved by {@link DamageEngine} alone,
+ * with no server objects involved. Uses the default config.yml values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DamageEngineBenchmark {
+
+    private static final int HITS = 1024;
+    private static final int HITS_MASK = HITS - 1;
+    private static final double BOX_MIN_Y = 64.0;
+    private static final double BOX_HEIGHT = 1.8;
+
+    private DamageEngine engine;
+    private final double[] partHP = new double[Part.COUNT];
+    private final DamageResult result = new DamageResult();
+
+    // A pre-generated mix of hits, replayed in a loop
+    private final DamageSource[] sources = new DamageSource[HITS];
+    private final double[] damages = new double[HITS];
+    private final double[] hitYs = new double[HITS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        double[] maxHP = {20.0, 20.0, 20.0, 20.0};
+        double[][] thresholds = {{0.2, 0.5}, {0.2, 0.5}, {0.2, 0.5}};
+        engine = new DamageEngine(maxHP, 1.0, true, 0.4, 5.0, new DebuffTiers(thresholds), HitZoneTable.defaults());
+        resetParts();
+
+        SplittableRandom random = new SplittableRandom(42);
+        DamageSource[] mix = {DamageSource.MELEE, DamageSource.MELEE, DamageSource.PROJECTILE,
+                DamageSource.EXPLOSION, DamageSource.FALL, DamageSource.OTHER};
+        for (int i = 0; i < HITS; i++) {
+            sources[i] = mix[random.nextInt(mix.length)];
+            damages[i] = 1.0 + random.nextDouble() * 7.0;
+            // Explosions without a source entity cannot be located
+            hitYs[i] = sources[i] == DamageSource.EXPLOSION && random.nextBoolean()
+                    ? Double.NaN : BOX_MIN_Y + random.nextDouble() * BOX_HEIGHT;
+        }
+    }
+
+    private void resetParts() {
+        for (int i = 0; i < Part.COUNT; i++) partHP[i] = 20.0;
+    }
+
+    @Benchmark
+    public int resolve() {
+        int i = next++ & HITS_MASK;
+        engine.resolve(partHP, sources[i], damages[i], hitYs[i], BOX_MIN_Y, BOX_HEIGHT, BodyPose.STANDING, result);
+        // Carry the damage over to the next hit, healing up once too many parts are broken
+        if (result.getBrokenPartCount() >= 2) {
+            resetParts();
+        } else {
+            System.arraycopy(result.partHP, 0, partHP, 0, Part.COUNT);
+        }
+        return result.damagedMask;
+    }
+}
@@ -0,0 +1,78 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Debuff updates and the part HP display, measured on their own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DisplayBenchmark {
+
+    private ArmorDamageListener listener;
+    private Player player;
+    private PartHP partHP;
+    private boolean low;
+
+    @Setup
+    public void setup() {
+        StandIns.Plugin plugin = StandIns.plugin();
+        listener = plugin.armorDamageListener;
+        player = StandIns.player();
+        partHP = plugin.armorStatsManager.getOrCreatePartHP(player);
+    }
+
+    /**
+     * Part HP does not cross a threshold, so no potion effect is touched.
+     */
+    @Benchmark
+    public void updateDebuffsSteady() {
+        listener.updateDebuffs(player, partHP);
+    }
+
+    /**
+     * Every call moves the legs across a threshold and back, so effects are swapped each time.
+     */
+    @Benchmark
+    public void updateDebuffsCrossing() {
+        low = !low;
+        double max = PartHP.getMaxHPPerPart(Part.LEGS);
+        partHP.setPartHP(Part.LEGS, low ? max * 0.1 : max);
+        partHP.setPartHP(Part.FEET, low ? max * 0.1 : max);
+        listener.updateDebuffs(player, partHP);
+    }
+
+    /**
+     * Nothing visible changed since the last render.
+     */
+    @Benchmark
+    public void updateArmorDisplay() {
+        partHP.updateArmorDisplay(player, true, -1);
+    }
+
+    /**
+     * The chest bar changes on every call, so one slot is rewritten.
+     */
+    @Benchmark
+    public void updateArmorDisplayChanged() {
+        low = !low;
+        double max = PartHP.getMaxHPPerPart(Part.CHEST);
+        partHP.setPartHP(Part.CHEST, low ? max * 0.5 : max);
+        partHP.updateArmorDisplay(player, true, -1);
+    }
+}
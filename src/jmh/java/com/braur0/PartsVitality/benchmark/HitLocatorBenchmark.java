@@ -0,0 +1,70 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.damage.HitLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding where a ray enters the player's hitbox: the exact slab intersection used now,
+ * against the fixed-step search the plugin used before (0.1 block steps).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HitLocatorBenchmark {
+
+    private static final double STEP = 0.1;
+
+    // The ray starts this far from the player (melee reach or a long-range shot)
+    @Param({"2", "40"})
+    public double distance;
+
+    private double originX, originY, originZ;
+    private double dirX, dirY, dirZ;
+    private final double minX = 0.2, minY = 64.0, minZ = 0.2;
+    private final double maxX = 0.8, maxY = 65.8, maxZ = 0.8;
+
+    @Setup
+    public void setup() {
+        // Aim from the given distance at the chest
+        originX = 0.5;
+        originY = 65.62;
+        originZ = 0.5 + distance;
+        double targetY = 65.1;
+        double dx = 0.0, dy = targetY - originY, dz = 0.5 - originZ;
+        double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        dirX = dx / length;
+        dirY = dy / length;
+        dirZ = dz / length;
+    }
+
+    @Benchmark
+    public double exact() {
+        return HitLocator.entryY(originX, originY, originZ, dirX, dirY, dirZ,
+                minX, minY, minZ, maxX, maxY, maxZ, distance + 2.0);
+    }
+
+    @Benchmark
+    public double stepped() {
+        double maxDistance = distance + 2.0;
+        for (double d = 0; d < maxDistance; d += STEP) {
+            double x = originX + dirX * d;
+            double y = originY + dirY * d;
+            double z = originZ + dirZ * d;
+            if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                return y;
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,78 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.storage.PartHPStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * One save interval of the part HP log: every player's snapshot is queued and written in a single flush,
+ * including the fsync and any compaction it triggers. Runs against a temporary directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartHPStoreBenchmark {
+
+    // Players with changed part HP in one save interval
+    @Param({"1", "64", "1024"})
+    public int players;
+
+    private Path directory;
+    private PartHPStore store;
+    private UUID[] uuids;
+    private double[][] values;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("parthp-benchmark");
+        store = new PartHPStore(directory.resolve("parthp.dat"), Logger.getLogger("PartHPStoreBenchmark"));
+        store.open();
+        uuids = new UUID[players];
+        values = new double[players][Part.COUNT];
+        for (int i = 0; i < players; i++) {
+            uuids[i] = UUID.randomUUID();
+            for (int part = 0; part < Part.COUNT; part++) values[i][part] = 20.0 - part;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveInterval() throws IOException {
+        for (int i = 0; i < players; i++) {
+            store.enqueue(uuids[i], values[i]);
+        }
+        store.flush();
+    }
+}
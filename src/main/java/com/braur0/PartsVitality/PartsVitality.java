@@ -1,44 +1,99 @@
 package com.braur0.PartsVitality;
 
+import com.braur0.PartsVitality.api.PartsVitalityAPI;
+import com.braur0.PartsVitality.api.PartsVitalityService;
+import com.braur0.PartsVitality.command.PartsVitalityCommand;
 import com.braur0.PartsVitality.config.Lang;
 import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.journal.DamageJournal;
 import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.listener.MobTrackingListener;
 import com.braur0.PartsVitality.listener.PlayerSetupListener;
 import com.braur0.PartsVitality.listener.PlayerInventoryListener;
 import com.braur0.PartsVitality.listener.PlayerStatusListener;
 import com.braur0.PartsVitality.listener.PlayerHealingListener;
 import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.metrics.AnalyticsWriter;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
+import com.braur0.PartsVitality.model.MobPartHPTable;
+import com.braur0.PartsVitality.model.Part;
 import com.braur0.PartsVitality.model.PartHP;
+import com.braur0.PartsVitality.task.AnalyticsTask;
+import com.braur0.PartsVitality.task.RegenerationTask;
+import com.braur0.PartsVitality.task.TaskScheduler;
+import com.braur0.PartsVitality.task.TreatmentEngine;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
 public class PartsVitality extends JavaPlugin {
 
     private ArmorStatsManager armorStatsManager;
     private ArmorDamageListener armorDamageListener;
     private PlayerInventoryListener playerInventoryListener;
-    private PluginConfig pluginConfig;
+    private PlayerStatusListener playerStatusListener;
+    private TreatmentEngine treatmentEngine;
+    private RegenerationTask regenerationTask;
+    // Null unless the damage journal is enabled
+    private DamageJournal damageJournal;
+    private TaskScheduler.Task journalFlushTask;
+    // Null unless damage analytics are enabled
+    private DamageAnalytics damageAnalytics;
+    private AnalyticsTask analyticsTask;
+    private TaskScheduler taskScheduler;
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    // The current configuration snapshot, replaced as a whole by /pv reload
+    private volatile PluginConfig pluginConfig;
 
     @Override
     public void onEnable() {
+        // Pick the Bukkit or the Folia scheduler before anything schedules work
+        this.taskScheduler = TaskScheduler.create(this);
+
         // Generate and load the configuration file
         saveDefaultConfig();
 
-        // Pass the configuration to the PartHP model
-        PartHP.loadConfig(getConfig());
+        // Initialize the centralized configuration snapshot and pass it to the PartHP model
+        this.pluginConfig = new PluginConfig(getConfig(), getLogger());
+        PartHP.loadConfig(pluginConfig);
 
         // Load the language file
-        Lang.load(this);
+        Lang.load(this, pluginConfig.language, pluginConfig.useClientLocale);
 
-        // Initialize the centralized configuration class
-        this.pluginConfig = new PluginConfig(getConfig());
+        PartHP.setMetrics(metrics);
+
+        // Record resolved damage for offline replay, if enabled
+        if (pluginConfig.journalEnabled) {
+            this.damageJournal = new DamageJournal(getDataFolder().toPath().resolve("journal"), getLogger(),
+                    pluginConfig.journalBufferRecords, pluginConfig.journalMaxFileBytes, pluginConfig.journalMaxFiles);
+            this.journalFlushTask = taskScheduler.runGlobalTimer(damageJournal::flushAsync, 20L, 20L);
+        }
 
         // Initialize managers and listeners
         this.armorStatsManager = new ArmorStatsManager(this);
-        this.armorDamageListener = new ArmorDamageListener(this, armorStatsManager, pluginConfig);
+        armorStatsManager.enableStorage();
+        this.armorDamageListener = new ArmorDamageListener(this, armorStatsManager);
         this.playerInventoryListener = new PlayerInventoryListener(this, armorStatsManager);
         PlayerSetupListener playerSetupListener = new PlayerSetupListener(this, armorStatsManager, armorDamageListener);
-        PlayerStatusListener playerStatusListener = new PlayerStatusListener(this);
-        PlayerHealingListener playerHealingListener = new PlayerHealingListener(this, armorStatsManager, armorDamageListener, playerInventoryListener, pluginConfig);
+        this.playerStatusListener = new PlayerStatusListener(this);
+        this.treatmentEngine = new TreatmentEngine(this, armorDamageListener, playerInventoryListener);
+        PlayerHealingListener playerHealingListener = new PlayerHealingListener(this, armorStatsManager, treatmentEngine);
+        this.regenerationTask = new RegenerationTask(this, armorStatsManager, armorDamageListener);
+        if (pluginConfig.analyticsEnabled) {
+            this.damageAnalytics = new DamageAnalytics();
+            AnalyticsWriter analyticsWriter = new AnalyticsWriter(getDataFolder().toPath().resolve("analytics"), getLogger(),
+                    pluginConfig.analyticsFormat, pluginConfig.analyticsMaxFiles, damageAnalytics.snapshot());
+            this.analyticsTask = new AnalyticsTask(this, armorStatsManager, damageAnalytics, analyticsWriter, pluginConfig.analyticsIntervalTicks);
+        }
 
         // Register listeners with the server
         getServer().getPluginManager().registerEvents(armorDamageListener, this);
@@ -46,16 +101,169 @@ public class PartsVitality extends JavaPlugin {
         getServer().getPluginManager().registerEvents(playerInventoryListener, this);
         getServer().getPluginManager().registerEvents(playerStatusListener, this);
         getServer().getPluginManager().registerEvents(playerHealingListener, this);
+        getServer().getPluginManager().registerEvents(new MobTrackingListener(armorStatsManager), this);
+
+        // Expose part HP to other plugins
+        getServer().getServicesManager().register(PartsVitalityAPI.class, new PartsVitalityService(this), this, ServicePriority.Normal);
+
+        // Start plugin-wide tasks
+        playerStatusListener.start();
+        treatmentEngine.start();
+        regenerationTask.start();
+        if (analyticsTask != null) {
+            analyticsTask.start();
+        }
+
+        // Register commands
+        PluginCommand command = getCommand("partsvitality");
+        if (command != null) {
+            PartsVitalityCommand executor = new PartsVitalityCommand(this);
+            command.setExecutor(executor);
+            command.setTabCompleter(executor);
+        }
 
         getLogger().info(Lang.get("plugin-enabled"));
     }
 
     @Override
     public void onDisable() {
+        getServer().getServicesManager().unregisterAll(this);
+        if (playerStatusListener != null) {
+            playerStatusListener.stop();
+        }
+        if (treatmentEngine != null) {
+            treatmentEngine.stop();
+        }
+        if (regenerationTask != null) {
+            regenerationTask.stop();
+        }
+        // Write the last analytics interval
+        if (analyticsTask != null) {
+            analyticsTask.stop();
+        }
+        // Write the rest of the damage journal
+        if (journalFlushTask != null) {
+            journalFlushTask.cancel();
+        }
+        if (damageJournal != null) {
+            damageJournal.close();
+        }
+        // Write all unsaved part HP before the server stops
+        if (armorStatsManager != null) {
+            armorStatsManager.disableStorage();
+        }
         getLogger().info(Lang.get("plugin-disabled"));
     }
 
+    public ArmorStatsManager getArmorStatsManager() {
+        return armorStatsManager;
+    }
+
     public PlayerInventoryListener getPlayerInventoryListener() {
         return playerInventoryListener;
     }
+
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    /**
+     * @return The damage journal, or null if it is disabled.
+     */
+    public DamageJournal getDamageJournal() {
+        return damageJournal;
+    }
+
+    /**
+     * @return The damage analytics, or null if they are disabled.
+     */
+    public DamageAnalytics getDamageAnalytics() {
+        return damageAnalytics;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public ArmorDamageListener getArmorDamageListener() {
+        return armorDamageListener;
+    }
+
+    public TreatmentEngine getTreatmentEngine() {
+        return treatmentEngine;
+    }
+
+    /**
+     * @return The current configuration snapshot. Read it once per event and keep using that instance.
+     */
+    public PluginConfig getPluginConfig() {
+        return pluginConfig;
+    }
+
+    /**
+     * Reloads config.yml and the messages files. They are parsed into new snapshots off the main thread,
+     * then swapped in on the main thread (the global region thread on Folia). If parsing fails, the current snapshots are kept.
+     * @param callback Called on the main thread (the global region thread on Folia) with null on success, or the error on failure.
+     */
+    public void reloadPluginConfig(Consumer<Throwable> callback) {
+        taskScheduler.runAsync(() -> {
+            PluginConfig newConfig;
+            Lang.Snapshot newMessages;
+            try {
+                YamlConfiguration yaml = YamlConfiguration.loadConfiguration(new File(getDataFolder(), "config.yml"));
+                // Use the bundled config.yml for missing keys, as getConfig() does
+                InputStream defaultStream = getResource("config.yml");
+                if (defaultStream != null) {
+                    yaml.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaultStream, StandardCharsets.UTF_8)));
+                }
+                newConfig = new PluginConfig(yaml, getLogger());
+                newMessages = Lang.compile(this, newConfig.language, newConfig.useClientLocale);
+            } catch (Exception e) {
+                getLogger().warning("Failed to reload config.yml: " + e.getMessage());
+                taskScheduler.runGlobal(() -> callback.accept(e));
+                return;
+            }
+
+            taskScheduler.runGlobal(() -> {
+                applyPluginConfig(newConfig, newMessages);
+                callback.accept(null);
+            });
+        });
+    }
+
+    private void applyPluginConfig(PluginConfig newConfig, Lang.Snapshot newMessages) {
+        double[] maxHP = new double[Part.COUNT];
+        for (Part part : Part.VALUES) {
+            maxHP[part.ordinal()] = newConfig.getMaxHP(part);
+        }
+        // Mobs keep their part HP and debuff tiers across a reload. The config is swapped under the table's lock,
+        // so a mob hit never sees tiers applied from the old debuff table together with the new one.
+        MobPartHPTable mobParts = armorStatsManager.getMobPartHP();
+        synchronized (mobParts) {
+            this.pluginConfig = newConfig;
+            mobParts.reconfigure(maxHP);
+        }
+        PartHP.loadConfig(newConfig);
+        Lang.publish(newMessages);
+
+        // Bring online players in line with the new values (max HP, debuffs, health penalty).
+        // Until then, their debuff tiers read as unknown, since they were applied from the old debuff table.
+        for (Player player : getServer().getOnlinePlayers()) {
+            if (taskScheduler.isRegionThreaded()) {
+                taskScheduler.runForEntity(player, () -> applyPluginConfig(player), 1L);
+            } else {
+                applyPluginConfig(player);
+            }
+        }
+    }
+
+    private void applyPluginConfig(Player player) {
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP == null) return;
+        partHP.clampToMaxHP();
+        partHP.resetDebuffTiers();
+        partHP.resetHealthPenalty();
+        armorDamageListener.updateDebuffs(player, partHP);
+        armorDamageListener.updateHealthPenalty(player, partHP);
+    }
 }
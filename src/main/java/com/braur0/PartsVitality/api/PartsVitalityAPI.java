@@ -0,0 +1,59 @@
+package com.braur0.PartsVitality.api;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Reads and writes player part HP for other plugins. Registered with Bukkit's ServicesManager:
+ * <pre>
+ * PartsVitalityAPI api = Bukkit.getServicesManager().load(PartsVitalityAPI.class);
+ * </pre>
+ * Call it on the thread that owns the player (the main thread, or the player's region thread on Folia).
+ * Batch methods use flat arrays laid out as {@code [player index * Part.COUNT + part ordinal]},
+ * so a whole scoreboard or quest update needs no allocation.
+ * Changes are announced with {@link com.braur0.PartsVitality.api.event.PartDamageEvent},
+ * {@link com.braur0.PartsVitality.api.event.PartBrokenEvent} and {@link com.braur0.PartsVitality.api.event.PartHealedEvent};
+ * writes through this API call none of them.
+ */
+public interface PartsVitalityAPI {
+
+    /**
+     * @return The max HP of a part.
+     */
+    double getMaxPartHP(Part part);
+
+    /**
+     * @return The HP of a player's part, or NaN if the player has no part HP loaded.
+     */
+    double getPartHP(Player player, Part part);
+
+    /**
+     * @return A bitmask of the player's parts with 0 HP (see {@link Part#bit()}), or 0 if the player has no part HP loaded.
+     */
+    int getBrokenMask(Player player);
+
+    /**
+     * Sets the HP of a player's part, capped to the part's max HP,
+     * and updates their debuffs, max health penalty and armor display.
+     * @return Whether the player has part HP loaded.
+     */
+    boolean setPartHP(Player player, Part part, double hp);
+
+    /**
+     * Reads the part HP of many players at once.
+     * @param out Receives the HP of every part of every player. Players without part HP get NaN.
+     *            Must hold at least {@code players.size() * Part.COUNT} values.
+     * @return The number of players with part HP loaded.
+     */
+    int getPartHP(List<? extends Player> players, double[] out);
+
+    /**
+     * Writes the part HP of many players at once. NaN values leave the part unchanged.
+     * Debuffs, max health penalty and the armor display are updated once per player.
+     * @param values The HP of every part of every player, in the same layout as {@link #getPartHP(List, double[])}.
+     * @return The number of players with part HP loaded, whose values were written.
+     */
+    int setPartHP(List<? extends Player> players, double[] values);
+}
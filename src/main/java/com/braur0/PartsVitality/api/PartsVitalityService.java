@@ -0,0 +1,100 @@
+package com.braur0.PartsVitality.api;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * The {@link PartsVitalityAPI} registered by the plugin.
+ */
+public final class PartsVitalityService implements PartsVitalityAPI {
+
+    private final PartsVitality plugin;
+    private final ArmorStatsManager armorStatsManager;
+
+    public PartsVitalityService(PartsVitality plugin) {
+        this.plugin = plugin;
+        this.armorStatsManager = plugin.getArmorStatsManager();
+    }
+
+    @Override
+    public double getMaxPartHP(Part part) {
+        return PartHP.getMaxHPPerPart(part);
+    }
+
+    @Override
+    public double getPartHP(Player player, Part part) {
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        return partHP != null ? partHP.getPartHP(part) : Double.NaN;
+    }
+
+    @Override
+    public int getBrokenMask(Player player) {
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        return partHP != null ? partHP.getBrokenMask() : 0;
+    }
+
+    @Override
+    public boolean setPartHP(Player player, Part part, double hp) {
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP == null) return false;
+        partHP.setPartHP(part, hp);
+        plugin.getArmorDamageListener().refreshPlayer(player, partHP);
+        return true;
+    }
+
+    @Override
+    public int getPartHP(List<? extends Player> players, double[] out) {
+        checkLength(players, out);
+        int found = 0;
+        for (int i = 0; i < players.size(); i++) {
+            PartHP partHP = armorStatsManager.getPartHP(players.get(i));
+            int offset = i * Part.COUNT;
+            if (partHP == null) {
+                for (int part = 0; part < Part.COUNT; part++) {
+                    out[offset + part] = Double.NaN;
+                }
+                continue;
+            }
+            for (Part part : Part.VALUES) {
+                out[offset + part.ordinal()] = partHP.getPartHP(part);
+            }
+            found++;
+        }
+        return found;
+    }
+
+    @Override
+    public int setPartHP(List<? extends Player> players, double[] values) {
+        checkLength(players, values);
+        int written = 0;
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            PartHP partHP = armorStatsManager.getPartHP(player);
+            if (partHP == null) continue;
+            int offset = i * Part.COUNT;
+            boolean changed = false;
+            for (Part part : Part.VALUES) {
+                double hp = values[offset + part.ordinal()];
+                if (Double.isNaN(hp)) continue;
+                partHP.setPartHP(part, hp);
+                changed = true;
+            }
+            if (changed) {
+                plugin.getArmorDamageListener().refreshPlayer(player, partHP);
+            }
+            written++;
+        }
+        return written;
+    }
+
+    private static void checkLength(List<? extends Player> players, double[] values) {
+        if (values.length < players.size() * Part.COUNT) {
+            throw new IllegalArgumentException("Expected at least " + players.size() * Part.COUNT + " values, got " + values.length);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.braur0.PartsVitality.api.event;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+/**
+ * Called when a hit is about to bring one of a player's parts to 0 HP, after its {@link PartDamageEvent}.
+ * <p>
+ * Cancelling the event keeps the part from breaking: the hit then leaves the part untouched and spares its armor piece.
+ */
+public class PartBrokenEvent extends PartEvent implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final DamageCause cause;
+    private final double previousHP;
+    private boolean cancelled;
+
+    public PartBrokenEvent(Player player, Part part, DamageCause cause, double previousHP) {
+        super(player, part);
+        this.cause = cause;
+        this.previousHP = previousHP;
+    }
+
+    public DamageCause getCause() {
+        return cause;
+    }
+
+    /**
+     * @return The HP of the part before the hit.
+     */
+    public double getPreviousHP() {
+        return previousHP;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * @return Whether any plugin listens to this event, so it is worth creating.
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+}
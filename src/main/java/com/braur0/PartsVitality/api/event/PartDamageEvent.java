@@ -0,0 +1,86 @@
+package com.braur0.PartsVitality.api.event;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+/**
+ * Called when a hit is about to take HP from one of a player's parts.
+ * A hit that damages several parts calls one event per part.
+ * <p>
+ * Cancelling the event leaves the part untouched and spares its armor piece.
+ * Changing the damage does not change the armor wear of the hit.
+ */
+public class PartDamageEvent extends PartEvent implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final DamageCause cause;
+    private final double previousHP;
+    private double damage;
+    private boolean cancelled;
+
+    public PartDamageEvent(Player player, Part part, DamageCause cause, double previousHP, double damage) {
+        super(player, part);
+        this.cause = cause;
+        this.previousHP = previousHP;
+        this.damage = damage;
+    }
+
+    public DamageCause getCause() {
+        return cause;
+    }
+
+    /**
+     * @return The HP of the part before the hit.
+     */
+    public double getPreviousHP() {
+        return previousHP;
+    }
+
+    /**
+     * @return The part HP the hit takes away.
+     */
+    public double getDamage() {
+        return damage;
+    }
+
+    public void setDamage(double damage) {
+        this.damage = Math.max(0, damage);
+    }
+
+    /**
+     * @return The HP the part is left with.
+     */
+    public double getNewHP() {
+        return Math.max(0, previousHP - damage);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * @return Whether any plugin listens to this event, so it is worth creating.
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.braur0.PartsVitality.api.event;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerEvent;
+
+/**
+ * Base class of the events about one part of a player.
+ * <p>
+ * These events are only created when at least one listener is registered for them,
+ * so they cost nothing on servers that don't use them. They are called on the thread that owns the player.
+ */
+public abstract class PartEvent extends PlayerEvent {
+
+    private final Part part;
+
+    protected PartEvent(Player player, Part part) {
+        super(player);
+        this.part = part;
+    }
+
+    public Part getPart() {
+        return part;
+    }
+}
@@ -0,0 +1,84 @@
+package com.braur0.PartsVitality.api.event;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called when a treatment or passive regeneration is about to restore HP to one of a player's parts.
+ * Healing over time calls one event per tick of the treatment; instant healing and surgery call one on completion,
+ * and regeneration one each time it updates the player.
+ * <p>
+ * Cancelling the event leaves the part untouched. A treatment still ends as usual.
+ */
+public class PartHealedEvent extends PartEvent implements Cancellable {
+
+    public enum Cause {
+        HEALING,
+        SURGERY,
+        REGENERATION
+    }
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Cause cause;
+    private final double previousHP;
+    private double amount;
+    private boolean cancelled;
+
+    public PartHealedEvent(Player player, Part part, Cause cause, double previousHP, double amount) {
+        super(player, part);
+        this.cause = cause;
+        this.previousHP = previousHP;
+        this.amount = amount;
+    }
+
+    public Cause getCause() {
+        return cause;
+    }
+
+    /**
+     * @return The HP of the part before the treatment.
+     */
+    public double getPreviousHP() {
+        return previousHP;
+    }
+
+    /**
+     * @return The part HP restored. The part's max HP still caps the result.
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = Math.max(0, amount);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+
+    /**
+     * @return Whether any plugin listens to this event, so it is worth creating.
+     */
+    public static boolean hasListeners() {
+        return HANDLERS.getRegisteredListeners().length > 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.braur0.PartsVitality.command;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.config.Lang;
+import com.braur0.PartsVitality.journal.DamageJournal;
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
+import com.braur0.PartsVitality.model.MobPartHPTable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+public class PartsVitalityCommand implements CommandExecutor, TabCompleter {
+
+    private static final String ADMIN_PERMISSION = "partsvitality.admin";
+    private static final List<String> STATS_ACTIONS = List.of("dump", "reset");
+    private static final DateTimeFormatter DUMP_FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<String> SUBCOMMANDS = List.of("reload", "stats");
+
+    private final PartsVitality plugin;
+
+    public PartsVitalityCommand(PartsVitality plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission(ADMIN_PERMISSION)) {
+            sender.sendMessage(Lang.get(sender, "command-no-permission"));
+            return true;
+        }
+
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            sender.sendMessage(Lang.get(sender, "reload-start"));
+            plugin.reloadPluginConfig(error -> {
+                if (error == null) {
+                    sender.sendMessage(Lang.get(sender, "reload-complete"));
+                } else {
+                    sender.sendMessage(Lang.get(sender, "reload-failed", "error", String.valueOf(error.getMessage())));
+                }
+            });
+            return true;
+        }
+
+        if (args.length >= 1 && args[0].equalsIgnoreCase("stats")) {
+            handleStats(sender, args.length >= 2 ? args[1].toLowerCase() : "");
+            return true;
+        }
+
+        sender.sendMessage(Lang.get(sender, "command-usage", "label", label));
+        return true;
+    }
+
+    private void handleStats(CommandSender sender, String action) {
+        MetricsRegistry metrics = plugin.getMetrics();
+        if (action.equals("reset")) {
+            metrics.reset();
+            sender.sendMessage(Lang.get(sender, "stats-reset"));
+            return;
+        }
+
+        ArmorDamageListener damageListener = plugin.getArmorDamageListener();
+        long events = damageListener.getDamageEventCount();
+        long flushes = damageListener.getFlushCount();
+        MobPartHPTable mobParts = plugin.getArmorStatsManager().getMobPartHP();
+        DamageJournal journal = plugin.getDamageJournal();
+        String journalLine = journal == null ? "Damage journal: disabled"
+                : String.format(Locale.ROOT, "Damage journal: %d events recorded, %d dropped (%d in this window)",
+                        journal.getRecordedCount(), journal.getDroppedCount(), metrics.journalDropped.sum());
+        List<String> lines = metrics.report(List.of(String.format(Locale.ROOT,
+                "Damage side effects: %d events applied in %d flushes (%d coalesced), last tick %d/%d",
+                events, flushes, events - flushes, damageListener.getLastTickDamageEvents(), damageListener.getLastTickFlushes()),
+                String.format(Locale.ROOT, "Tracked mobs: %d / %d, %.1f KiB (%d B per slot), %d hits untracked because the table was full",
+                        mobParts.size(), mobParts.getMaxEntries(), mobParts.getMemoryBytes() / 1024.0,
+                        MobPartHPTable.BYTES_PER_SLOT, metrics.untrackedMobs.sum()),
+                journalLine));
+
+        if (!action.equals("dump")) {
+            sender.sendMessage(Lang.get(sender, "stats-header"));
+            for (String line : lines) {
+                sender.sendMessage("§7" + line);
+            }
+            return;
+        }
+
+        // Write the report off the main thread
+        Path file = plugin.getDataFolder().toPath().resolve("stats-" + LocalDateTime.now().format(DUMP_FILE_FORMAT) + ".txt");
+        plugin.getTaskScheduler().runAsync(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                Files.write(file, lines, StandardCharsets.UTF_8);
+                plugin.getTaskScheduler().runFor(sender, () ->
+                        sender.sendMessage(Lang.get(sender, "stats-dumped", "file", file.getFileName().toString())));
+            } catch (IOException e) {
+                plugin.getTaskScheduler().runFor(sender, () ->
+                        sender.sendMessage(Lang.get(sender, "stats-dump-failed", "error", String.valueOf(e.getMessage()))));
+            }
+        });
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
+        if (!sender.hasPermission(ADMIN_PERMISSION)) return List.of();
+        List<String> candidates;
+        if (args.length == 1) {
+            candidates = SUBCOMMANDS;
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("stats")) {
+            candidates = STATS_ACTIONS;
+        } else {
+            return List.of();
+        }
+        String prefix = args[args.length - 1].toLowerCase();
+        return candidates.stream()
+                .filter(sub -> sub.startsWith(prefix))
+                .toList();
+    }
+}
@@ -0,0 +1,114 @@
+package com.braur0.PartsVitality.config;
+
+import com.braur0.PartsVitality.damage.DebuffTiers;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.potion.PotionEffect;
+import org.bukkit.potion.PotionEffectType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * The "debuffs" section of config.yml, compiled once at load into per-group threshold tables.
+ * A tier is 0 when no debuff applies, or the 1-based index of the rule that matched.
+ */
+public final class DebuffTable {
+
+    public static final int GROUP_HEAD = DebuffTiers.GROUP_HEAD;
+    public static final int GROUP_CHEST = DebuffTiers.GROUP_CHEST;
+    public static final int GROUP_LEGS_AND_FEET = DebuffTiers.GROUP_LEGS_AND_FEET;
+    public static final int GROUP_COUNT = DebuffTiers.GROUP_COUNT;
+
+    public static final int TIER_NONE = DebuffTiers.TIER_NONE;
+
+    private static final String[] GROUP_KEYS = {"head", "chest", "legs_and_feet"};
+
+    private final DebuffTiers tiers;
+    // effects[group][tier], where index 0 (TIER_NONE) is always null
+    private final PotionEffect[][] effects = new PotionEffect[GROUP_COUNT][];
+    // Every distinct effect type used by a group, for clearing when the current state is unknown
+    private final PotionEffectType[][] effectTypes = new PotionEffectType[GROUP_COUNT][];
+
+    private record Rule(double threshold, PotionEffect effect) {
+    }
+
+    public DebuffTable(ConfigurationSection section, Logger logger) {
+        double[][] thresholds = new double[GROUP_COUNT][];
+        for (int group = 0; group < GROUP_COUNT; group++) {
+            List<Rule> groupRules = new ArrayList<>();
+            Set<PotionEffectType> groupTypes = new LinkedHashSet<>();
+
+            List<Map<?, ?>> rules = section != null ? section.getMapList(GROUP_KEYS[group]) : List.of();
+            for (Map<?, ?> rule : rules) {
+                Object threshold = rule.get("threshold");
+                Object effect = rule.get("effect");
+                Object level = rule.get("level");
+                PotionEffectType type = effect != null ? PotionEffectType.getByName(effect.toString()) : null;
+                if (!(threshold instanceof Number) || type == null) {
+                    if (logger != null) logger.warning("Ignoring invalid debuff rule in debuffs." + GROUP_KEYS[group] + ": " + rule);
+                    continue;
+                }
+                int amplifier = level instanceof Number number ? number.intValue() : 0;
+                groupRules.add(new Rule(((Number) threshold).doubleValue(), new PotionEffect(type, -1, amplifier, true, false)));
+                groupTypes.add(type);
+            }
+            groupRules.sort(Comparator.comparingDouble(Rule::threshold));
+
+            thresholds[group] = new double[groupRules.size()];
+            effects[group] = new PotionEffect[groupRules.size() + 1]; // Index 0 is TIER_NONE
+            for (int i = 0; i < groupRules.size(); i++) {
+                thresholds[group][i] = groupRules.get(i).threshold();
+                effects[group][i + 1] = groupRules.get(i).effect();
+            }
+            effectTypes[group] = groupTypes.toArray(new PotionEffectType[0]);
+        }
+        this.tiers = new DebuffTiers(thresholds);
+    }
+
+    /**
+     * Finds the debuff tier for an HP ratio.
+     * @param group The debuff group (GROUP_*).
+     * @param ratio The current HP divided by the max HP.
+     * @return The matching tier, or TIER_NONE.
+     */
+    public int resolveTier(int group, double ratio) {
+        return tiers.resolveTier(group, ratio);
+    }
+
+    /**
+     * @return The thresholds alone, for code that must not depend on the server API.
+     */
+    public DebuffTiers getTiers() {
+        return tiers;
+    }
+
+    /**
+     * @return The effect for a tier, or null for TIER_NONE.
+     */
+    public PotionEffect getEffect(int group, int tier) {
+        return effects[group][tier];
+    }
+
+    /**
+     * @return Whether a tier exists in a group, counting TIER_NONE.
+     */
+    public boolean isValidTier(int group, int tier) {
+        return tier >= TIER_NONE && tier < effects[group].length;
+    }
+
+    public PotionEffectType[] getEffectTypes(int group) {
+        return effectTypes[group];
+    }
+
+    /**
+     * @return The name of a group's section in config.yml.
+     */
+    public static String getGroupKey(int group) {
+        return GROUP_KEYS[group];
+    }
+}
@@ -1,53 +1,192 @@
 package com.braur0.PartsVitality.config;
 
 import com.braur0.PartsVitality.PartsVitality;
+import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+/**
+ * Plugin messages, compiled into templates when loaded.
+ * <p>
+ * The configured language is loaded up front and used for the console and as the fallback.
+ * When client locales are enabled, the shipped languages and any other messages files in the data folder
+ * are loaded too, so a player's language (from {@link Player#locale()}) is a map lookup when a message is sent.
+ * Languages without a messages file fall back to the configured one.
+ * <p>
+ * Loading reads files, so a reload {@link #compile compiles} a snapshot off the main thread and
+ * {@link #publish publishes} it on the main thread, together with the new config.
+ */
 public class Lang {
 
-    private static final Map<String, String> messages = new HashMap<>();
+    // The languages with a messages file in the plugin jar
+    private static final List<String> SHIPPED_LANGUAGES = List.of("en", "ja");
+    private static final String FILE_PREFIX = "messages_";
+    private static final String FILE_SUFFIX = ".yml";
 
-    public static void load(PartsVitality plugin) {
-        String lang = plugin.getConfig().getString("language", "en");
-        File langFile = new File(plugin.getDataFolder(), "messages_" + lang + ".yml");
+    /**
+     * Every loaded language, replaced as a whole on every load.
+     * @param messages Templates of the configured language.
+     * @param bundles Templates by language code (e.g. "ja").
+     * @param useClientLocale Whether players see messages in their own client's language when available.
+     */
+    public record Snapshot(Map<String, MessageTemplate> messages, Map<String, Map<String, MessageTemplate>> bundles,
+                           boolean useClientLocale) {
+    }
+
+    private static volatile Snapshot current = new Snapshot(Map.of(), Map.of(), false);
+
+    /**
+     * Loads the configured language and, if client locales are enabled, every other available language, and uses them.
+     * @param useClientLocale Whether players see messages in their own client's language when available.
+     */
+    public static void load(PartsVitality plugin, String lang, boolean useClientLocale) {
+        publish(compile(plugin, lang, useClientLocale));
+    }
 
-        if (!langFile.exists()) {
-            plugin.saveResource("messages_" + lang + ".yml", false);
+    /**
+     * Loads the configured language and, if client locales are enabled, every other available language,
+     * without using them yet. Safe to call off the main thread.
+     * @param useClientLocale Whether players see messages in their own client's language when available.
+     */
+    public static Snapshot compile(PartsVitality plugin, String lang, boolean useClientLocale) {
+        Map<String, MessageTemplate> loaded = loadBundle(plugin, lang);
+        Map<String, MessageTemplate> defaults = loaded != null ? loaded : Map.of();
+
+        Map<String, Map<String, MessageTemplate>> languages = new HashMap<>();
+        languages.put(lang, defaults);
+        if (useClientLocale) {
+            for (String language : availableLanguages(plugin)) {
+                if (languages.containsKey(language)) continue;
+                Map<String, MessageTemplate> bundle = loadBundle(plugin, language);
+                if (bundle != null) languages.put(language, bundle);
+            }
         }
+        return new Snapshot(defaults, Map.copyOf(languages), useClientLocale);
+    }
+
+    /**
+     * Uses the languages of a snapshot for every message from now on.
+     */
+    public static void publish(Snapshot snapshot) {
+        current = snapshot;
+    }
+
+    /**
+     * @return The shipped languages and those of any other messages files in the data folder.
+     */
+    private static List<String> availableLanguages(PartsVitality plugin) {
+        List<String> languages = new ArrayList<>(SHIPPED_LANGUAGES);
+        String[] files = plugin.getDataFolder().list((directory, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files != null) {
+            for (String file : files) {
+                String language = file.substring(FILE_PREFIX.length(), file.length() - FILE_SUFFIX.length());
+                if (!language.isEmpty() && !languages.contains(language)) languages.add(language);
+            }
+        }
+        return languages;
+    }
+
+    /**
+     * Loads and compiles messages_{lang}.yml.
+     * @return The templates, or null if there is no messages file for the language.
+     */
+    private static Map<String, MessageTemplate> loadBundle(PartsVitality plugin, String lang) {
+        String fileName = FILE_PREFIX + lang + FILE_SUFFIX;
+        File langFile = new File(plugin.getDataFolder(), fileName);
+
+        FileConfiguration langConfig;
+        try (InputStream defaultStream = plugin.getResource(fileName)) {
+            if (!langFile.exists()) {
+                if (defaultStream == null) return null;
+                plugin.saveResource(fileName, false);
+            }
 
-        FileConfiguration langConfig = YamlConfiguration.loadConfiguration(langFile);
+            langConfig = YamlConfiguration.loadConfiguration(langFile);
 
-        // Fallback to internal file if external file is incomplete
-        InputStream defaultStream = plugin.getResource("messages_" + lang + ".yml");
-        if (defaultStream != null) {
-            langConfig.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaultStream, StandardCharsets.UTF_8)));
+            // Fallback to internal file if external file is incomplete
+            if (defaultStream != null) {
+                langConfig.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(defaultStream, StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + fileName + " from the plugin jar", e);
         }
 
-        messages.clear();
+        Map<String, MessageTemplate> templates = new HashMap<>();
         for (String key : langConfig.getKeys(true)) {
             if (!langConfig.isConfigurationSection(key)) {
-                messages.put(key, langConfig.getString(key));
+                String message = langConfig.getString(key);
+                if (message != null) templates.put(key, MessageTemplate.compile(message));
             }
         }
+        return templates;
+    }
+
+    /**
+     * @return The templates to use for the sender: their client's language if enabled and available, otherwise the configured one.
+     */
+    private static Map<String, MessageTemplate> bundleFor(Snapshot snapshot, CommandSender sender) {
+        if (!snapshot.useClientLocale() || !(sender instanceof Player player)) return snapshot.messages();
+        Locale locale = player.locale();
+        if (locale == null) return snapshot.messages();
+        return snapshot.bundles().getOrDefault(locale.getLanguage(), snapshot.messages());
+    }
+
+    private static MessageTemplate template(CommandSender sender, String key) {
+        Snapshot snapshot = current;
+        Map<String, MessageTemplate> bundle = bundleFor(snapshot, sender);
+        MessageTemplate template = bundle.get(key);
+        if (template == null && bundle != snapshot.messages()) template = snapshot.messages().get(key);
+        return template;
+    }
+
+    private static String missing(String key) {
+        return "§c[Missing message: " + key + "]";
     }
 
     public static String get(String key) {
-        return messages.getOrDefault(key, "§c[Missing message: " + key + "]");
+        MessageTemplate template = current.messages().get(key);
+        return template != null ? template.render() : missing(key);
     }
 
     public static String get(String key, Map<String, String> placeholders) {
-        String message = get(key);
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            message = message.replace("{" + entry.getKey() + "}", entry.getValue());
-        }
-        return message;
+        MessageTemplate template = current.messages().get(key);
+        return template != null ? template.render(placeholders) : missing(key);
+    }
+
+    /**
+     * Gets a message in the sender's language.
+     */
+    public static String get(CommandSender sender, String key) {
+        MessageTemplate template = template(sender, key);
+        return template != null ? template.render() : missing(key);
+    }
+
+    /**
+     * Gets a message in the sender's language with one placeholder filled in.
+     */
+    public static String get(CommandSender sender, String key, String placeholder, String value) {
+        MessageTemplate template = template(sender, key);
+        return template != null ? template.render(placeholder, value) : missing(key);
+    }
+
+    /**
+     * Gets a message in the sender's language with the given placeholders filled in.
+     */
+    public static String get(CommandSender sender, String key, Map<String, String> placeholders) {
+        MessageTemplate template = template(sender, key);
+        return template != null ? template.render(placeholders) : missing(key);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.braur0.PartsVitality.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message compiled once at load into literal text and {placeholder} segments.
+ * Rendering is a single pass over the segments, whatever the number of placeholders.
+ */
+final class MessageTemplate {
+
+    // literals[i] comes before names[i]; the last literal ends the message
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    static MessageTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalStart = 0;
+        int open = text.indexOf('{');
+        while (open >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) break;
+            String name = text.substring(open + 1, close);
+            if (isPlaceholderName(name)) {
+                literals.add(text.substring(literalStart, open));
+                names.add(name);
+                literalStart = close + 1;
+                open = text.indexOf('{', literalStart);
+            } else {
+                // Not a placeholder (e.g. a stray brace); keep it as text
+                open = text.indexOf('{', open + 1);
+            }
+        }
+        literals.add(text.substring(literalStart));
+        return new MessageTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    // Any key the baseline String.replace matched: everything between the braces except another brace
+    private static boolean isPlaceholderName(String name) {
+        return !name.isEmpty() && name.indexOf('{') < 0;
+    }
+
+    /**
+     * @return The message, with placeholders left as they are.
+     */
+    String render() {
+        if (names.length == 0) return literals[0];
+        return render(null, null, null);
+    }
+
+    /**
+     * Renders the message with one placeholder filled in; other placeholders are left as they are.
+     */
+    String render(String name, String value) {
+        if (names.length == 0) return literals[0];
+        return render(name, value, null);
+    }
+
+    /**
+     * Renders the message with the given placeholders filled in; missing ones are left as they are.
+     */
+    String render(Map<String, String> placeholders) {
+        if (names.length == 0) return literals[0];
+        return render(null, null, placeholders);
+    }
+
+    private String render(String name, String value, Map<String, String> placeholders) {
+        StringBuilder builder = new StringBuilder(literalLength + 16 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            String replacement = null;
+            if (placeholders != null) {
+                replacement = placeholders.get(names[i]);
+            } else if (names[i].equals(name)) {
+                replacement = value;
+            }
+            if (replacement != null) {
+                builder.append(replacement);
+            } else {
+                builder.append('{').append(names[i]).append('}');
+            }
+        }
+        return builder.append(literals[names.length]).toString();
+    }
+}
@@ -1,13 +1,36 @@
 package com.braur0.PartsVitality.config;
 
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.damage.HitZoneTable;
+import com.braur0.PartsVitality.metrics.AnalyticsWriter;
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.Material;
 import org.bukkit.Sound;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.EntityType;
 
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * An immutable snapshot of config.yml.
+ * Every value is parsed once when the snapshot is built, so hot paths never query the YAML tree.
+ * A reload builds a new snapshot and swaps it in as a whole.
+ */
 public class PluginConfig {
 
+    // Language
+    public final String language;
+    public final boolean useClientLocale;
+
+    // Parts (indexed by Part ordinal)
+    private final double[] partMaxHP = new double[Part.COUNT];
+    public final double totalMaxHP;
+
     // Damage
     public final double damageMultiplier;
-    public final double rayTraceStep;
 
     // Durability
     public final boolean useCustomDurabilityDamage;
@@ -22,6 +45,8 @@ public class PluginConfig {
     public final Sound healingCompleteSound;
     public final float healingCompleteSoundVolume;
     public final float healingCompleteSoundPitch;
+    public final boolean healOverTime;
+    public final int maxConcurrentTreatments;
 
     // Surgery
     public final int surgeryDurationTicks;
@@ -34,13 +59,65 @@ public class PluginConfig {
     public final float surgeryCompleteSoundPitch;
     public final double surgeryRestoredHp;
 
+    // Regeneration (indexed by Part ordinal)
+    public final boolean regenEnabled;
+    private final double[] regenPerTick = new double[Part.COUNT];
+    public final int regenCombatCooldownTicks;
+    public final double regenRestingMultiplier;
+    public final int regenIntervalTicks;
+    public final long regenBudgetNanos;
+
     // Health Penalty
     public final double healthPenaltyPerBrokenPart;
 
-    public PluginConfig(FileConfiguration config) {
+    // Debuffs
+    public final DebuffTable debuffs;
+
+    // Hit zones
+    public final HitZoneTable hitZones;
+    // Damage resolution built from the values above
+    public final DamageEngine damageEngine;
+
+    // Mobs
+    private final boolean[] trackedMobTypes = new boolean[EntityType.values().length];
+    // Read once at startup
+    public final int maxTrackedMobs;
+
+    // Damage journal (read once at startup)
+    public final boolean journalEnabled;
+    public final int journalBufferRecords;
+    public final long journalMaxFileBytes;
+    public final int journalMaxFiles;
+
+    // Damage analytics (read once at startup)
+    public final boolean analyticsEnabled;
+    public final long analyticsIntervalTicks;
+    public final AnalyticsWriter.Format analyticsFormat;
+    public final int analyticsMaxFiles;
+
+    // Storage (read once at startup)
+    public final boolean storageEnabled;
+    public final long storageFlushIntervalTicks;
+
+    // Healing and surgery items (indexed by Material ordinal)
+    private final double[] healingItemAmounts = new double[Material.values().length];
+    private final boolean[] surgeryItems = new boolean[Material.values().length];
+
+    public PluginConfig(FileConfiguration config, Logger logger) {
+        // Language
+        this.language = config.getString("language", "en");
+        this.useClientLocale = config.getBoolean("use-client-locale", true);
+
+        // Parts
+        double total = 0;
+        for (Part part : Part.VALUES) {
+            partMaxHP[part.ordinal()] = config.getDouble("parts." + part.getKey() + ".max-hp", 20.0);
+            total += partMaxHP[part.ordinal()];
+        }
+        this.totalMaxHP = total;
+
         // Damage
         this.damageMultiplier = config.getDouble("damage.damage-multiplier", 5.0);
-        this.rayTraceStep = config.getDouble("damage.ray-trace-step", 0.1);
 
         // Durability
         this.useCustomDurabilityDamage = config.getBoolean("durability.use-custom-durability-damage", true);
@@ -55,6 +132,8 @@ public class PluginConfig {
         this.healingCompleteSound = Sound.valueOf(config.getString("healing.complete-sound.name", "ENTITY_PLAYER_LEVELUP").toUpperCase());
         this.healingCompleteSoundVolume = (float) config.getDouble("healing.complete-sound.volume", 0.7);
         this.healingCompleteSoundPitch = (float) config.getDouble("healing.complete-sound.pitch", 1.5);
+        this.healOverTime = config.getBoolean("healing.heal-over-time", false);
+        this.maxConcurrentTreatments = Math.max(1, Math.min(Part.COUNT, config.getInt("healing.max-concurrent-treatments", 1)));
 
         // Surgery
         this.surgeryDurationTicks = config.getInt("surgery.duration-seconds", 10) * 20;
@@ -67,7 +146,142 @@ public class PluginConfig {
         this.surgeryCompleteSoundPitch = (float) config.getDouble("surgery.complete-sound.pitch", 1.5);
         this.surgeryRestoredHp = config.getDouble("surgery.restored-hp", 1.0);
 
+        // Regeneration
+        this.regenEnabled = config.getBoolean("regeneration.enabled", false);
+        for (Part part : Part.VALUES) {
+            regenPerTick[part.ordinal()] = Math.max(0, config.getDouble("regeneration.per-second." + part.getKey(), 0.1)) / 20.0;
+        }
+        this.regenCombatCooldownTicks = Math.max(0, config.getInt("regeneration.combat-cooldown-seconds", 10)) * 20;
+        this.regenRestingMultiplier = Math.max(0, config.getDouble("regeneration.resting-multiplier", 3.0));
+        this.regenIntervalTicks = Math.max(1, config.getInt("regeneration.interval-ticks", 20));
+        this.regenBudgetNanos = Math.max(1, config.getLong("regeneration.budget-micros", 200)) * 1000;
+
         // Health Penalty
         this.healthPenaltyPerBrokenPart = config.getDouble("health-penalty-per-broken-part", 5.0);
+
+        // Debuffs
+        this.debuffs = new DebuffTable(config.getConfigurationSection("debuffs"), logger);
+
+        // Hit zones
+        this.hitZones = loadHitZones(config.getConfigurationSection("hit-zones"), logger);
+        this.damageEngine = new DamageEngine(partMaxHP, damageMultiplier, useCustomDurabilityDamage, damagePerDurabilityPoint,
+                healthPenaltyPerBrokenPart, debuffs.getTiers(), hitZones);
+
+        // Mobs
+        if (config.getBoolean("mobs.enabled", false)) {
+            for (String name : config.getStringList("mobs.types")) {
+                EntityType type;
+                try {
+                    type = EntityType.valueOf(name.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    type = null;
+                }
+                if (type != null && type != EntityType.PLAYER && type.isAlive()) {
+                    trackedMobTypes[type.ordinal()] = true;
+                } else if (logger != null) {
+                    logger.warning("Unknown or non-living entity type in mobs.types: " + name);
+                }
+            }
+        }
+        this.maxTrackedMobs = Math.max(0, config.getInt("mobs.max-tracked", 20000));
+
+        // Damage journal
+        this.journalEnabled = config.getBoolean("journal.enabled", false);
+        // The ring is a single array, so it stays well below 2 GB
+        this.journalBufferRecords = Math.max(1, Math.min(1 << 20, config.getInt("journal.buffer-records", 16384)));
+        this.journalMaxFileBytes = Math.max(1, config.getLong("journal.max-file-size-mb", 16)) * 1024 * 1024;
+        this.journalMaxFiles = Math.max(1, config.getInt("journal.max-files", 8));
+
+        // Damage analytics
+        this.analyticsEnabled = config.getBoolean("analytics.enabled", true);
+        this.analyticsIntervalTicks = Math.max(1, config.getLong("analytics.interval-minutes", 5)) * 60 * 20;
+        this.analyticsFormat = AnalyticsWriter.Format.fromKey(config.getString("analytics.format", "csv"));
+        this.analyticsMaxFiles = Math.max(1, config.getInt("analytics.max-files", 30));
+
+        // Storage
+        this.storageEnabled = config.getBoolean("storage.enabled", true);
+        this.storageFlushIntervalTicks = Math.max(1, config.getLong("storage.flush-interval-ticks", 100));
+
+        // Healing and surgery items
+        Arrays.fill(healingItemAmounts, Double.NaN);
+        ConfigurationSection healingSection = config.getConfigurationSection("healing-items");
+        if (healingSection != null) {
+            for (String key : healingSection.getKeys(false)) {
+                Material material = Material.getMaterial(key.toUpperCase());
+                if (material != null) {
+                    healingItemAmounts[material.ordinal()] = healingSection.getDouble(key);
+                } else if (logger != null) {
+                    logger.warning("Unknown material in healing-items: " + key);
+                }
+            }
+        }
+        ConfigurationSection surgerySection = config.getConfigurationSection("surgery-items");
+        if (surgerySection != null) {
+            for (String key : surgerySection.getKeys(false)) {
+                Material material = Material.getMaterial(key.toUpperCase());
+                if (material != null) {
+                    surgeryItems[material.ordinal()] = true;
+                } else if (logger != null) {
+                    logger.warning("Unknown material in surgery-items: " + key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the "hit-zones" section. Poses or zones that are missing or invalid keep their defaults.
+     */
+    private static HitZoneTable loadHitZones(ConfigurationSection section, Logger logger) {
+        String[] zoneKeys = {Part.HEAD.getKey(), Part.CHEST.getKey(), Part.LEGS.getKey()};
+        double[][] zoneStarts = new double[BodyPose.COUNT][];
+        for (BodyPose pose : BodyPose.VALUES) {
+            double[] starts = pose.getDefaultZoneStarts();
+            ConfigurationSection poseSection = section != null ? section.getConfigurationSection(pose.getKey()) : null;
+            if (poseSection != null) {
+                for (int zone = 0; zone < HitZoneTable.ZONE_COUNT; zone++) {
+                    double start = poseSection.getDouble(zoneKeys[zone], starts[zone]);
+                    if (Double.isNaN(start) || start < 0) {
+                        if (logger != null) logger.warning("Ignoring invalid hit zone hit-zones." + pose.getKey() + "." + zoneKeys[zone] + ": " + start);
+                        continue;
+                    }
+                    starts[zone] = start;
+                }
+            }
+            zoneStarts[pose.ordinal()] = starts;
+        }
+        return new HitZoneTable(zoneStarts);
+    }
+
+    public double getMaxHP(Part part) {
+        return partMaxHP[part.ordinal()];
+    }
+
+    /**
+     * @return The part HP restored per tick by passive regeneration.
+     */
+    public double getRegenPerTick(Part part) {
+        return regenPerTick[part.ordinal()];
+    }
+
+    public boolean isHealingItem(Material material) {
+        return !Double.isNaN(healingItemAmounts[material.ordinal()]);
+    }
+
+    /**
+     * @return The heal amount of a healing item, or NaN if the material is not a healing item.
+     */
+    public double getHealAmount(Material material) {
+        return healingItemAmounts[material.ordinal()];
+    }
+
+    /**
+     * @return Whether mobs of this type have part HP.
+     */
+    public boolean isTrackedMob(EntityType type) {
+        return trackedMobTypes[type.ordinal()];
+    }
+
+    public boolean isSurgeryItem(Material material) {
+        return surgeryItems[material.ordinal()];
     }
 }
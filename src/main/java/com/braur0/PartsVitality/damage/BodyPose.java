@@ -0,0 +1,43 @@
+package com.braur0.PartsVitality.damage;
+
+/**
+ * The body poses that have their own hit zones.
+ * The Bukkit adapter maps the player's pose to one of these.
+ */
+public enum BodyPose {
+
+    STANDING("standing", 0.85, 0.4, 0.1),
+    SNEAKING("sneaking", 0.8, 0.4, 0.1),
+    // Swimming in water and riptide spins
+    SWIMMING("swimming", 0.7, 0.3, 0.05),
+    // Crawling through 1 block gaps, and lying in bed
+    CRAWLING("crawling", 0.7, 0.3, 0.05),
+    // Flying with elytra
+    GLIDING("gliding", 0.7, 0.3, 0.05);
+
+    /** Cached copy of values() to avoid cloning the array on every iteration. */
+    public static final BodyPose[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+
+    private final String key;
+    private final double[] defaultZoneStarts;
+
+    BodyPose(String key, double headStart, double chestStart, double legsStart) {
+        this.key = key;
+        this.defaultZoneStarts = new double[]{headStart, chestStart, legsStart};
+    }
+
+    /**
+     * @return The lowercase name used in config.yml.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return Where the head, chest and legs zones start by default, as fractions of the hitbox height.
+     */
+    public double[] getDefaultZoneStarts() {
+        return defaultZoneStarts.clone();
+    }
+}
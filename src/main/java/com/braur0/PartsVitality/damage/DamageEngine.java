@@ -0,0 +1,194 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+
+/**
+ * Resolves damage to part HP without touching the server: hit zone classification, routing by source,
+ * distribution over the parts, durability loss, debuff tiers and the max health penalty.
+ * <p>
+ * It works on plain values only, so it can run headless (simulations, benchmarks) as well as behind
+ * the Bukkit listener, which applies the {@link DamageResult} to the player.
+ */
+public final class DamageEngine {
+
+    // Always calculate the penalty based on the vanilla default max health (20.0)
+    public static final double BASE_MAX_HEALTH = 20.0;
+    // Max health never drops below 1 heart
+    public static final double MIN_MAX_HEALTH = 2.0;
+
+    private final double[] partMaxHP;
+    private final double damageMultiplier;
+    private final boolean damageArmor;
+    private final double damagePerDurabilityPoint;
+    private final double healthPenaltyPerBrokenPart;
+    private final DebuffTiers debuffTiers;
+    private final HitZoneTable hitZones;
+
+    /**
+     * @param partMaxHP The max HP of every part, indexed by Part ordinal.
+     * @param damageMultiplier Converts hearts of damage to part damage.
+     * @param damageArmor Whether located hits wear down armor.
+     * @param damagePerDurabilityPoint How much part damage equals 1 point of durability damage.
+     * @param healthPenaltyPerBrokenPart Max health removed for every broken part.
+     * @param debuffTiers The debuff thresholds.
+     * @param hitZones The hit zones of every pose.
+     */
+    public DamageEngine(double[] partMaxHP, double damageMultiplier, boolean damageArmor, double damagePerDurabilityPoint,
+                        double healthPenaltyPerBrokenPart, DebuffTiers debuffTiers, HitZoneTable hitZones) {
+        this.partMaxHP = partMaxHP.clone();
+        this.damageMultiplier = damageMultiplier;
+        this.damageArmor = damageArmor;
+        this.damagePerDurabilityPoint = damagePerDurabilityPoint;
+        this.healthPenaltyPerBrokenPart = healthPenaltyPerBrokenPart;
+        this.debuffTiers = debuffTiers;
+        this.hitZones = hitZones;
+    }
+
+    /**
+     * Resolves one hit.
+     * @param partHP The HP of every part before the hit, indexed by Part ordinal. Not modified.
+     * @param source What caused the damage.
+     * @param finalDamage The damage in hearts, after armor and enchantments.
+     * @param hitY The Y coordinate where the hit entered the hitbox, or NaN if unknown.
+     * @param boxMinY The bottom of the victim's hitbox.
+     * @param boxHeight The height of the victim's hitbox.
+     * @param pose The victim's pose.
+     * @param result Receives the outcome.
+     * @return The result, for chaining.
+     */
+    public DamageResult resolve(double[] partHP, DamageSource source, double finalDamage,
+                                double hitY, double boxMinY, double boxHeight, BodyPose pose, DamageResult result) {
+        result.reset();
+        System.arraycopy(partHP, 0, result.partHP, 0, Part.COUNT);
+
+        if (source == DamageSource.VOID) {
+            // The void is instant death
+            result.instantDeath = true;
+        } else {
+            result.targetMask = routeTargets(source, hitY, boxMinY, boxHeight, pose);
+            distribute(result, finalDamage * damageMultiplier, result.targetMask, false, damageArmor && source.damagesArmor());
+        }
+        return finish(result);
+    }
+
+    /**
+     * Resolves an explosion hit, spreading the damage by how exposed each part is to the blast.
+     * @param partHP The HP of every part before the hit, indexed by Part ordinal. Not modified.
+     * @param finalDamage The damage in hearts, after armor and enchantments.
+     * @param blast The explosion, shared by all of its victims.
+     * @param boxCenterX The X coordinate of the middle of the victim's hitbox.
+     * @param boxCenterZ The Z coordinate of the middle of the victim's hitbox.
+     * @param boxMinY The bottom of the victim's hitbox.
+     * @param boxHeight The height of the victim's hitbox.
+     * @param pose The victim's pose.
+     * @param result Receives the outcome.
+     * @return The result, for chaining.
+     */
+    public DamageResult resolveExplosion(double[] partHP, double finalDamage, ExplosionContext blast,
+                                         double boxCenterX, double boxCenterZ, double boxMinY, double boxHeight,
+                                         BodyPose pose, DamageResult result) {
+        result.reset();
+        System.arraycopy(partHP, 0, result.partHP, 0, Part.COUNT);
+
+        result.targetMask = blast.weigh(hitZones, pose, boxCenterX, boxCenterZ, boxMinY, boxHeight, result.partWeights);
+        distribute(result, finalDamage * damageMultiplier, result.targetMask, true, damageArmor && DamageSource.EXPLOSION.damagesArmor());
+        return finish(result);
+    }
+
+    /**
+     * Fills in the state that follows from the new part HP: broken parts, max health and debuff tiers.
+     */
+    private DamageResult finish(DamageResult result) {
+        int brokenMask = 0;
+        for (Part part : Part.VALUES) {
+            if (result.partHP[part.ordinal()] <= 0) brokenMask |= part.bit();
+        }
+        result.brokenMask = brokenMask;
+        result.maxHealth = getMaxHealth(Integer.bitCount(brokenMask));
+        debuffTiers.resolveAll(result.partHP, partMaxHP, result.debuffTiers);
+        return result;
+    }
+
+    /**
+     * Decides which parts a hit is aimed at.
+     * @return A bitmask of parts (see {@link Part#bit()}), never 0.
+     */
+    public int routeTargets(DamageSource source, double hitY, double boxMinY, double boxHeight, BodyPose pose) {
+        switch (source) {
+            case MELEE:
+            case PROJECTILE:
+            case EXPLOSION:
+                // If the hit location cannot be determined, distribute damage to all parts
+                if (Double.isNaN(hitY)) return Part.ALL_MASK;
+                return hitZones.classify(pose, hitY, boxMinY, boxHeight);
+            case FALL:
+                // Fall damage goes to legs and feet
+                return Part.LEGS.bit() | Part.FEET.bit();
+            default:
+                // Others (poison, magic, suffocation, etc.) go to all parts with remaining HP
+                return Part.ALL_MASK;
+        }
+    }
+
+    /**
+     * Splits damage over the targeted parts that still have HP, evenly or by {@link DamageResult#partWeights}.
+     * If all of them are already at 0 HP, the damage goes to the other remaining parts instead, evenly.
+     */
+    private void distribute(DamageResult result, double totalDamage, int primaryTargets, boolean weighted, boolean wearArmor) {
+        int brokenMask = 0;
+        for (Part part : Part.VALUES) {
+            if (result.partHP[part.ordinal()] <= 0) brokenMask |= part.bit();
+        }
+
+        int targets = primaryTargets & ~brokenMask;
+        if (targets == 0) {
+            targets = Part.ALL_MASK & ~brokenMask;
+            weighted = false;
+        }
+        if (targets == 0) return; // Every part is broken
+
+        // The weight of broken parts goes to the remaining targets in proportion
+        double weightSum = 0.0;
+        if (weighted) {
+            for (Part part : Part.VALUES) {
+                if ((targets & part.bit()) != 0) weightSum += result.partWeights[part.ordinal()];
+            }
+            if (weightSum <= 0.0) weighted = false;
+        }
+
+        double damagePerPart = totalDamage / Integer.bitCount(targets);
+        for (Part part : Part.VALUES) {
+            if ((targets & part.bit()) == 0) continue;
+            int index = part.ordinal();
+            double damage = weighted ? totalDamage * result.partWeights[index] / weightSum : damagePerPart;
+            result.partHP[index] = Math.max(0, Math.min(partMaxHP[index], result.partHP[index] - damage));
+            result.partDamage[index] = damage;
+            if (wearArmor) {
+                result.durabilityPoints[index] = (int) (damage / damagePerDurabilityPoint);
+            }
+        }
+        result.damagedMask = targets;
+    }
+
+    /**
+     * @return The max health for the given number of broken parts.
+     */
+    public double getMaxHealth(int brokenPartCount) {
+        return Math.max(MIN_MAX_HEALTH, BASE_MAX_HEALTH - brokenPartCount * healthPenaltyPerBrokenPart);
+    }
+
+    /**
+     * @return The max health removed for the given number of broken parts (0 or more).
+     */
+    public double getHealthPenalty(int brokenPartCount) {
+        return BASE_MAX_HEALTH - getMaxHealth(brokenPartCount);
+    }
+
+    public DebuffTiers getDebuffTiers() {
+        return debuffTiers;
+    }
+
+    public HitZoneTable getHitZones() {
+        return hitZones;
+    }
+}
@@ -0,0 +1,48 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+
+/**
+ * The outcome of resolving one hit with {@link DamageEngine}.
+ * Instances are meant to be reused: every resolve overwrites all fields.
+ */
+public final class DamageResult {
+
+    // The HP of every part after the hit, indexed by Part ordinal
+    public final double[] partHP = new double[Part.COUNT];
+    // The damage dealt to every part, indexed by Part ordinal (0 for parts that were not hit)
+    public final double[] partDamage = new double[Part.COUNT];
+    // Durability points to remove from every armor piece before Unbreaking, indexed by Part ordinal
+    public final int[] durabilityPoints = new int[Part.COUNT];
+    // How the hit was spread over the parts it was aimed at, indexed by Part ordinal (only used for explosions)
+    public final double[] partWeights = new double[Part.COUNT];
+    // The debuff tier of every group after the hit, indexed by DebuffTiers group
+    public final int[] debuffTiers = new int[DebuffTiers.GROUP_COUNT];
+
+    // The parts the hit was aimed at (see Part#bit())
+    public int targetMask;
+    // The parts that actually took damage
+    public int damagedMask;
+    // The parts with 0 HP after the hit
+    public int brokenMask;
+    // The player's max health after the broken part penalty
+    public double maxHealth;
+    // Whether the hit kills the player outright (e.g. the void)
+    public boolean instantDeath;
+
+    public int getBrokenPartCount() {
+        return Integer.bitCount(brokenMask);
+    }
+
+    void reset() {
+        for (int i = 0; i < Part.COUNT; i++) {
+            partDamage[i] = 0.0;
+            durabilityPoints[i] = 0;
+            partWeights[i] = 0.0;
+        }
+        targetMask = 0;
+        damagedMask = 0;
+        brokenMask = 0;
+        instantDeath = false;
+    }
+}
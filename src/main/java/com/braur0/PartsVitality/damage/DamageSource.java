@@ -0,0 +1,30 @@
+package com.braur0.PartsVitality.damage;
+
+/**
+ * What caused damage, as far as damage resolution is concerned.
+ * The Bukkit adapter maps each damage cause to one of these.
+ */
+public enum DamageSource {
+    // Melee and sweep attacks
+    MELEE(true),
+    PROJECTILE(true),
+    EXPLOSION(true),
+    FALL(false),
+    // The void kills instantly
+    VOID(false),
+    // Poison, magic, suffocation, fire, etc.
+    OTHER(false);
+
+    private final boolean damagesArmor;
+
+    DamageSource(boolean damagesArmor) {
+        this.damagesArmor = damagesArmor;
+    }
+
+    /**
+     * @return Whether this damage wears down armor and can be located on the hitbox.
+     */
+    public boolean damagesArmor() {
+        return damagesArmor;
+    }
+}
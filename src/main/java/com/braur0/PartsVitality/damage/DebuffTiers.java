@@ -0,0 +1,63 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+
+/**
+ * The debuff thresholds of every group, without the potion effects they apply.
+ * A tier is 0 when no debuff applies, or the 1-based index of the threshold that matched.
+ */
+public final class DebuffTiers {
+
+    public static final int GROUP_HEAD = 0;
+    public static final int GROUP_CHEST = 1;
+    public static final int GROUP_LEGS_AND_FEET = 2;
+    public static final int GROUP_COUNT = 3;
+
+    public static final int TIER_NONE = 0;
+
+    // thresholds[group], sorted in ascending order
+    private final double[][] thresholds;
+
+    /**
+     * @param thresholds The thresholds of each group, each sorted in ascending order.
+     */
+    public DebuffTiers(double[][] thresholds) {
+        this.thresholds = new double[GROUP_COUNT][];
+        for (int group = 0; group < GROUP_COUNT; group++) {
+            this.thresholds[group] = thresholds[group].clone();
+        }
+    }
+
+    /**
+     * Finds the debuff tier for an HP ratio.
+     * Thresholds are sorted in ascending order, so the first match is the most severe debuff reached.
+     * @param group The debuff group (GROUP_*).
+     * @param ratio The current HP divided by the max HP.
+     * @return The matching tier, or TIER_NONE.
+     */
+    public int resolveTier(int group, double ratio) {
+        double[] groupThresholds = thresholds[group];
+        for (int i = 0; i < groupThresholds.length; i++) {
+            if (ratio <= groupThresholds[i]) return i + 1;
+        }
+        return TIER_NONE;
+    }
+
+    /**
+     * Resolves the tier of every group. Legs and feet share one group based on their combined HP.
+     * @param partHP The HP of every part, indexed by Part ordinal.
+     * @param partMaxHP The max HP of every part, indexed by Part ordinal.
+     * @param tiers Receives the tier of every group, indexed by group.
+     */
+    public void resolveAll(double[] partHP, double[] partMaxHP, int[] tiers) {
+        tiers[GROUP_HEAD] = resolveGroup(GROUP_HEAD, partHP[Part.HEAD.ordinal()], partMaxHP[Part.HEAD.ordinal()]);
+        tiers[GROUP_CHEST] = resolveGroup(GROUP_CHEST, partHP[Part.CHEST.ordinal()], partMaxHP[Part.CHEST.ordinal()]);
+        tiers[GROUP_LEGS_AND_FEET] = resolveGroup(GROUP_LEGS_AND_FEET,
+                partHP[Part.LEGS.ordinal()] + partHP[Part.FEET.ordinal()],
+                partMaxHP[Part.LEGS.ordinal()] + partMaxHP[Part.FEET.ordinal()]);
+    }
+
+    private int resolveGroup(int group, double currentHP, double maxHP) {
+        return maxHP > 0 ? resolveTier(group, currentHP / maxHP) : TIER_NONE;
+    }
+}
@@ -0,0 +1,55 @@
+package com.braur0.PartsVitality.damage;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Samples how many durability points an armor piece actually loses.
+ * <p>
+ * With Unbreaking level L, each point of durability damage is applied with probability 1 / (L + 1),
+ * so the loss for n points follows Binomial(n, 1 / (L + 1)). Instead of one random draw per point, the sampler
+ * draws the length of each run of ignored points from the geometric distribution and jumps over it.
+ * That takes one draw per point lost plus one, about n / (L + 1) + 1 draws on average.
+ */
+public final class DurabilitySampler {
+
+    private DurabilitySampler() {
+    }
+
+    /**
+     * @param points The durability damage before Unbreaking is applied.
+     * @param unbreakingLevel The level of the Unbreaking enchantment (0 if none).
+     * @return The number of durability points lost.
+     */
+    public static int sampleLoss(int points, int unbreakingLevel) {
+        return sampleLoss(points, unbreakingLevel, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param random The random source, e.g. a seeded generator for reproducible results.
+     * @return The number of durability points lost.
+     */
+    public static int sampleLoss(int points, int unbreakingLevel, RandomGenerator random) {
+        if (points <= 0) return 0;
+        if (unbreakingLevel <= 0) return points; // Every point is applied
+        return sampleBinomial(points, 1.0 / (unbreakingLevel + 1.0), random);
+    }
+
+    /**
+     * Draws from Binomial(n, p) by geometric skipping.
+     */
+    static int sampleBinomial(int n, double p, RandomGenerator random) {
+        if (p >= 1.0) return n;
+        if (p <= 0.0) return 0;
+
+        double logQ = Math.log1p(-p);
+        int successes = 0;
+        long position = -1;
+        while (true) {
+            // Number of failures before the next success; 1 - nextDouble() is in (0, 1]
+            position += 1 + (long) (Math.log(1.0 - random.nextDouble()) / logQ);
+            if (position >= n) return successes;
+            successes++;
+        }
+    }
+}
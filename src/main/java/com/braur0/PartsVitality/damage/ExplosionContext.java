@@ -0,0 +1,75 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+
+/**
+ * One explosion, shared by every player it damages in the same tick.
+ * <p>
+ * The blast centre is captured once. Each victim's parts are weighted by how close the blast is to the
+ * middle of each hit zone (inverse square of the distance), so a blast at foot level mostly hits legs and feet,
+ * and one going off overhead mostly hits the head and chest. Weighing a victim takes a few multiplications.
+ */
+public final class ExplosionContext {
+
+    // Keeps the weights finite when the blast is inside the hitbox (in blocks squared)
+    private static final double SOFTENING = 0.25;
+
+    private final double centerX;
+    private final double centerY;
+    private final double centerZ;
+
+    public ExplosionContext(double centerX, double centerY, double centerZ) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.centerZ = centerZ;
+    }
+
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    public double getCenterZ() {
+        return centerZ;
+    }
+
+    /**
+     * Weighs the victim's parts by their exposure to the blast.
+     * @param hitZones The hit zones, which give the height of every part in the victim's pose.
+     * @param pose The victim's pose.
+     * @param boxCenterX The X coordinate of the middle of the victim's hitbox.
+     * @param boxCenterZ The Z coordinate of the middle of the victim's hitbox.
+     * @param boxMinY The bottom of the victim's hitbox.
+     * @param boxHeight The height of the victim's hitbox.
+     * @param weights Receives the weight of every part, indexed by Part ordinal; the weights add up to 1.
+     * @return A bitmask of the parts with a weight above 0 (see {@link Part#bit()}).
+     */
+    public int weigh(HitZoneTable hitZones, BodyPose pose, double boxCenterX, double boxCenterZ,
+                     double boxMinY, double boxHeight, double[] weights) {
+        double dx = boxCenterX - centerX;
+        double dz = boxCenterZ - centerZ;
+        double horizontal = dx * dx + dz * dz + SOFTENING;
+
+        double total = 0.0;
+        int mask = 0;
+        for (Part part : Part.VALUES) {
+            double zoneCenter = hitZones.getZoneCenter(pose, part);
+            if (Double.isNaN(zoneCenter)) {
+                weights[part.ordinal()] = 0.0;
+                continue;
+            }
+            double dy = boxMinY + boxHeight * zoneCenter - centerY;
+            double weight = 1.0 / (horizontal + dy * dy);
+            weights[part.ordinal()] = weight;
+            total += weight;
+            mask |= part.bit();
+        }
+        for (int i = 0; i < Part.COUNT; i++) {
+            weights[i] /= total;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,81 @@
+package com.braur0.PartsVitality.damage;
+
+/**
+ * Computes where a ray enters an axis-aligned hitbox.
+ * Everything works on primitive doubles so a hit costs no allocation.
+ */
+public final class HitLocator {
+
+    private HitLocator() {
+    }
+
+    /**
+     * Finds the distance along the ray at which it enters the box (slab method).
+     * If the origin is already inside the box, 0 is returned.
+     * @param maxDistance The maximum distance along the ray to accept.
+     * @return The entry distance, or NaN if the ray misses the box within maxDistance.
+     */
+    public static double intersect(double originX, double originY, double originZ,
+                                   double dirX, double dirY, double dirZ,
+                                   double minX, double minY, double minZ,
+                                   double maxX, double maxY, double maxZ,
+                                   double maxDistance) {
+        double tNear = 0.0;
+        double tFar = maxDistance;
+
+        // X slab
+        if (dirX == 0.0) {
+            if (originX < minX || originX > maxX) return Double.NaN;
+        } else {
+            double inv = 1.0 / dirX;
+            double t1 = (minX - originX) * inv;
+            double t2 = (maxX - originX) * inv;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.NaN;
+        }
+
+        // Y slab
+        if (dirY == 0.0) {
+            if (originY < minY || originY > maxY) return Double.NaN;
+        } else {
+            double inv = 1.0 / dirY;
+            double t1 = (minY - originY) * inv;
+            double t2 = (maxY - originY) * inv;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.NaN;
+        }
+
+        // Z slab
+        if (dirZ == 0.0) {
+            if (originZ < minZ || originZ > maxZ) return Double.NaN;
+        } else {
+            double inv = 1.0 / dirZ;
+            double t1 = (minZ - originZ) * inv;
+            double t2 = (maxZ - originZ) * inv;
+            if (t1 > t2) { double tmp = t1; t1 = t2; t2 = tmp; }
+            if (t1 > tNear) tNear = t1;
+            if (t2 < tFar) tFar = t2;
+            if (tNear > tFar) return Double.NaN;
+        }
+
+        return tNear;
+    }
+
+    /**
+     * Returns the Y coordinate at which the ray enters the box.
+     * @return The entry height, or NaN if the ray misses the box within maxDistance.
+     */
+    public static double entryY(double originX, double originY, double originZ,
+                                double dirX, double dirY, double dirZ,
+                                double minX, double minY, double minZ,
+                                double maxX, double maxY, double maxZ,
+                                double maxDistance) {
+        double t = intersect(originX, originY, originZ, dirX, dirY, dirZ,
+                minX, minY, minZ, maxX, maxY, maxZ, maxDistance);
+        return Double.isNaN(t) ? Double.NaN : originY + dirY * t;
+    }
+}
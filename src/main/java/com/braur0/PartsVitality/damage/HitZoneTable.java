@@ -0,0 +1,105 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+
+/**
+ * Maps a hit height to the part that was hit, for every body pose.
+ * <p>
+ * The zones of each pose are compiled into a lookup table indexed by the hit height as a fraction of
+ * the hitbox height, quantized to {@link #RESOLUTION} steps, so classifying a hit is a single array read.
+ */
+public final class HitZoneTable {
+
+    /** Lookup steps per hitbox height. Zone starts are rounded to this precision (1%). */
+    public static final int RESOLUTION = 100;
+
+    // The zones that have a configurable start, from the top down; everything below the last one is feet
+    private static final Part[] ZONES = {Part.HEAD, Part.CHEST, Part.LEGS};
+    public static final int ZONE_COUNT = ZONES.length;
+
+    // Keeps hits exactly on a zone start from rounding down into the zone below
+    private static final double EPSILON = 1e-6;
+
+    // Part bits indexed by pose ordinal * RESOLUTION + step
+    private final int[] table = new int[BodyPose.COUNT * RESOLUTION];
+    // The middle of every part's zone as a fraction of the hitbox height, indexed by pose ordinal * Part.COUNT + part ordinal.
+    // NaN for zones that are never hit.
+    private final double[] zoneCenters = new double[BodyPose.COUNT * Part.COUNT];
+
+    /**
+     * @param zoneStarts Where the head, chest and legs zones start for every pose (indexed by BodyPose ordinal),
+     *                   as fractions of the hitbox height measured from the bottom.
+     *                   A zone that starts at or above the zone over it is never hit.
+     */
+    public HitZoneTable(double[][] zoneStarts) {
+        for (BodyPose pose : BodyPose.VALUES) {
+            double[] starts = zoneStarts[pose.ordinal()];
+            int[] startSteps = new int[ZONE_COUNT];
+            for (int zone = 0; zone < ZONE_COUNT; zone++) {
+                startSteps[zone] = (int) Math.round(starts[zone] * RESOLUTION);
+            }
+
+            int offset = pose.ordinal() * RESOLUTION;
+            for (int step = 0; step < RESOLUTION; step++) {
+                Part part = Part.FEET;
+                for (int zone = 0; zone < ZONE_COUNT; zone++) {
+                    if (step >= startSteps[zone]) {
+                        part = ZONES[zone];
+                        break;
+                    }
+                }
+                table[offset + step] = part.bit();
+            }
+
+            for (Part part : Part.VALUES) {
+                int lowest = -1, highest = -1;
+                for (int step = 0; step < RESOLUTION; step++) {
+                    if (table[offset + step] != part.bit()) continue;
+                    if (lowest < 0) lowest = step;
+                    highest = step;
+                }
+                zoneCenters[pose.ordinal() * Part.COUNT + part.ordinal()] =
+                        lowest < 0 ? Double.NaN : (lowest + highest + 1) / 2.0 / RESOLUTION;
+            }
+        }
+    }
+
+    /**
+     * @return A table with the default zones of every pose.
+     */
+    public static HitZoneTable defaults() {
+        double[][] zoneStarts = new double[BodyPose.COUNT][];
+        for (BodyPose pose : BodyPose.VALUES) {
+            zoneStarts[pose.ordinal()] = pose.getDefaultZoneStarts();
+        }
+        return new HitZoneTable(zoneStarts);
+    }
+
+    /**
+     * Classifies a hit height. Heights outside the hitbox count as its top or bottom.
+     * @param pose The victim's pose.
+     * @param hitY The Y coordinate of the hit.
+     * @param boxMinY The bottom of the hitbox.
+     * @param boxHeight The height of the hitbox.
+     * @return The bit of the part that was hit (see {@link Part#bit()}).
+     */
+    public int classify(BodyPose pose, double hitY, double boxMinY, double boxHeight) {
+        int step = (int) ((hitY - boxMinY) / boxHeight * RESOLUTION + EPSILON);
+        step = Math.max(0, Math.min(RESOLUTION - 1, step));
+        return table[pose.ordinal() * RESOLUTION + step];
+    }
+
+    /**
+     * @return The part that was hit; see {@link #classify(BodyPose, double, double, double)}.
+     */
+    public Part classifyPart(BodyPose pose, double hitY, double boxMinY, double boxHeight) {
+        return Part.VALUES[Integer.numberOfTrailingZeros(classify(pose, hitY, boxMinY, boxHeight))];
+    }
+
+    /**
+     * @return The middle of the part's zone as a fraction of the hitbox height, or NaN if the zone is never hit in this pose.
+     */
+    public double getZoneCenter(BodyPose pose, Part part) {
+        return zoneCenters[pose.ordinal() * Part.COUNT + part.ordinal()];
+    }
+}
@@ -0,0 +1,71 @@
+package com.braur0.PartsVitality.damage;
+
+import java.util.Arrays;
+
+/**
+ * Impact heights of projectiles that hit a player this tick, keyed by projectile entity id.
+ * <p>
+ * The height is recorded when the projectile hits, before it moves on, and taken by the damage
+ * handler that follows. Only a few projectiles hit per tick, so entries live in two small parallel
+ * arrays and are looked up with a linear scan. The cache is cleared at the end of every tick.
+ */
+public final class ProjectileImpactCache {
+
+    private int[] projectileIds = new int[8];
+    private double[] hitYs = new double[8];
+    private int size;
+
+    /**
+     * Records where a projectile hit, replacing an earlier impact of the same projectile.
+     * @param hitY The Y coordinate where the projectile entered the hitbox, or NaN if unknown.
+     */
+    public void put(int projectileId, double hitY) {
+        int index = indexOf(projectileId);
+        if (index < 0) {
+            if (size == projectileIds.length) {
+                projectileIds = Arrays.copyOf(projectileIds, size * 2);
+                hitYs = Arrays.copyOf(hitYs, size * 2);
+            }
+            index = size++;
+            projectileIds[index] = projectileId;
+        }
+        hitYs[index] = hitY;
+    }
+
+    public boolean contains(int projectileId) {
+        return indexOf(projectileId) >= 0;
+    }
+
+    /**
+     * Removes a projectile's impact.
+     * @return The recorded hit height, or NaN if there is none.
+     */
+    public double take(int projectileId) {
+        int index = indexOf(projectileId);
+        if (index < 0) return Double.NaN;
+        double hitY = hitYs[index];
+        // Move the last entry into the gap
+        size--;
+        projectileIds[index] = projectileIds[size];
+        hitYs[index] = hitYs[size];
+        return hitY;
+    }
+
+    /**
+     * Drops every impact that was not taken (e.g. the damage was cancelled).
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int indexOf(int projectileId) {
+        for (int i = 0; i < size; i++) {
+            if (projectileIds[i] == projectileId) return i;
+        }
+        return -1;
+    }
+}
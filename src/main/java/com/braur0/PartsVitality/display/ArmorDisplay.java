@@ -0,0 +1,163 @@
+package com.braur0.PartsVitality.display;
+
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Renders one player's armor as either durability or part HP bars.
+ * <p>
+ * The last state written to each slot (material, bar value, glow) is remembered, and only slots whose
+ * visible state changed are rewritten. Each rewrite is a single {@code setItem}, which the server sends as
+ * a one-slot update, so no full inventory resync is needed. While part HP is shown, the armor's real
+ * durability damage and Unbreaking level are kept here and restored when the display reverts.
+ */
+public final class ArmorDisplay {
+
+    private static final int NOT_SAVED = -1;
+    private static final long NOT_RENDERED = -1L;
+
+    // The last state written to each slot (see stateKey), indexed by Part ordinal
+    private final long[] renderedState = new long[Part.COUNT];
+    // The real durability damage and Unbreaking level of each piece while it shows part HP
+    private final int[] originalDamage = new int[Part.COUNT];
+    private final int[] originalUnbreaking = new int[Part.COUNT];
+
+    public ArmorDisplay() {
+        for (int i = 0; i < Part.COUNT; i++) {
+            renderedState[i] = NOT_RENDERED;
+            originalDamage[i] = NOT_SAVED;
+            originalUnbreaking[i] = NOT_SAVED;
+        }
+    }
+
+    /**
+     * Brings the armor in line with the requested view, rewriting only the slots that changed.
+     * @param hpRatios The current HP divided by the max HP of every part, indexed by Part ordinal.
+     * @param showPartHP Whether to show part HP (otherwise the real durability is shown).
+     * @param glowMask A bitmask of the parts whose armor should glow (see {@link Part#bit()}).
+     */
+    public void render(Player player, double[] hpRatios, boolean showPartHP, int glowMask) {
+        PlayerInventory inventory = player.getInventory();
+        for (Part part : Part.VALUES) {
+            int index = part.ordinal();
+            EquipmentSlot slot = getEquipmentSlot(part);
+            ItemStack armor = inventory.getItem(slot);
+            if (armor == null || armor.getType().isAir()) {
+                forget(part);
+                continue;
+            }
+
+            Material type = armor.getType();
+            boolean glow = showPartHP && (glowMask & part.bit()) != 0;
+            int displayDamage = showPartHP ? (int) (type.getMaxDurability() * (1.0 - hpRatios[index])) : 0;
+            long state = stateKey(type, showPartHP, displayDamage, glow);
+            if (state == renderedState[index]) continue; // Nothing visible changed
+
+            if (renderedState[index] != NOT_RENDERED && materialOf(renderedState[index]) != type.ordinal()) {
+                forget(part); // A different piece of armor; what was saved belongs to the old one
+            }
+            if (!showPartHP && originalDamage[index] == NOT_SAVED && originalUnbreaking[index] == NOT_SAVED) {
+                renderedState[index] = state; // Already showing the real durability
+                continue;
+            }
+
+            ItemMeta meta = armor.getItemMeta();
+            if (!(meta instanceof Damageable damageable)) {
+                renderedState[index] = state;
+                continue;
+            }
+
+            if (showPartHP) {
+                // Store the original durability and Unbreaking level
+                if (originalDamage[index] == NOT_SAVED) originalDamage[index] = damageable.getDamage();
+                if (originalUnbreaking[index] == NOT_SAVED) originalUnbreaking[index] = meta.getEnchantLevel(Enchantment.DURABILITY);
+                // Convert part HP to a durability bar
+                damageable.setDamage(displayDamage);
+                applyGlow(meta, glow, originalUnbreaking[index]);
+            } else {
+                // Revert to the saved original durability
+                if (originalDamage[index] != NOT_SAVED) damageable.setDamage(originalDamage[index]);
+                if (originalUnbreaking[index] != NOT_SAVED) applyGlow(meta, false, originalUnbreaking[index]);
+                originalDamage[index] = NOT_SAVED;
+                originalUnbreaking[index] = NOT_SAVED;
+            }
+            armor.setItemMeta(meta);
+            // Set the modified item back to the slot
+            inventory.setItem(slot, armor);
+            renderedState[index] = state;
+        }
+    }
+
+    /**
+     * @return Whether the piece currently shows part HP, with its real durability damage held here.
+     */
+    public boolean hasOriginalDamage(Part part) {
+        return originalDamage[part.ordinal()] != NOT_SAVED;
+    }
+
+    public int getOriginalDamage(Part part) {
+        return originalDamage[part.ordinal()];
+    }
+
+    /**
+     * @return The real Unbreaking level of a piece that is showing part HP (see {@link #hasOriginalDamage}).
+     */
+    public int getOriginalUnbreaking(Part part) {
+        return originalUnbreaking[part.ordinal()];
+    }
+
+    /**
+     * Changes the real durability damage of a piece that is showing part HP; it is written when the display reverts.
+     */
+    public void setOriginalDamage(Part part, int damage) {
+        originalDamage[part.ordinal()] = damage;
+    }
+
+    /**
+     * Forgets everything about a slot, e.g. when its armor broke or was replaced.
+     */
+    public void forget(Part part) {
+        int index = part.ordinal();
+        renderedState[index] = NOT_RENDERED;
+        originalDamage[index] = NOT_SAVED;
+        originalUnbreaking[index] = NOT_SAVED;
+    }
+
+    /**
+     * Armor with Unbreaking already glows. Otherwise a hidden Unbreaking I makes it glow, and is removed again afterwards.
+     */
+    private static void applyGlow(ItemMeta meta, boolean glow, int originalUnbreakingLevel) {
+        if (originalUnbreakingLevel > 0) return;
+        if (glow) {
+            meta.addEnchant(Enchantment.DURABILITY, 1, true);
+            meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
+        } else {
+            meta.removeEnchant(Enchantment.DURABILITY);
+        }
+    }
+
+    private static long stateKey(Material type, boolean showPartHP, int displayDamage, boolean glow) {
+        return ((long) type.ordinal() << 32) | ((long) (displayDamage & 0x3FFFFFFF) << 2) | (glow ? 2L : 0L) | (showPartHP ? 1L : 0L);
+    }
+
+    private static int materialOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    public static EquipmentSlot getEquipmentSlot(Part part) {
+        return switch (part) {
+            case HEAD -> EquipmentSlot.HEAD;
+            case CHEST -> EquipmentSlot.CHEST;
+            case LEGS -> EquipmentSlot.LEGS;
+            case FEET -> EquipmentSlot.FEET;
+        };
+    }
+}
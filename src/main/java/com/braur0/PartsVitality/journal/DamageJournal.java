@@ -0,0 +1,247 @@
+package com.braur0.PartsVitality.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records every resolved damage event into a preallocated ring buffer of fixed-size binary records,
+ * written in batches to a rotated log by a single background thread.
+ * <p>
+ * Recording copies one {@link DamageRecord} into the ring under an uncontended lock and never blocks on I/O.
+ * If the writer falls a whole ring behind, new records are dropped (and counted) rather than overwriting unwritten ones.
+ * Each log file starts with a header; files are rotated at a size limit and the oldest are deleted.
+ * Read them back with {@link DamageJournalReader}, or replay them with the replay tool in src/tools/java.
+ */
+public class DamageJournal {
+
+    static final int MAGIC = 0x5056444A; // "PVDJ"
+    static final int VERSION = 1;
+    // Magic, version, record size and the wall clock time the file was started
+    static final int HEADER_SIZE = Integer.BYTES * 3 + Long.BYTES;
+    static final String FILE_PREFIX = "damage-";
+    static final String FILE_SUFFIX = ".pvj";
+
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directory;
+    private final Logger logger;
+    private final int capacity;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PartsVitality-Journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The ring: record n lives at (n % capacity) * SIZE
+    private final byte[] ring;
+    private final ByteBuffer ringBuffer;
+    // Guarded by this: records put into the ring, records written out, and records dropped because the ring was full
+    private long produced;
+    private long consumed;
+    private long dropped;
+
+    // Only used by the writer thread (or the caller of close() once the writer has stopped)
+    private FileChannel channel;
+    private long fileSize;
+    private int fileCounter;
+
+    /**
+     * @param capacity The most records held in memory between writes.
+     * @param maxFileBytes The size at which a log file is rotated.
+     * @param maxFiles The number of log files kept.
+     */
+    public DamageJournal(Path directory, Logger logger, int capacity, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.logger = logger;
+        this.capacity = Math.max(1, capacity);
+        this.maxFileBytes = Math.max(HEADER_SIZE + DamageRecord.SIZE, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.ring = new byte[this.capacity * DamageRecord.SIZE];
+        this.ringBuffer = ByteBuffer.wrap(ring);
+    }
+
+    /**
+     * Copies a record into the ring. Safe to call from any thread; never touches the disk.
+     * @return False if the ring was full and the record was dropped.
+     */
+    public synchronized boolean record(DamageRecord record) {
+        if (produced - consumed >= capacity) {
+            dropped++;
+            return false;
+        }
+        record.encode(ringBuffer, (int) (produced % capacity) * DamageRecord.SIZE);
+        produced++;
+        return true;
+    }
+
+    public synchronized long getRecordedCount() {
+        return produced;
+    }
+
+    public synchronized long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * Writes the records in the ring on the background thread.
+     */
+    public void flushAsync() {
+        synchronized (this) {
+            if (produced == consumed) return;
+        }
+        writer.execute(this::flushSafely);
+    }
+
+    /**
+     * Stops the background thread, writes everything still in the ring and closes the log.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for the journal thread to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+        closeChannel();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to write the damage journal", e);
+        }
+    }
+
+    /**
+     * Writes the records in the ring. Called on the writer thread, or by tests.
+     * If a write fails, the records written in full count as written; the rest are written again, into a new file,
+     * on the next flush. The failed file is left ending in an incomplete record, where readers stop.
+     */
+    void flush() throws IOException {
+        long from;
+        long to;
+        synchronized (this) {
+            from = consumed;
+            to = produced;
+        }
+        if (from == to) return;
+
+        // Records in [from, to) are not touched by producers until consumed moves past them
+        long next = from;
+        try {
+            while (next < to) {
+                if (channel == null || fileSize + DamageRecord.SIZE > maxFileBytes) {
+                    rotate();
+                }
+                // Write up to the end of the ring or the size limit of the file, whichever comes first
+                int slot = (int) (next % capacity);
+                long room = (maxFileBytes - fileSize) / DamageRecord.SIZE;
+                int count = (int) Math.min(Math.min(to - next, capacity - slot), room);
+                ByteBuffer slice = ByteBuffer.wrap(ring, slot * DamageRecord.SIZE, count * DamageRecord.SIZE);
+                long first = next;
+                long start = fileSize;
+                while (slice.hasRemaining()) {
+                    fileSize += channel.write(slice, fileSize);
+                    next = first + (fileSize - start) / DamageRecord.SIZE;
+                }
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            closeChannel();
+            throw e;
+        } finally {
+            synchronized (this) {
+                consumed = next;
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close the damage journal", e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Starts a new log file and deletes the oldest ones beyond the limit.
+     */
+    private void rotate() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        Files.createDirectories(directory);
+        // The counter keeps names unique (and in order) when files are rotated within the same millisecond
+        String name = FILE_PREFIX + LocalDateTime.now().format(FILE_NAME_FORMAT) + String.format(Locale.ROOT, "-%06d", fileCounter++) + FILE_SUFFIX;
+        Path file = directory.resolve(name);
+        channel = openChannel(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(DamageRecord.SIZE).putLong(System.currentTimeMillis()).flip();
+        try {
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_SIZE - header.remaining());
+            }
+        } catch (IOException e) {
+            // Leave no file that readers cannot open
+            closeChannel();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        fileSize = HEADER_SIZE;
+
+        List<Path> files = listFiles(directory);
+        for (int i = 0; i < files.size() - maxFiles; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    /**
+     * Opens a log file. Tests replace this to inject I/O failures.
+     */
+    FileChannel openChannel(Path path, OpenOption... options) throws IOException {
+        return FileChannel.open(path, options);
+    }
+
+    /**
+     * @return The journal files in a directory, oldest first.
+     */
+    static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) return files;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) files.add(file);
+        }
+        // The names start with the time the file was started
+        Collections.sort(files);
+        return files;
+    }
+}
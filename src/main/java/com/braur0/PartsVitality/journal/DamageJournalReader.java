@@ -0,0 +1,71 @@
+package com.braur0.PartsVitality.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the records of one damage journal file in order, into a reused {@link DamageRecord}.
+ */
+public class DamageJournalReader implements Closeable {
+
+    // Records read from the file at once
+    private static final int BATCH_RECORDS = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(DamageRecord.SIZE * BATCH_RECORDS);
+    private final long startMillis;
+    private long position = DamageJournal.HEADER_SIZE;
+
+    public DamageJournalReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(DamageJournal.HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) throw new IOException("Truncated damage journal header");
+            }
+            header.flip();
+            if (header.getInt() != DamageJournal.MAGIC || header.getInt() != DamageJournal.VERSION
+                    || header.getInt() != DamageRecord.SIZE) {
+                throw new IOException("Unrecognized damage journal format");
+            }
+            this.startMillis = header.getLong();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        buffer.flip(); // Start empty
+    }
+
+    /**
+     * @return The wall clock time the file was started, in epoch milliseconds.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Reads the next record.
+     * @return False at the end of the file, or at an incomplete or invalid record (e.g. a torn write after a crash).
+     */
+    public boolean next(DamageRecord record) throws IOException {
+        if (buffer.remaining() < DamageRecord.SIZE) {
+            buffer.compact();
+            int read;
+            while (buffer.hasRemaining() && (read = channel.read(buffer, position)) > 0) {
+                position += read;
+            }
+            buffer.flip();
+            if (buffer.remaining() < DamageRecord.SIZE) return false;
+        }
+        return record.decode(buffer);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,160 @@
+package com.braur0.PartsVitality.journal;
+
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.damage.DamageResult;
+import com.braur0.PartsVitality.damage.DamageSource;
+import com.braur0.PartsVitality.damage.ExplosionContext;
+import com.braur0.PartsVitality.model.Part;
+
+import java.nio.ByteBuffer;
+
+/**
+ * One resolved damage event as kept in the {@link DamageJournal}: everything {@link DamageEngine} was given,
+ * and what it decided. Instances are meant to be reused; encoding and decoding overwrite every field.
+ */
+public final class DamageRecord {
+
+    /** Bytes used by one record in the journal. */
+    public static final int SIZE = Integer.BYTES      // tick
+            + Long.BYTES * 2                          // victim UUID
+            + 8                                       // cause, source, pose, flags, target/damaged/broken/overridden masks
+            + Double.BYTES * 2                        // final damage, hit Y
+            + Double.BYTES * 4                        // victim box
+            + Double.BYTES * 3                        // attacker position or blast centre
+            + Double.BYTES * Part.COUNT * 2;          // part HP before and after
+
+    private static final int FLAG_PLAYER = 1;
+    private static final int FLAG_EXPLOSION = 1 << 1;
+
+    private static final DamageSource[] SOURCES = DamageSource.values();
+
+    public int tick;
+    public long victimMost;
+    public long victimLeast;
+    // Ordinal of the Bukkit damage cause (informational; replay uses the source)
+    public int cause;
+    public DamageSource source;
+    public BodyPose pose;
+    public boolean player;
+    // Whether the hit was resolved as an explosion centred on the attacker position
+    public boolean explosion;
+    public int targetMask;
+    public int damagedMask;
+    public int brokenMask;
+    // The parts whose damage another plugin changed or cancelled through the API, so the HP they were left with
+    // differs from partHPAfter, which is what the engine decided
+    public int overriddenMask;
+    public double finalDamage;
+    // Where the hit entered the hitbox, NaN if it was not located
+    public double hitY;
+    public double boxCenterX;
+    public double boxMinY;
+    public double boxCenterZ;
+    public double boxHeight;
+    // The attacker's position, or the blast centre for explosions; NaN without an attacker
+    public double attackerX;
+    public double attackerY;
+    public double attackerZ;
+    // Indexed by Part ordinal
+    public final double[] partHPBefore = new double[Part.COUNT];
+    public final double[] partHPAfter = new double[Part.COUNT];
+
+    /**
+     * Copies the outcome of a resolve into this record.
+     */
+    public void setResult(double[] partHP, DamageResult result) {
+        System.arraycopy(partHP, 0, partHPBefore, 0, Part.COUNT);
+        System.arraycopy(result.partHP, 0, partHPAfter, 0, Part.COUNT);
+        targetMask = result.targetMask;
+        damagedMask = result.damagedMask;
+        brokenMask = result.brokenMask;
+        overriddenMask = 0;
+    }
+
+    /**
+     * Resolves the recorded hit again with the given engine.
+     */
+    public DamageResult replay(DamageEngine engine, DamageResult result) {
+        if (explosion) {
+            ExplosionContext blast = new ExplosionContext(attackerX, attackerY, attackerZ);
+            return engine.resolveExplosion(partHPBefore, finalDamage, blast, boxCenterX, boxCenterZ, boxMinY, boxHeight, pose, result);
+        }
+        return engine.resolve(partHPBefore, source, finalDamage, hitY, boxMinY, boxHeight, pose, result);
+    }
+
+    /**
+     * Writes the record at an absolute position, leaving the buffer's position alone.
+     */
+    void encode(ByteBuffer buffer, int offset) {
+        int p = offset;
+        buffer.putInt(p, tick);
+        p += Integer.BYTES;
+        buffer.putLong(p, victimMost);
+        buffer.putLong(p + 8, victimLeast);
+        p += 16;
+        buffer.put(p, (byte) cause);
+        buffer.put(p + 1, (byte) source.ordinal());
+        buffer.put(p + 2, (byte) pose.ordinal());
+        buffer.put(p + 3, (byte) ((player ? FLAG_PLAYER : 0) | (explosion ? FLAG_EXPLOSION : 0)));
+        buffer.put(p + 4, (byte) targetMask);
+        buffer.put(p + 5, (byte) damagedMask);
+        buffer.put(p + 6, (byte) brokenMask);
+        buffer.put(p + 7, (byte) overriddenMask);
+        p += 8;
+        buffer.putDouble(p, finalDamage);
+        buffer.putDouble(p + 8, hitY);
+        buffer.putDouble(p + 16, boxCenterX);
+        buffer.putDouble(p + 24, boxMinY);
+        buffer.putDouble(p + 32, boxCenterZ);
+        buffer.putDouble(p + 40, boxHeight);
+        buffer.putDouble(p + 48, attackerX);
+        buffer.putDouble(p + 56, attackerY);
+        buffer.putDouble(p + 64, attackerZ);
+        p += 72;
+        for (int i = 0; i < Part.COUNT; i++) {
+            buffer.putDouble(p, partHPBefore[i]);
+            buffer.putDouble(p + Double.BYTES * Part.COUNT, partHPAfter[i]);
+            p += Double.BYTES;
+        }
+    }
+
+    /**
+     * Reads a record from the buffer's position and advances it by {@link #SIZE}.
+     * @return False if the record is not valid (e.g. a torn write at the end of a file).
+     */
+    boolean decode(ByteBuffer buffer) {
+        tick = buffer.getInt();
+        victimMost = buffer.getLong();
+        victimLeast = buffer.getLong();
+        cause = buffer.get() & 0xFF;
+        int sourceOrdinal = buffer.get() & 0xFF;
+        int poseOrdinal = buffer.get() & 0xFF;
+        int flags = buffer.get();
+        targetMask = buffer.get() & 0xFF;
+        damagedMask = buffer.get() & 0xFF;
+        brokenMask = buffer.get() & 0xFF;
+        overriddenMask = buffer.get() & 0xFF;
+        finalDamage = buffer.getDouble();
+        hitY = buffer.getDouble();
+        boxCenterX = buffer.getDouble();
+        boxMinY = buffer.getDouble();
+        boxCenterZ = buffer.getDouble();
+        boxHeight = buffer.getDouble();
+        attackerX = buffer.getDouble();
+        attackerY = buffer.getDouble();
+        attackerZ = buffer.getDouble();
+        for (int i = 0; i < Part.COUNT; i++) {
+            partHPBefore[i] = buffer.getDouble();
+        }
+        for (int i = 0; i < Part.COUNT; i++) {
+            partHPAfter[i] = buffer.getDouble();
+        }
+        if (sourceOrdinal >= SOURCES.length || poseOrdinal >= BodyPose.COUNT) return false;
+        source = SOURCES[sourceOrdinal];
+        pose = BodyPose.VALUES[poseOrdinal];
+        player = (flags & FLAG_PLAYER) != 0;
+        explosion = (flags & FLAG_EXPLOSION) != 0;
+        return true;
+    }
+}
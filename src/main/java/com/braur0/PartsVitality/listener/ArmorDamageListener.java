@@ -1,17 +1,24 @@
 package com.braur0.PartsVitality.listener;
 
+import org.bukkit.Location;
+import org.bukkit.block.Block;
 import org.bukkit.util.BoundingBox;
-import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.attribute.AttributeModifier;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.entity.Projectile;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageByBlockEvent;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.entity.ProjectileHitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.Damageable;
@@ -21,343 +28,796 @@ import org.bukkit.Sound;
 import org.bukkit.util.Vector;
 
 import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.api.event.PartBrokenEvent;
+import com.braur0.PartsVitality.api.event.PartDamageEvent;
+import com.braur0.PartsVitality.config.DebuffTable;
 import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.damage.DamageResult;
+import com.braur0.PartsVitality.damage.DamageSource;
+import com.braur0.PartsVitality.damage.DurabilitySampler;
+import com.braur0.PartsVitality.damage.ExplosionContext;
+import com.braur0.PartsVitality.display.ArmorDisplay;
+import com.braur0.PartsVitality.journal.DamageJournal;
+import com.braur0.PartsVitality.journal.DamageRecord;
+import com.braur0.PartsVitality.damage.HitLocator;
+import com.braur0.PartsVitality.damage.ProjectileImpactCache;
 import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
+import com.braur0.PartsVitality.model.MobPartHPTable;
+import com.braur0.PartsVitality.model.Part;
 import com.braur0.PartsVitality.model.PartHP;
+import com.braur0.PartsVitality.task.TaskScheduler;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ArmorDamageListener implements Listener {
 
-    private final PartsVitality plugin;
-    private final ArmorStatsManager armorStatsManager;
+    // The max health modifier for broken parts. The id is fixed so the modifier saved with the player is found again after a relog.
+    private static final UUID HEALTH_PENALTY_ID = UUID.fromString("5b0d3c8e-7f2a-4c61-9a3e-1d6f0e4b2a97");
+    private static final String HEALTH_PENALTY_NAME = "partsvitality.broken-parts";
 
-    private final PluginConfig config;
+    /**
+     * Side effects of the damage a player took during the current tick, applied once at the end of the tick.
+     */
+    private static final class PendingEffects {
+        private final Player player;
+        // Durability points to remove from each armor piece (indexed by Part ordinal), before Unbreaking
+        private final int[] durabilityPoints = new int[Part.COUNT];
+        private int events;
+
+        private PendingEffects(Player player) {
+            this.player = player;
+        }
+    }
 
-    public ArmorDamageListener(PartsVitality plugin, ArmorStatsManager armorStatsManager, PluginConfig config) {
+    /**
+     * Per-thread state for resolving hits: scratch buffers, and the projectile impacts and explosions of the current tick.
+     */
+    private static final class HitScratch {
+        private final double[] partValues = new double[Part.COUNT];
+        private final DamageResult damageResult = new DamageResult();
+        // Where projectiles hit this tick, recorded before the damage event
+        private final ProjectileImpactCache impactCache = new ProjectileImpactCache();
+        // Explosions that damaged players or mobs this tick, keyed by the exploding entity's UUID or the exploding block
+        private final Map<Object, ExplosionContext> explosions = new HashMap<>();
+        // The damage journal entry being filled in
+        private final DamageRecord journalRecord = new DamageRecord();
+        // A mob's debuff tiers before the hit being handled
+        private final int[] mobDebuffTiers = new int[DebuffTable.GROUP_COUNT];
+        // The server tick the impacts and explosions belong to (region-threaded servers only)
+        private int tick = -1;
+
+        private void clear() {
+            impactCache.clear();
+            explosions.clear();
+        }
+    }
+
+    private final PartsVitality plugin;
+    private final ArmorStatsManager armorStatsManager;
+    private final MetricsRegistry metrics;
+    private final TaskScheduler scheduler;
+    private final boolean regionThreaded;
+
+    // Players damaged during the current tick, in the order they were first hit.
+    // Flushed at the end of the tick on regular servers, or by a task on each player's own thread on region-threaded servers.
+    private final Map<UUID, PendingEffects> pendingEffects;
+    // Scratch state of the main thread, or of each region thread on region-threaded servers
+    private final HitScratch mainScratch = new HitScratch();
+    private final ThreadLocal<HitScratch> regionScratch = ThreadLocal.withInitial(HitScratch::new);
+    // Coalescing statistics
+    private final LongAdder damageEventCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    // Only kept on regular servers, where every player is flushed at the same time (main thread only)
+    private int lastTickDamageEvents;
+    private int lastTickFlushes;
+
+    public ArmorDamageListener(PartsVitality plugin, ArmorStatsManager armorStatsManager) {
         this.plugin = plugin;
         this.armorStatsManager = armorStatsManager;
-        this.config = config;
+        this.metrics = plugin.getMetrics();
+        this.scheduler = plugin.getTaskScheduler();
+        this.regionThreaded = scheduler.isRegionThreaded();
+        this.pendingEffects = regionThreaded ? new ConcurrentHashMap<>() : new LinkedHashMap<>();
     }
 
     /**
-     * Handles player damage events.
+     * @return The hit scratch state of the current thread.
+     */
+    private HitScratch scratch() {
+        if (!regionThreaded) return mainScratch; // Cleared by onTickEnd
+        HitScratch scratch = regionScratch.get();
+        int tick = plugin.getServer().getCurrentTick();
+        if (scratch.tick != tick) {
+            // Impacts and explosions are only valid for the tick they happened in
+            scratch.tick = tick;
+            scratch.clear();
+        }
+        return scratch;
+    }
+
+    /**
+     * Handles damage to players and tracked mobs.
+     * Damage is resolved by the server-independent {@link DamageEngine}; this listener only feeds it and applies the result.
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerDamage(EntityDamageEvent event) {
-        if (!(event.getEntity() instanceof Player player)) return;
+        Entity entity = event.getEntity();
+        if (!(entity instanceof Player) && !(entity instanceof LivingEntity && plugin.getPluginConfig().isTrackedMob(entity.getType()))) return;
 
+        long start = System.nanoTime();
+        try {
+            if (entity instanceof Player player) {
+                handlePlayerDamage(event, player);
+            } else {
+                handleMobDamage(event, (LivingEntity) entity);
+            }
+        } finally {
+            metrics.damageHandler.recordSince(start);
+        }
+    }
+
+    private void handlePlayerDamage(EntityDamageEvent event, Player player) {
+        PluginConfig config = plugin.getPluginConfig();
+        HitScratch scratch = scratch();
         PartHP partHP = armorStatsManager.getOrCreatePartHP(player);
-        double heartDamage = event.getFinalDamage();
-        double partDamage = heartDamage * config.damageMultiplier;
+        if (config.regenEnabled) {
+            // Starts the combat cooldown of passive regeneration
+            partHP.setLastDamageTick(plugin.getServer().getCurrentTick());
+        }
+        partHP.copyPartHP(scratch.partValues);
+        DamageResult result = resolveHit(event, player, config, scratch);
 
-        List<String> targetParts = new ArrayList<>();
-        EntityDamageEvent.DamageCause cause = event.getCause();
-        boolean shouldDamageArmor = isArmorDamage(cause);
+        if (result.instantDeath) {
+            journalHit(scratch, 0);
+            player.setHealth(0);
+            return;
+        }
+        int overriddenMask = applyResult(player, partHP, result, event.getCause());
+        journalHit(scratch, overriddenMask);
+    }
 
-        if (isArmorDamage(cause)) {
-            // Can only get attacker's position for EntityDamageByEntityEvent
-            if (event instanceof EntityDamageByEntityEvent edbe) {
-                Entity damager = edbe.getDamager();
-                Vector hitPoint = getHitPoint(player, damager);
-
-                if (hitPoint != null) {
-                    BoundingBox playerBox = player.getBoundingBox();
-                    double boxMinY = playerBox.getMinY();
-                    double boxHeight = playerBox.getHeight();
-                    double hitY = hitPoint.getY();
-
-                    if (hitY >= boxMinY + boxHeight * 0.85) { // Top 15% (Head)
-                        targetParts.add(PartHP.HEAD);
-                    } else if (hitY >= boxMinY + boxHeight * 0.4) { // Middle area (Chest)
-                        targetParts.add(PartHP.CHEST);
-                    } else if (hitY >= boxMinY + boxHeight * 0.1) { // Knee area (Legs)
-                        targetParts.add(PartHP.LEGS);
-                    } else { // Feet area (Feet)
-                        targetParts.add(PartHP.FEET);
-                    }
-                } else {
-                    // Fallback if Ray Tracing fails to find a hit location
-                    targetParts.addAll(PartHP.ALL_PARTS);
+    /**
+     * Resolves a hit on a mob. Mobs are tracked from their first damage; they take part damage and debuffs,
+     * but have no armor wear or max health penalty.
+     */
+    private void handleMobDamage(EntityDamageEvent event, LivingEntity mob) {
+        HitScratch scratch = scratch();
+        double[] partValues = scratch.partValues;
+        int entityId = mob.getEntityId();
+        MobPartHPTable mobParts = armorStatsManager.getMobPartHP();
+        PluginConfig config;
+        // The table is shared by every region thread, so it is locked only while reading or writing it.
+        // The lock is uncontended on regular servers.
+        synchronized (mobParts) {
+            // Read under the lock: a reload swaps the config and resets the table's tiers under it too
+            config = plugin.getPluginConfig();
+            int slot = mobParts.find(entityId);
+            if (slot < 0) {
+                for (Part part : Part.VALUES) {
+                    partValues[part.ordinal()] = config.getMaxHP(part);
+                }
+                slot = mobParts.getOrCreate(entityId, partValues);
+                if (slot < 0) {
+                    // The table is full, so this mob takes vanilla damage only
+                    metrics.untrackedMobs.increment();
+                    return;
                 }
-            } else {
-                // If attacker's position cannot be determined (e.g., explosion), distribute damage to all parts
-                targetParts.addAll(PartHP.ALL_PARTS);
             }
+            mobParts.copyPartHP(slot, partValues);
+        }
 
-        } else {
-            // Distribute environmental damage
-            switch (cause) {
-            case FALL:
-                // Fall damage goes to legs and feet
-                targetParts.add(PartHP.LEGS);
-                targetParts.add(PartHP.FEET);
-                break;
-            case VOID:
-                // The void is instant death
-                player.setHealth(0);
+        DamageResult result = resolveHit(event, mob, config, scratch);
+        // Mobs have no part events, so the engine's result is what they get
+        journalHit(scratch, 0);
+        if (result.instantDeath) return; // The void kills mobs by itself
+
+        int[] appliedTiers = scratch.mobDebuffTiers;
+        synchronized (mobParts) {
+            // Other mobs may have been added or removed meanwhile, which moves slots
+            int slot = mobParts.find(entityId);
+            if (slot < 0) return;
+            PluginConfig current = plugin.getPluginConfig();
+            if (current != config) {
+                // Reloaded during the hit: keep the damage within the new max HP, and leave the tiers unknown
+                // so the next hit re-applies the debuffs from the new table
+                for (Part part : Part.VALUES) {
+                    partValues[part.ordinal()] = Math.min(result.partHP[part.ordinal()], current.getMaxHP(part));
+                }
+                mobParts.setPartHP(slot, partValues);
                 return;
-            default:
-                // Others (poison, magic, suffocation, etc.) go to all parts with remaining HP
-                targetParts.addAll(PartHP.ALL_PARTS);
-                break;
             }
+            mobParts.setPartHP(slot, result.partHP);
+            for (int group = 0; group < DebuffTable.GROUP_COUNT; group++) {
+                appliedTiers[group] = mobParts.getDebuffTier(slot, group);
+                mobParts.setDebuffTier(slot, group, result.debuffTiers[group]);
+            }
+        }
+
+        DebuffTable debuffs = config.debuffs;
+        for (int group = 0; group < DebuffTable.GROUP_COUNT; group++) {
+            int newTier = result.debuffTiers[group];
+            if (newTier == appliedTiers[group]) continue;
+            replaceDebuff(mob, debuffs, group, appliedTiers[group], newTier);
         }
+    }
 
-        // If no target parts were determined (e.g., Ray Tracing failed, no target for environmental damage),
-        // apply damage to all parts as a fallback.
-        if (targetParts.isEmpty()) {
-            targetParts.addAll(PartHP.ALL_PARTS);
+    /**
+     * Locates a hit and resolves it against the part HP in the scratch's part values.
+     * When the damage journal is enabled, the hit is described in the scratch's journal record; see {@link #journalHit}.
+     */
+    private DamageResult resolveHit(EntityDamageEvent event, LivingEntity target, PluginConfig config, HitScratch scratch) {
+        DamageSource source = toDamageSource(event.getCause());
+        metrics.recordDamage(event.getCause(), event.getFinalDamage());
+
+        // Explosions are spread by where the blast went off; other located damage needs the attacker's position
+        ExplosionContext blast = source == DamageSource.EXPLOSION ? getExplosion(event, scratch) : null;
+        double hitY = Double.NaN;
+        if (blast == null && source.damagesArmor() && event instanceof EntityDamageByEntityEvent edbe) {
+            long hitStart = System.nanoTime();
+            hitY = getHitY(target, edbe.getDamager(), scratch);
+            metrics.hitLocation.recordSince(hitStart);
+            (Double.isNaN(hitY) ? metrics.hitsMissed : metrics.hitsLocated).increment();
+        }
+        if (blast == null && source.damagesArmor() && Double.isNaN(hitY)) {
+            // Located damage without a location is spread over all parts
+            metrics.allPartsFallbacks.increment();
         }
 
-        applyDamageToParts(player, partHP, partDamage, targetParts, shouldDamageArmor);
+        BoundingBox targetBox = target.getBoundingBox();
+        BodyPose pose = toBodyPose(target);
+        DamageResult result;
+        if (blast != null) {
+            result = config.damageEngine.resolveExplosion(scratch.partValues, event.getFinalDamage(), blast,
+                    targetBox.getCenterX(), targetBox.getCenterZ(), targetBox.getMinY(), targetBox.getHeight(), pose, scratch.damageResult);
+        } else {
+            result = config.damageEngine.resolve(scratch.partValues, source, event.getFinalDamage(), hitY,
+                    targetBox.getMinY(), targetBox.getHeight(), pose, scratch.damageResult);
+        }
+
+        if (plugin.getDamageJournal() != null) {
+            describeHit(scratch, event, target, source, pose, hitY, targetBox, blast, result);
+        }
+        return result;
     }
 
     /**
-     * Uses Ray Tracing to calculate where an attack hit the player's hitbox.
-     * @param target The player who was hit.
-     * @param damager The attacker or projectile.
-     * @return The Vector of the hit location, or null if it cannot be determined.
+     * Fills in the scratch's journal record with everything needed to resolve a hit again.
      */
-    private Vector getHitPoint(Player target, Entity damager) {
-        Vector start;
-        Vector direction;
+    private void describeHit(HitScratch scratch, EntityDamageEvent event, LivingEntity target, DamageSource source,
+                             BodyPose pose, double hitY, BoundingBox targetBox, ExplosionContext blast, DamageResult result) {
+        DamageRecord record = scratch.journalRecord;
+        record.tick = plugin.getServer().getCurrentTick();
+        UUID victim = target.getUniqueId();
+        record.victimMost = victim.getMostSignificantBits();
+        record.victimLeast = victim.getLeastSignificantBits();
+        record.cause = event.getCause().ordinal();
+        record.source = source;
+        record.pose = pose;
+        record.player = target instanceof Player;
+        record.explosion = blast != null;
+        record.finalDamage = event.getFinalDamage();
+        record.hitY = hitY;
+        record.boxCenterX = targetBox.getCenterX();
+        record.boxMinY = targetBox.getMinY();
+        record.boxCenterZ = targetBox.getCenterZ();
+        record.boxHeight = targetBox.getHeight();
+        if (blast != null) {
+            record.attackerX = blast.getCenterX();
+            record.attackerY = blast.getCenterY();
+            record.attackerZ = blast.getCenterZ();
+        } else if (event instanceof EntityDamageByEntityEvent edbe) {
+            Location attacker = edbe.getDamager().getLocation();
+            record.attackerX = attacker.getX();
+            record.attackerY = attacker.getY();
+            record.attackerZ = attacker.getZ();
+        } else {
+            record.attackerX = Double.NaN;
+            record.attackerY = Double.NaN;
+            record.attackerZ = Double.NaN;
+        }
+        record.setResult(scratch.partValues, result);
+    }
 
-        if (damager instanceof Projectile projectile) {
-            start = projectile.getLocation().toVector();
-            direction = projectile.getVelocity().normalize();
-        } else if (damager instanceof org.bukkit.entity.LivingEntity livingDamager) {
-            start = livingDamager.getEyeLocation().toVector();
-            direction = livingDamager.getEyeLocation().getDirection();
+    /**
+     * Writes the hit described by {@link #resolveHit} to the damage journal, once it has been applied.
+     * @param overriddenMask The parts whose damage another plugin changed or cancelled.
+     */
+    private void journalHit(HitScratch scratch, int overriddenMask) {
+        DamageJournal journal = plugin.getDamageJournal();
+        if (journal == null) return;
+        scratch.journalRecord.overriddenMask = overriddenMask;
+        if (!journal.record(scratch.journalRecord)) {
+            metrics.journalDropped.increment();
+        }
+    }
+
+    /**
+     * Finds the explosion behind explosion damage. The first victim of an explosion captures its centre,
+     * later victims in the same tick reuse it.
+     * @return The explosion, or null if its centre is unknown.
+     */
+    private ExplosionContext getExplosion(EntityDamageEvent event, HitScratch scratch) {
+        Object key;
+        if (event instanceof EntityDamageByEntityEvent edbe) {
+            key = edbe.getDamager().getUniqueId();
+        } else if (event instanceof EntityDamageByBlockEvent edbb && edbb.getDamager() != null) {
+            key = edbb.getDamager();
         } else {
-            return null; // Cannot calculate if the attacker's viewpoint is unknown
+            return null;
         }
 
-        BoundingBox targetBox = target.getBoundingBox();
-        double maxDistance = start.distance(target.getLocation().toVector()) + 2.0; // A generous max distance
+        ExplosionContext blast = scratch.explosions.get(key);
+        if (blast == null) {
+            if (event instanceof EntityDamageByEntityEvent edbe) {
+                // Creepers, TNT, crystals and fireballs explode where they are
+                Location center = edbe.getDamager().getLocation();
+                blast = new ExplosionContext(center.getX(), center.getY(), center.getZ());
+            } else {
+                Block block = (Block) key;
+                blast = new ExplosionContext(block.getX() + 0.5, block.getY() + 0.5, block.getZ() + 0.5);
+            }
+            scratch.explosions.put(key, blast);
+            metrics.explosions.increment();
+        }
+        metrics.explosionVictims.increment();
+        return blast;
+    }
 
-        // Advance the ray step by step and check for intersection with the hitbox
-        for (double d = 0; d < maxDistance; d += config.rayTraceStep) {
-            Vector currentPoint = start.clone().add(direction.clone().multiply(d));
-            if (targetBox.contains(currentPoint)) {
-                return currentPoint; // Return the first intersection point
+    /**
+     * Maps the entity's pose to the engine's body pose, which selects the hit zones.
+     */
+    private static BodyPose toBodyPose(LivingEntity entity) {
+        if (entity.isGliding()) return BodyPose.GLIDING;
+        return switch (entity.getPose()) {
+            case SNEAKING -> BodyPose.SNEAKING;
+            // The swimming pose is also used when crawling on land
+            case SWIMMING -> entity.isSwimming() ? BodyPose.SWIMMING : BodyPose.CRAWLING;
+            case SPIN_ATTACK -> BodyPose.SWIMMING;
+            case FALL_FLYING -> BodyPose.GLIDING;
+            case SLEEPING -> BodyPose.CRAWLING;
+            default -> BodyPose.STANDING;
+        };
+    }
+
+    /**
+     * Maps a Bukkit damage cause to the engine's damage source.
+     */
+    private static DamageSource toDamageSource(EntityDamageEvent.DamageCause cause) {
+        switch (cause) {
+            case ENTITY_ATTACK:
+            case ENTITY_SWEEP_ATTACK:
+                return DamageSource.MELEE;
+            case PROJECTILE:
+                return DamageSource.PROJECTILE;
+            case BLOCK_EXPLOSION:
+            case ENTITY_EXPLOSION:
+                return DamageSource.EXPLOSION;
+            case FALL:
+                return DamageSource.FALL;
+            case VOID:
+                return DamageSource.VOID;
+            default:
+                return DamageSource.OTHER;
+        }
+    }
+
+    /**
+     * Records where a projectile hit a player or tracked mob, while the projectile is still at its impact position.
+     * The damage event that follows takes this height instead of tracing from wherever the projectile has moved to.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onProjectileHit(ProjectileHitEvent event) {
+        if (!(event.getHitEntity() instanceof LivingEntity target)) return;
+        if (!(target instanceof Player) && !plugin.getPluginConfig().isTrackedMob(target.getType())) return;
+        Projectile projectile = event.getEntity();
+        scratch().impactCache.put(projectile.getEntityId(), traceHitY(target, projectile.getLocation(), projectile.getVelocity()));
+    }
+
+    /**
+     * Finds where an attack hit the player's hitbox.
+     * Projectile hits use the impact recorded by {@link #onProjectileHit}; other attacks are traced from the attacker's eyes.
+     * @param target The player or mob that was hit.
+     * @param damager The attacker or projectile.
+     * @return The Y coordinate of the hit location, or NaN if it cannot be determined.
+     */
+    private double getHitY(LivingEntity target, Entity damager, HitScratch scratch) {
+        if (damager instanceof Projectile projectile) {
+            int projectileId = projectile.getEntityId();
+            if (scratch.impactCache.contains(projectileId)) {
+                metrics.projectileImpacts.increment();
+                return scratch.impactCache.take(projectileId);
             }
+            // No recorded impact (e.g. damage dealt by another plugin), so trace from where the projectile is now
+            return traceHitY(target, projectile.getLocation(), projectile.getVelocity());
+        } else if (damager instanceof LivingEntity livingDamager) {
+            Location eye = livingDamager.getEyeLocation();
+            return traceHitY(target, eye, eye.getDirection());
         }
+        return Double.NaN; // Cannot calculate if the attacker's viewpoint is unknown
+    }
+
+    /**
+     * Uses Ray Tracing to calculate where a ray enters the target's hitbox.
+     * The entry point is computed exactly, so no stepping along the ray is needed.
+     * @param target The player or mob that was hit.
+     * @param start The origin of the ray.
+     * @param direction The direction of the ray; need not be normalized.
+     * @return The Y coordinate of the entry point, or NaN if the ray misses.
+     */
+    private double traceHitY(LivingEntity target, Location start, Vector direction) {
+        double length = direction.length();
+        if (length == 0.0) return Double.NaN; // A ray without direction cannot hit anything
+
+        double dirX = direction.getX() / length;
+        double dirY = direction.getY() / length;
+        double dirZ = direction.getZ() / length;
 
-        return null; // No hit
+        BoundingBox targetBox = target.getBoundingBox();
+        Location targetLocation = target.getLocation();
+        double dx = start.getX() - targetLocation.getX();
+        double dy = start.getY() - targetLocation.getY();
+        double dz = start.getZ() - targetLocation.getZ();
+        double maxDistance = Math.sqrt(dx * dx + dy * dy + dz * dz) + 2.0; // A generous max distance
+
+        return HitLocator.entryY(start.getX(), start.getY(), start.getZ(), dirX, dirY, dirZ,
+                targetBox.getMinX(), targetBox.getMinY(), targetBox.getMinZ(),
+                targetBox.getMaxX(), targetBox.getMaxY(), targetBox.getMaxZ(),
+                maxDistance);
     }
 
     /**
-     * Applies the actual damage to part HP and updates debuffs.
+     * Writes a resolved hit to the player's part HP and queues the side effects for the end of the tick.
      * @param player The target player.
      * @param partHP The PartHP object.
-     * @param totalDamage The total damage amount.
-     * @param primaryTargets The list of parts that initially receive damage.
-     * @param shouldDamageArmor Whether the armor's durability should be reduced.
+     * @param result The resolved hit.
+     * @param cause The cause of the hit, for API events.
+     * @return The parts whose damage a PartDamageEvent or PartBrokenEvent listener changed or cancelled.
      */
-    private void applyDamageToParts(Player player, PartHP partHP, double totalDamage, List<String> primaryTargets, boolean shouldDamageArmor) {
-        List<String> availablePrimary = primaryTargets.stream()
-                .filter(part -> partHP.getPartHP(part) > 0)
-                .toList();
-
-        if (!availablePrimary.isEmpty()) {
-            // Distribute damage evenly among the target parts
-            double damagePerPart = totalDamage / availablePrimary.size();
-            for (String part : availablePrimary) {
-                double currentHP = partHP.getPartHP(part);
-                partHP.setPartHP(part, currentHP - damagePerPart);
-                if (config.useCustomDurabilityDamage && shouldDamageArmor) {
-                    damageArmor(player, part, damagePerPart); // Reduce armor durability
-                }
+    private int applyResult(Player player, PartHP partHP, DamageResult result, EntityDamageEvent.DamageCause cause) {
+        PendingEffects pending = pendingEffects.get(player.getUniqueId());
+        if (pending == null) {
+            pending = new PendingEffects(player);
+            pendingEffects.put(player.getUniqueId(), pending);
+            if (regionThreaded) {
+                // There is no common end of tick, so flush on the player's own thread on the next tick
+                PendingEffects scheduled = pending;
+                scheduler.runForEntity(player, () -> flushRegion(scheduled), 1L);
             }
-        } else {
-            // If the target part is already at 0 HP, distribute damage to other remaining parts
-            List<String> remainingParts = partHP.getRemainingParts();
-            if (!remainingParts.isEmpty()) {
-                double damagePerPart = totalDamage / remainingParts.size();
-                for (String part : remainingParts) {
-                    double currentHP = partHP.getPartHP(part);
-                    partHP.setPartHP(part, currentHP - damagePerPart);
-                    if (config.useCustomDurabilityDamage && shouldDamageArmor) {
-                        damageArmor(player, part, damagePerPart); // Reduce armor durability
-                    }
-                }
+        }
+        pending.events++;
+
+        // Events are only created when another plugin listens to them
+        boolean observed = PartDamageEvent.hasListeners() || PartBrokenEvent.hasListeners();
+        DamageAnalytics analytics = plugin.getDamageAnalytics();
+        int overriddenMask = 0;
+        for (Part part : Part.VALUES) {
+            if ((result.damagedMask & part.bit()) == 0) continue;
+            int index = part.ordinal();
+            double newHP = result.partHP[index];
+            if (observed) {
+                newHP = callPartEvents(player, partHP, part, cause, newHP);
+                if (newHP != result.partHP[index]) overriddenMask |= part.bit(); // Includes NaN
+                if (Double.isNaN(newHP)) continue; // Cancelled
             }
+            if (analytics != null) {
+                double previousHP = partHP.getPartHP(part);
+                analytics.recordDamage(cause, part, previousHP - Math.max(0, newHP), newHP <= 0 && previousHP > 0);
+            }
+            partHP.setPartHP(part, newHP);
+            // The armor is updated at the end of the tick
+            pending.durabilityPoints[index] += result.durabilityPoints[index];
         }
+        // Debuffs, max HP penalty, durability and the display are updated once at the end of the tick
+        return overriddenMask;
+    }
 
+    /**
+     * Lets other plugins change or cancel the damage to one part, and stop it from breaking.
+     * @return The HP the part is left with, or NaN if the damage was cancelled.
+     */
+    private double callPartEvents(Player player, PartHP partHP, Part part, EntityDamageEvent.DamageCause cause, double newHP) {
+        double previousHP = partHP.getPartHP(part);
+        if (PartDamageEvent.hasListeners()) {
+            PartDamageEvent damageEvent = new PartDamageEvent(player, part, cause, previousHP, previousHP - newHP);
+            plugin.getServer().getPluginManager().callEvent(damageEvent);
+            if (damageEvent.isCancelled()) return Double.NaN;
+            newHP = damageEvent.getNewHP();
+        }
+        if (newHP <= 0 && previousHP > 0 && PartBrokenEvent.hasListeners()) {
+            PartBrokenEvent brokenEvent = new PartBrokenEvent(player, part, cause, previousHP);
+            plugin.getServer().getPluginManager().callEvent(brokenEvent);
+            if (brokenEvent.isCancelled()) return Double.NaN;
+        }
+        return newHP;
+    }
+
+    /**
+     * Applies the side effects of every player's damage this tick, once per player,
+     * and drops this tick's projectile impacts and explosions.
+     */
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        if (regionThreaded) return; // Players are flushed by flushRegion
+
+        // Impacts and explosions are only valid for the tick they happened in
+        mainScratch.clear();
+        if (pendingEffects.isEmpty()) {
+            lastTickDamageEvents = 0;
+            lastTickFlushes = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        int events = 0;
+        for (PendingEffects pending : pendingEffects.values()) {
+            events += pending.events;
+            flushEffects(pending);
+        }
+        lastTickDamageEvents = events;
+        lastTickFlushes = pendingEffects.size();
+        damageEventCount.add(events);
+        flushCount.add(lastTickFlushes);
+        pendingEffects.clear();
+        metrics.damageFlush.recordSince(start);
+    }
+
+    /**
+     * Applies one player's pending side effects on a region-threaded server, on the player's own thread.
+     */
+    private void flushRegion(PendingEffects pending) {
+        long start = System.nanoTime();
+        pendingEffects.remove(pending.player.getUniqueId(), pending);
+        flushEffects(pending);
+        damageEventCount.add(pending.events);
+        flushCount.increment();
+        metrics.damageFlush.recordSince(start);
+    }
+
+    /**
+     * Drops a player's pending side effects when they quit; a flush scheduled on their own thread will not run.
+     */
+    public void forgetPlayer(Player player) {
+        pendingEffects.remove(player.getUniqueId());
+    }
+
+    private void flushEffects(PendingEffects pending) {
+        Player player = pending.player;
+        if (!player.isOnline()) return;
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP == null) return;
+
+        for (Part part : Part.VALUES) {
+            int points = pending.durabilityPoints[part.ordinal()];
+            if (points > 0) {
+                damageArmor(player, partHP, part, points); // Reduce armor durability
+            }
+        }
+
+        refreshPlayer(player, partHP);
+    }
+
+    /**
+     * Brings a player's debuffs, max HP penalty and part HP display in line with their part HP after it changed.
+     */
+    public void refreshPlayer(Player player, PartHP partHP) {
         // Update debuffs after applying damage
         updateDebuffs(player, partHP);
         // Update max HP penalty
         updateHealthPenalty(player, partHP);
+
+        // Keep the part HP display current for players looking at it
+        if (plugin.getPlayerInventoryListener().isViewingPartHP(player)) {
+            partHP.updateArmorDisplayWithGlow(player, true, plugin.getTreatmentEngine().getTreatedMask(player));
+        }
+    }
+
+    /**
+     * @return The number of damage events whose side effects were applied in the last tick.
+     */
+    public int getLastTickDamageEvents() {
+        return lastTickDamageEvents;
+    }
+
+    /**
+     * @return The number of players whose side effects were applied in the last tick.
+     */
+    public int getLastTickFlushes() {
+        return lastTickFlushes;
+    }
+
+    /**
+     * @return The number of damage events since the plugin was enabled.
+     */
+    public long getDamageEventCount() {
+        return damageEventCount.sum();
     }
 
     /**
-     * Reduces the durability of the corresponding armor piece based on part damage.
+     * @return The number of per-player flushes since the plugin was enabled.
+     *         {@code getDamageEventCount() - getFlushCount()} events were coalesced away.
+     */
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    /**
+     * Reduces the durability of the corresponding armor piece.
+     * While the piece shows part HP, its real durability is kept by the armor display and is changed there instead.
      * @param player The target player.
-     * @param partName The name of the part.
-     * @param partDamage The damage received by the part.
+     * @param partHP The PartHP object.
+     * @param part The part.
+     * @param durabilityDamage The durability damage before the Unbreaking enchantment is applied.
      */
-    private void damageArmor(Player player, String partName, double partDamage) {
-        EquipmentSlot slot = getEquipmentSlotFromPart(partName);
-        if (slot == null) return;
+    private void damageArmor(Player player, PartHP partHP, Part part, int durabilityDamage) {
+        EquipmentSlot slot = getEquipmentSlotFromPart(part);
 
         ItemStack armorPiece = player.getInventory().getItem(slot);
         if (armorPiece == null || armorPiece.getType().isAir() || !(armorPiece.getItemMeta() instanceof Damageable damageable)) {
             return;
         }
 
-        // Calculate durability damage based on the configured value
-        int durabilityDamage = (int) (partDamage / config.damagePerDurabilityPoint);
-        if (durabilityDamage <= 0) return;
-
-        // Consider the Unbreaking enchantment
-        int unbreakingLevel = armorPiece.getEnchantmentLevel(Enchantment.DURABILITY);
-        // Unbreaking enchantment calculation modifier (level + 1)
-        final double UNBREAKING_CHANCE_MODIFIER = unbreakingLevel + 1.0;
-        for (int i = 0; i < durabilityDamage; i++) {
-            // Has a 1 / (unbreakingLevel + 1) chance to reduce durability
-            if (Math.random() * UNBREAKING_CHANCE_MODIFIER < 1.0) {
-                int newDamage = damageable.getDamage() + 1;
-                if (newDamage >= armorPiece.getType().getMaxDurability()) {
-                    // Armor breaks
-                    player.getInventory().setItem(slot, null);
-                    player.playSound(player.getLocation(), Sound.ENTITY_ITEM_BREAK, 1.0f, 1.0f);
-                    return; // Exit the loop
-                }
-                damageable.setDamage(newDamage);
-            }
-        }
+        ArmorDisplay display = partHP.getArmorDisplay();
+        boolean displayed = display != null && display.hasOriginalDamage(part);
+
+        // Consider the Unbreaking enchantment: each point has a 1 / (unbreakingLevel + 1) chance to apply
+        int unbreakingLevel = displayed ? display.getOriginalUnbreaking(part) : armorPiece.getEnchantmentLevel(Enchantment.DURABILITY);
+        int loss = DurabilitySampler.sampleLoss(durabilityDamage, unbreakingLevel);
+        if (loss <= 0) return;
 
+        int newDamage = (displayed ? display.getOriginalDamage(part) : damageable.getDamage()) + loss;
+        if (newDamage >= armorPiece.getType().getMaxDurability()) {
+            // Armor breaks
+            player.getInventory().setItem(slot, null);
+            player.playSound(player.getLocation(), Sound.ENTITY_ITEM_BREAK, 1.0f, 1.0f);
+            if (display != null) display.forget(part);
+            return;
+        }
+        if (displayed) {
+            display.setOriginalDamage(part, newDamage); // Written back when the display reverts
+            return;
+        }
+        damageable.setDamage(newDamage);
         armorPiece.setItemMeta(damageable);
     }
 
     /**
-     * Gets the corresponding EquipmentSlot from a part name.
-     * @param partName The name of the part.
+     * Gets the corresponding EquipmentSlot from a part.
+     * @param part The part.
      * @return The EquipmentSlot.
      */
-    private EquipmentSlot getEquipmentSlotFromPart(String partName) {
-        return switch (partName.toLowerCase()) {
-            case "head" -> EquipmentSlot.HEAD;
-            case "chest" -> EquipmentSlot.CHEST;
-            case "legs" -> EquipmentSlot.LEGS;
-            case "feet" -> EquipmentSlot.FEET;
-            default -> null;
+    private EquipmentSlot getEquipmentSlotFromPart(Part part) {
+        return switch (part) {
+            case HEAD -> EquipmentSlot.HEAD;
+            case CHEST -> EquipmentSlot.CHEST;
+            case LEGS -> EquipmentSlot.LEGS;
+            case FEET -> EquipmentSlot.FEET;
         };
     }
     /**
      * Updates debuffs based on part HP.
+     * Potion effects are only touched when a group crosses a threshold.
      */
     public void updateDebuffs(Player player, PartHP partHP) {
-        ConfigurationSection debuffsConfig = plugin.getConfig().getConfigurationSection("debuffs");
-        if (debuffsConfig == null) return;
+        long start = System.nanoTime();
+        DebuffTable debuffs = plugin.getPluginConfig().debuffs;
 
         // Process debuffs for head and chest
-        List<String> individualParts = List.of(PartHP.HEAD, PartHP.CHEST);
-        for (String part : individualParts) {
-            double maxHP = PartHP.getMaxHPPerPart(part);
-            if (maxHP <= 0) continue;
-            double currentHP = partHP.getPartHP(part);
-            double ratio = currentHP / maxHP;
-
-            // Determine the final debuff to apply
-            List<Map<?, ?>> partDebuffs = debuffsConfig.getMapList(part);
-            PotionEffect finalEffect = null;
-            for (Map<?, ?> debuffInfo : partDebuffs) {
-                if (ratio <= (Double) debuffInfo.get("threshold")) {
-                    PotionEffectType type = PotionEffectType.getByName((String) debuffInfo.get("effect"));
-                    if (type == null) continue;
-                    int level = (Integer) debuffInfo.get("level");
-                    finalEffect = new PotionEffect(type, -1, level, true, false);
-                    // Break the loop once the most severe debuff is found (assuming thresholds in config are in descending order)
-                    break; 
-                }
-            }
+        updateDebuffGroup(player, partHP, debuffs, DebuffTable.GROUP_HEAD, partHP.getPartHP(Part.HEAD), PartHP.getMaxHPPerPart(Part.HEAD));
+        updateDebuffGroup(player, partHP, debuffs, DebuffTable.GROUP_CHEST, partHP.getPartHP(Part.CHEST), PartHP.getMaxHPPerPart(Part.CHEST));
+
+        // Process combined debuff for legs and feet
+        double totalCurrentHP = partHP.getPartHP(Part.LEGS) + partHP.getPartHP(Part.FEET);
+        double totalMaxHP = PartHP.getMaxHPPerPart(Part.LEGS) + PartHP.getMaxHPPerPart(Part.FEET);
+        updateDebuffGroup(player, partHP, debuffs, DebuffTable.GROUP_LEGS_AND_FEET, totalCurrentHP, totalMaxHP);
+        metrics.debuffUpdate.recordSince(start);
+    }
 
-            // Clear existing debuffs
-            for (Map<?, ?> debuffInfo : partDebuffs) {
-                PotionEffectType type = PotionEffectType.getByName((String) debuffInfo.get("effect"));
-                if (type != null && (finalEffect == null || !finalEffect.getType().equals(type))) {
-                    player.removePotionEffect(type);
+    private void updateDebuffGroup(Player player, PartHP partHP, DebuffTable debuffs, int group, double currentHP, double maxHP) {
+        if (maxHP <= 0) return;
+
+        int newTier = debuffs.resolveTier(group, currentHP / maxHP);
+        int oldTier = partHP.getDebuffTier(debuffs, group);
+        if (newTier == oldTier) return; // No threshold crossed, nothing to send
+
+        replaceDebuff(player, debuffs, group, oldTier, newTier);
+        partHP.setDebuffTier(debuffs, group, newTier);
+    }
+
+    /**
+     * Swaps the potion effect of a debuff group from one tier to another.
+     * @param oldTier The tier currently applied, or PartHP.DEBUFF_TIER_UNKNOWN.
+     *                A tier this table does not have (one applied before a reload) is treated as unknown.
+     */
+    private static void replaceDebuff(LivingEntity entity, DebuffTable debuffs, int group, int oldTier, int newTier) {
+        PotionEffect newEffect = debuffs.getEffect(group, newTier);
+        if (!debuffs.isValidTier(group, oldTier)) {
+            // The applied state is unknown, so clear every effect this group can apply
+            for (PotionEffectType type : debuffs.getEffectTypes(group)) {
+                if (newEffect == null || !newEffect.getType().equals(type)) {
+                    entity.removePotionEffect(type);
                 }
             }
-
-            // Apply the new debuff
-            if (finalEffect != null) {
-                player.addPotionEffect(finalEffect);
+        } else {
+            // Remove the previous tier's effect unless it is exactly the one being applied.
+            // A lower amplifier would not replace a higher one, so a changed level is removed too.
+            PotionEffect oldEffect = debuffs.getEffect(group, oldTier);
+            if (oldEffect != null && (newEffect == null || !oldEffect.getType().equals(newEffect.getType())
+                    || oldEffect.getAmplifier() != newEffect.getAmplifier())) {
+                entity.removePotionEffect(oldEffect.getType());
             }
         }
 
-        // Process combined debuff for legs and feet
-        double legsCurrentHP = partHP.getPartHP(PartHP.LEGS);
-        double feetCurrentHP = partHP.getPartHP(PartHP.FEET);
-        double totalMaxHP = PartHP.getMaxHPPerPart(PartHP.LEGS) + PartHP.getMaxHPPerPart(PartHP.FEET);
-        if (totalMaxHP <= 0) return;
-
-        double totalCurrentHP = legsCurrentHP + feetCurrentHP;
-        double combinedRatio = totalCurrentHP / totalMaxHP;
-
-        // Determine the final combined debuff to apply
-        List<Map<?, ?>> combinedDebuffs = debuffsConfig.getMapList("legs_and_feet");
-        PotionEffect finalCombinedEffect = null;
-        for (Map<?, ?> debuffInfo : combinedDebuffs) {
-            if (combinedRatio <= (Double) debuffInfo.get("threshold")) {
-                PotionEffectType type = PotionEffectType.getByName((String) debuffInfo.get("effect"));
-                if (type == null) continue;
-                int level = (Integer) debuffInfo.get("level");
-                finalCombinedEffect = new PotionEffect(type, -1, level, true, false);
-                break;
-            }
+        // Apply the new debuff
+        if (newEffect != null) {
+            entity.addPotionEffect(newEffect);
         }
+    }
 
-        // Clear existing combined debuffs
-        for (Map<?, ?> debuffInfo : combinedDebuffs) {
-            PotionEffectType type = PotionEffectType.getByName((String) debuffInfo.get("effect"));
-            if (type != null && (finalCombinedEffect == null || !finalCombinedEffect.getType().equals(type))) {
-                player.removePotionEffect(type);
-            }
-        }
+    /**
+     * Forgets the applied debuff tiers when a player's effects are cleared by something other than this plugin
+     * (e.g., drinking milk), so the debuffs are re-applied on the next update.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPotionEffectChange(EntityPotionEffectEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+        if (event.getCause() == EntityPotionEffectEvent.Cause.PLUGIN) return;
+        if (event.getAction() != EntityPotionEffectEvent.Action.CLEARED && event.getAction() != EntityPotionEffectEvent.Action.REMOVED) return;
 
-        // Apply the new combined debuff
-        if (finalCombinedEffect != null) {
-            player.addPotionEffect(finalCombinedEffect);
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP != null) {
+            partHP.resetDebuffTiers();
         }
     }
 
     /**
      * Updates the player's max health based on the number of parts with 0 HP.
+     * The penalty is a single named modifier on top of whatever other plugins set, and the attribute is only
+     * touched when the penalty changes, so unchanged hits and heals send no attribute update.
      * @param player The target player.
      * @param partHP The PartHP object.
      */
     public void updateHealthPenalty(Player player, PartHP partHP) {
-        long brokenPartsCount = PartHP.ALL_PARTS.stream()
-                .filter(part -> partHP.getPartHP(part) <= 0)
-                .count();
-
-        double penaltyPerPart = config.healthPenaltyPerBrokenPart;
-        double totalPenalty = brokenPartsCount * penaltyPerPart;
-
-        // Always calculate based on the vanilla default max health (20.0)
-        // to prevent duplicate penalty application.
-        double baseMaxHealth = 20.0;
-        // Calculate the new max health, ensuring it's at least 2.0 (1 heart).
-        double newMaxHealth = Math.max(2.0, baseMaxHealth - totalPenalty);
-
-        player.getAttribute(Attribute.GENERIC_MAX_HEALTH).setBaseValue(newMaxHealth);
+        // Calculated from the vanilla default (20.0), leaving at least 2.0 (1 heart)
+        DamageEngine damageEngine = plugin.getPluginConfig().damageEngine;
+        double penalty = damageEngine.getHealthPenalty(partHP.getBrokenPartCount());
+        if (penalty == partHP.getAppliedHealthPenalty()) return;
+
+        AttributeInstance maxHealth = player.getAttribute(Attribute.GENERIC_MAX_HEALTH);
+        if (maxHealth == null) return;
+        AttributeModifier current = null;
+        for (AttributeModifier modifier : maxHealth.getModifiers()) {
+            if (HEALTH_PENALTY_ID.equals(modifier.getUniqueId())) {
+                current = modifier;
+                break;
+            }
+        }
+        if (current != null) {
+            if (current.getAmount() == -penalty) {
+                // Already applied, e.g. saved with the player before a relog
+                partHP.setAppliedHealthPenalty(penalty);
+                return;
+            }
+            maxHealth.removeModifier(current);
+        }
+        if (penalty > 0) {
+            maxHealth.addModifier(new AttributeModifier(HEALTH_PENALTY_ID, HEALTH_PENALTY_NAME, -penalty, AttributeModifier.Operation.ADD_NUMBER));
+        }
+        partHP.setAppliedHealthPenalty(penalty);
 
         // Adjust current health if it exceeds the new max health
+        double newMaxHealth = maxHealth.getValue();
         if (player.getHealth() > newMaxHealth) {
             player.setHealth(newMaxHealth);
         }
     }
-
-    private boolean isArmorDamage(EntityDamageEvent.DamageCause cause) {
-        return cause == EntityDamageEvent.DamageCause.ENTITY_ATTACK ||
-               cause == EntityDamageEvent.DamageCause.ENTITY_SWEEP_ATTACK ||
-               cause == EntityDamageEvent.DamageCause.PROJECTILE ||
-               cause == EntityDamageEvent.DamageCause.BLOCK_EXPLOSION ||
-               cause == EntityDamageEvent.DamageCause.ENTITY_EXPLOSION;
-    }
 }
@@ -0,0 +1,59 @@
+package com.braur0.PartsVitality.listener;
+
+import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.model.MobPartHPTable;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+/**
+ * Stops tracking the part HP of mobs that leave the world.
+ * Mobs start being tracked on their first damage (see {@link ArmorDamageListener}).
+ */
+public class MobTrackingListener implements Listener {
+
+    private final ArmorStatsManager armorStatsManager;
+
+    public MobTrackingListener(ArmorStatsManager armorStatsManager) {
+        this.armorStatsManager = armorStatsManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(EntityDeathEvent event) {
+        if (event.getEntity() instanceof Player) return;
+        remove(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        MobPartHPTable mobParts = armorStatsManager.getMobPartHP();
+        synchronized (mobParts) {
+            if (mobParts.size() == 0) return;
+            for (Entity entity : event.getEntities()) {
+                mobParts.remove(entity.getEntityId());
+            }
+        }
+    }
+
+    /**
+     * Catches every other way a mob leaves the world (e.g. despawning), which fires neither of the events above.
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        if (event.getEntity() instanceof Player) return;
+        remove(event.getEntity());
+    }
+
+    private void remove(Entity entity) {
+        MobPartHPTable mobParts = armorStatsManager.getMobPartHP();
+        // Region threads share the table (see ArmorDamageListener#handleMobDamage)
+        synchronized (mobParts) {
+            mobParts.remove(entity.getEntityId());
+        }
+    }
+}
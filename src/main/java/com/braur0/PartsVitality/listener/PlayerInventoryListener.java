@@ -36,6 +36,15 @@ public class PlayerInventoryListener implements Listener {
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player player)) return;
 
+        long start = System.nanoTime();
+        try {
+            handleInventoryClick(event, player);
+        } finally {
+            plugin.getMetrics().displayClick.recordSince(start);
+        }
+    }
+
+    private void handleInventoryClick(InventoryClickEvent event, Player player) {
         UUID playerUUID = player.getUniqueId();
 
         // This listener only acts when an armor slot is shift-right-clicked
@@ -45,17 +54,17 @@ public class PlayerInventoryListener implements Listener {
 
             if (viewingPartHP.contains(playerUUID)) {
                 viewingPartHP.remove(playerUUID);
-                player.sendMessage(Lang.get("inventory-display-durability"));
+                player.sendMessage(Lang.get(player, "inventory-display-durability"));
                 PartHP partHP = armorStatsManager.getOrCreatePartHP(player);
                 partHP.updateArmorDisplay(player, false, -1);
             } else {
                 viewingPartHP.add(playerUUID);
-                player.sendMessage(Lang.get("inventory-display-part-hp"));
+                player.sendMessage(Lang.get(player, "inventory-display-part-hp"));
                 // Pass -1 to avoid making the slot glow, as specifying a slot would cause it to glow
                 PartHP partHP = armorStatsManager.getOrCreatePartHP(player);
                 partHP.updateArmorDisplay(player, true, -1);
             }
-            player.updateInventory();
+            // Only the armor slots that changed are sent; no full inventory resync is needed
             return; // End processing here
         }
 
@@ -1,46 +1,70 @@
 package com.braur0.PartsVitality.listener;
 
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerRespawnEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionEffect;
 
 import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.damage.DamageEngine;
 import com.braur0.PartsVitality.listener.ArmorDamageListener;
 import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.model.Part;
 import com.braur0.PartsVitality.model.PartHP;
 
 import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
 
 public class PlayerSetupListener implements Listener {
     private final PartsVitality plugin;
     private final ArmorStatsManager armorStatsManager;
     private final ArmorDamageListener armorDamageListener;
+    // Set on a player once their max health base value has been checked for the old penalty
+    private final NamespacedKey legacyMaxHealthKey;
     
     public PlayerSetupListener(PartsVitality plugin, ArmorStatsManager armorStatsManager, ArmorDamageListener armorDamageListener) {
         this.plugin = plugin;
         this.armorStatsManager = armorStatsManager;
         this.armorDamageListener = armorDamageListener;
+        this.legacyMaxHealthKey = new NamespacedKey(plugin, "legacy-max-health-migrated");
     }
 
-    @EventHandler
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event) {
+        // Runs on an async thread, so saved part HP can be read from disk without blocking the main thread.
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+        armorStatsManager.preloadPlayer(event.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
     public void onLogin(PlayerLoginEvent event) {
         // This runs only when a player "logs in" to the server.
         // This avoids conflicts with onJoin during respawn.
-        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) return;
+        if (event.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            armorStatsManager.discardPreloaded(event.getPlayer().getUniqueId());
+            return;
+        }
 
         final Player player = event.getPlayer();
         // Get existing part HP data, or create new if it doesn't exist
         PartHP partHP = armorStatsManager.getOrCreatePartHP(player);
 
         // Re-apply debuffs and HP penalty after 1 tick
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+        plugin.getTaskScheduler().runForEntity(player, () -> {
             // Clear existing debuffs before recalculating
             player.getActivePotionEffects().forEach(effect -> player.removePotionEffect(effect.getType()));
+            partHP.resetDebuffTiers();
+            partHP.resetHealthPenalty();
+            migrateLegacyMaxHealth(player);
             armorDamageListener.updateDebuffs(player, partHP);
             armorDamageListener.updateHealthPenalty(player, partHP);
         }, 1L);
@@ -62,6 +86,33 @@ public class PlayerSetupListener implements Listener {
         }
         // Reset the inventory display state
         plugin.getPlayerInventoryListener().resetViewingState(player);
+        // Drop damage effects that were waiting for the end of the tick
+        armorDamageListener.forgetPlayer(player);
+        // Save the part HP and release it from memory
+        armorStatsManager.unloadPlayer(player);
+    }
+
+    /**
+     * Earlier versions applied the broken part penalty by lowering the max health base value.
+     * On a player's first login with this version, puts it back to the vanilla default if it still holds one of
+     * those penalized values. The player is flagged afterwards, so base values set later by other plugins are left alone.
+     */
+    private void migrateLegacyMaxHealth(Player player) {
+        PersistentDataContainer data = player.getPersistentDataContainer();
+        if (data.has(legacyMaxHealthKey, PersistentDataType.BYTE)) return;
+        data.set(legacyMaxHealthKey, PersistentDataType.BYTE, (byte) 1);
+
+        AttributeInstance maxHealth = player.getAttribute(Attribute.GENERIC_MAX_HEALTH);
+        if (maxHealth == null) return;
+        double base = maxHealth.getBaseValue();
+        if (base >= DamageEngine.BASE_MAX_HEALTH) return;
+        DamageEngine damageEngine = plugin.getPluginConfig().damageEngine;
+        for (int broken = 1; broken <= Part.COUNT; broken++) {
+            if (base == damageEngine.getMaxHealth(broken)) {
+                maxHealth.setBaseValue(DamageEngine.BASE_MAX_HEALTH);
+                return;
+            }
+        }
     }
 
     @EventHandler
@@ -69,13 +120,13 @@ public class PlayerSetupListener implements Listener {
         Player player = event.getPlayer();
 
         // Delay by 1 tick to ensure some processes apply correctly
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            // Reset player's max health to the default value (20)
-            player.getAttribute(Attribute.GENERIC_MAX_HEALTH).setBaseValue(20.0);
-            // Restore health to full
-            player.setHealth(20.0);
+        plugin.getTaskScheduler().runForEntity(player, () -> {
             // Re-initialize part HP data
             armorStatsManager.initializePlayer(player);
+            // Lift the broken part penalty; the base value is left to vanilla and other plugins
+            armorDamageListener.updateHealthPenalty(player, armorStatsManager.getPartHP(player));
+            // Restore health to full
+            player.setHealth(player.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue());
             // Clear existing debuffs
             player.getActivePotionEffects().forEach(effect -> player.removePotionEffect(effect.getType()));
         }, 1L);
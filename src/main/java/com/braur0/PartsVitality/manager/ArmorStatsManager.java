@@ -1,24 +1,120 @@
 package com.braur0.PartsVitality.manager;
 
 import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.model.MobPartHPTable;
 import com.braur0.PartsVitality.model.PartHP;
+import com.braur0.PartsVitality.storage.PartHPStore;
+import com.braur0.PartsVitality.task.TaskScheduler;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
 
 public class ArmorStatsManager {
 
     private final PartsVitality plugin;
     private final Map<UUID, PartHP> playerPartHP = new ConcurrentHashMap<>();
+    // Part HP of tracked mobs, sized once at startup (main thread only, or synchronized on it on region-threaded servers)
+    private final MobPartHPTable mobPartHP;
+
+    // Saved part HP loaded during pre-login, waiting for the player to finish logging in
+    private final Map<UUID, double[]> preloadedPartHP = new ConcurrentHashMap<>();
+
+    // Null when storage is disabled or could not be opened
+    private PartHPStore store;
+    private TaskScheduler.Task saveTask;
 
     public ArmorStatsManager(PartsVitality plugin) {
         this.plugin = plugin;
+        this.mobPartHP = new MobPartHPTable(plugin.getPluginConfig().maxTrackedMobs);
+    }
+
+    /**
+     * Opens the part HP storage and starts the periodic save task, if enabled in the config.
+     */
+    public void enableStorage() {
+        PluginConfig config = plugin.getPluginConfig();
+        if (!config.storageEnabled) return;
+
+        PartHPStore newStore = new PartHPStore(new File(plugin.getDataFolder(), "parthp.dat").toPath(), plugin.getLogger());
+        try {
+            newStore.open();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to open part HP storage, part HP will not be saved", e);
+            return;
+        }
+        this.store = newStore;
+        this.saveTask = plugin.getTaskScheduler().runGlobalTimer(this::saveDirty,
+                config.storageFlushIntervalTicks, config.storageFlushIntervalTicks);
+    }
+
+    /**
+     * Saves all remaining changes and closes the storage. Blocks until everything is written.
+     */
+    public void disableStorage() {
+        if (store == null) return;
+        if (saveTask != null) saveTask.cancel();
+        for (Map.Entry<UUID, PartHP> entry : playerPartHP.entrySet()) {
+            if (entry.getValue().isDirty()) {
+                store.enqueue(entry.getKey(), entry.getValue().takeSnapshot());
+            }
+        }
+        store.close();
+        store = null;
+    }
+
+    /**
+     * Queues a snapshot of every changed player for the background writer.
+     * Runs on the main thread, so reading PartHP is safe; only the copies cross threads.
+     * On region-threaded servers each player is snapshotted on their own thread and written with the next flush.
+     */
+    private void saveDirty() {
+        PartHPStore store = this.store;
+        if (store == null) return;
+        TaskScheduler scheduler = plugin.getTaskScheduler();
+        for (Map.Entry<UUID, PartHP> entry : playerPartHP.entrySet()) {
+            if (!entry.getValue().isDirty()) continue;
+            if (scheduler.isRegionThreaded()) {
+                Player player = plugin.getServer().getPlayer(entry.getKey());
+                if (player == null) continue; // Saved by unloadPlayer
+                PartHP partHP = entry.getValue();
+                scheduler.runForEntity(player, () -> {
+                    if (partHP.isDirty()) store.enqueue(player.getUniqueId(), partHP.takeSnapshot());
+                }, 1L);
+            } else {
+                store.enqueue(entry.getKey(), entry.getValue().takeSnapshot());
+            }
+        }
+        store.flushAsync();
+    }
+
+    /**
+     * Loads a player's saved part HP ahead of login. Called from the async pre-login thread.
+     */
+    public void preloadPlayer(UUID uuid) {
+        if (store == null || playerPartHP.containsKey(uuid)) return;
+        double[] values = store.load(uuid);
+        if (values != null) {
+            preloadedPartHP.put(uuid, values);
+        }
+    }
+
+    /**
+     * Drops preloaded data for a player whose login was refused.
+     */
+    public void discardPreloaded(UUID uuid) {
+        preloadedPartHP.remove(uuid);
     }
 
     public void initializePlayer(Player player) {
-        playerPartHP.put(player.getUniqueId(), new PartHP());
+        PartHP partHP = new PartHP();
+        partHP.markDirty(); // Save the reset so a restart does not bring back the old injuries
+        playerPartHP.put(player.getUniqueId(), partHP);
         plugin.getLogger().info("Initialized part HP data for " + player.getName());
     }
 
@@ -27,11 +123,32 @@ public class ArmorStatsManager {
         plugin.getLogger().info("Removed part HP data for " + player.getName());
     }
 
+    /**
+     * Saves a player's part HP and releases it from memory when they quit.
+     * Without storage the data stays in memory, so it survives a reconnect as before.
+     */
+    public void unloadPlayer(Player player) {
+        if (store == null) return;
+        PartHP partHP = playerPartHP.remove(player.getUniqueId());
+        if (partHP != null && partHP.isDirty()) {
+            store.enqueue(player.getUniqueId(), partHP.takeSnapshot());
+        }
+    }
+
     public PartHP getPartHP(Player player) {
         return playerPartHP.get(player.getUniqueId());
     }
 
     public PartHP getOrCreatePartHP(Player player) {
-        return playerPartHP.computeIfAbsent(player.getUniqueId(), k -> new PartHP());
+        return playerPartHP.computeIfAbsent(player.getUniqueId(), this::createPartHP);
+    }
+
+    private PartHP createPartHP(UUID uuid) {
+        double[] saved = preloadedPartHP.remove(uuid);
+        return saved != null ? new PartHP(saved) : new PartHP();
+    }
+
+    public MobPartHPTable getMobPartHP() {
+        return mobPartHP;
     }
 }
@@ -0,0 +1,232 @@
+package com.braur0.PartsVitality.metrics;
+
+import com.braur0.PartsVitality.config.DebuffTable;
+import com.braur0.PartsVitality.model.Part;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Appends what {@link DamageAnalytics} counted in each interval to one file per day, on a single background thread.
+ * <p>
+ * CSV files have one row per non-zero counter: {@code time,interval_seconds,kind,key,target,count,amount}.
+ * JSON files have one object per interval on each line. The oldest files beyond the limit are deleted.
+ */
+public class AnalyticsWriter {
+
+    public enum Format {
+        CSV("csv"),
+        JSON("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public static Format fromKey(String key) {
+            return key != null && key.equalsIgnoreCase("json") ? JSON : CSV;
+        }
+    }
+
+    private static final String FILE_PREFIX = "analytics-";
+    private static final String CSV_HEADER = "time,interval_seconds,kind,key,target,count,amount";
+
+    private final Path directory;
+    private final Logger logger;
+    private final Format format;
+    private final int maxFiles;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PartsVitality-Analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Only used by the writer thread: the snapshot the next interval is measured from
+    private DamageAnalytics.Snapshot previous;
+
+    /**
+     * @param start The counters when collection started; the first interval is measured from it.
+     * @param maxFiles The number of daily files kept.
+     */
+    public AnalyticsWriter(Path directory, Logger logger, Format format, int maxFiles, DamageAnalytics.Snapshot start) {
+        this.directory = directory;
+        this.logger = logger;
+        this.format = format;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.previous = start;
+    }
+
+    /**
+     * Writes the interval ending at a snapshot on the background thread.
+     */
+    public void writeAsync(DamageAnalytics.Snapshot snapshot) {
+        writer.execute(() -> writeSafely(snapshot));
+    }
+
+    /**
+     * Writes the last interval and stops the background thread.
+     */
+    public void close(DamageAnalytics.Snapshot snapshot) {
+        writeAsync(snapshot);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for the analytics thread to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeSafely(DamageAnalytics.Snapshot snapshot) {
+        DamageAnalytics.Snapshot interval = snapshot.since(previous);
+        double seconds = (snapshot.timeMillis() - previous.timeMillis()) / 1000.0;
+        previous = snapshot;
+        try {
+            write(interval, seconds);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write damage analytics", e);
+        }
+    }
+
+    private void write(DamageAnalytics.Snapshot interval, double seconds) throws IOException {
+        Files.createDirectories(directory);
+        LocalDate day = Instant.ofEpochMilli(interval.timeMillis()).atZone(ZoneId.systemDefault()).toLocalDate();
+        Path file = directory.resolve(FILE_PREFIX + day + "." + format.extension);
+        boolean newFile = !Files.exists(file);
+
+        String time = Instant.ofEpochMilli(interval.timeMillis()).toString();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (format == Format.JSON) {
+                out.write(toJson(interval, time, seconds));
+                out.newLine();
+            } else {
+                if (newFile) {
+                    out.write(CSV_HEADER);
+                    out.newLine();
+                }
+                writeCsv(out, interval, time + "," + String.format(Locale.ROOT, "%.1f", seconds));
+            }
+        }
+
+        if (newFile) {
+            List<Path> files = listFiles();
+            for (int i = 0; i < files.size() - maxFiles; i++) {
+                Files.deleteIfExists(files.get(i));
+            }
+        }
+    }
+
+    private static void writeCsv(BufferedWriter out, DamageAnalytics.Snapshot interval, String prefix) throws IOException {
+        for (int cause = 0; cause < DamageAnalytics.CAUSES.length; cause++) {
+            for (Part part : Part.VALUES) {
+                int index = cause * Part.COUNT + part.ordinal();
+                String key = DamageAnalytics.CAUSES[cause].name();
+                if (interval.hits()[index] != 0) {
+                    csvRow(out, prefix, "damage", key, part.getKey(), interval.hits()[index], interval.damage()[index]);
+                }
+                if (interval.breaks()[index] != 0) {
+                    csvRow(out, prefix, "break", key, part.getKey(), interval.breaks()[index], 0);
+                }
+            }
+        }
+        for (int cause = 0; cause < DamageAnalytics.HEAL_CAUSES.length; cause++) {
+            for (Part part : Part.VALUES) {
+                int index = cause * Part.COUNT + part.ordinal();
+                if (interval.treatments()[index] == 0 && interval.healed()[index] == 0) continue;
+                csvRow(out, prefix, "heal", DamageAnalytics.HEAL_CAUSES[cause].name(), part.getKey(),
+                        interval.treatments()[index], interval.healed()[index]);
+            }
+        }
+        for (int group = 0; group < DebuffTable.GROUP_COUNT; group++) {
+            for (int tier = 0; tier < DamageAnalytics.TIER_SLOTS; tier++) {
+                long ticks = interval.tierTicks()[group * DamageAnalytics.TIER_SLOTS + tier];
+                if (ticks == 0) continue;
+                // The amount is the same time in seconds
+                csvRow(out, prefix, "debuff", DebuffTable.getGroupKey(group), "tier-" + tier, ticks, ticks / 20.0);
+            }
+        }
+    }
+
+    private static void csvRow(BufferedWriter out, String prefix, String kind, String key, String target, long count, double amount) throws IOException {
+        out.write(String.format(Locale.ROOT, "%s,%s,%s,%s,%d,%.3f", prefix, kind, key, target, count, amount));
+        out.newLine();
+    }
+
+    private static String toJson(DamageAnalytics.Snapshot interval, String time, double seconds) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"time\":\"").append(time).append("\",\"interval_seconds\":")
+                .append(String.format(Locale.ROOT, "%.1f", seconds));
+
+        json.append(",\"damage\":[");
+        boolean first = true;
+        for (int cause = 0; cause < DamageAnalytics.CAUSES.length; cause++) {
+            for (Part part : Part.VALUES) {
+                int index = cause * Part.COUNT + part.ordinal();
+                if (interval.hits()[index] == 0) continue;
+                if (!first) json.append(',');
+                first = false;
+                json.append(String.format(Locale.ROOT, "{\"cause\":\"%s\",\"part\":\"%s\",\"hits\":%d,\"hp\":%.3f,\"breaks\":%d}",
+                        DamageAnalytics.CAUSES[cause].name(), part.getKey(), interval.hits()[index],
+                        interval.damage()[index], interval.breaks()[index]));
+            }
+        }
+
+        json.append("],\"heals\":[");
+        first = true;
+        for (int cause = 0; cause < DamageAnalytics.HEAL_CAUSES.length; cause++) {
+            for (Part part : Part.VALUES) {
+                int index = cause * Part.COUNT + part.ordinal();
+                if (interval.treatments()[index] == 0 && interval.healed()[index] == 0) continue;
+                if (!first) json.append(',');
+                first = false;
+                json.append(String.format(Locale.ROOT, "{\"cause\":\"%s\",\"part\":\"%s\",\"treatments\":%d,\"hp\":%.3f}",
+                        DamageAnalytics.HEAL_CAUSES[cause].name(), part.getKey(), interval.treatments()[index], interval.healed()[index]));
+            }
+        }
+
+        json.append("],\"debuff_ticks\":{");
+        for (int group = 0; group < DebuffTable.GROUP_COUNT; group++) {
+            if (group > 0) json.append(',');
+            json.append('"').append(DebuffTable.getGroupKey(group)).append("\":[");
+            for (int tier = 0; tier < DamageAnalytics.TIER_SLOTS; tier++) {
+                if (tier > 0) json.append(',');
+                json.append(interval.tierTicks()[group * DamageAnalytics.TIER_SLOTS + tier]);
+            }
+            json.append(']');
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * @return The analytics files in the directory, oldest first.
+     */
+    private List<Path> listFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*." + format.extension)) {
+            for (Path file : stream) files.add(file);
+        }
+        // The names end with the date
+        Collections.sort(files);
+        return files;
+    }
+}
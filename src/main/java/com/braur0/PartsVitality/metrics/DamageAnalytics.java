@@ -0,0 +1,127 @@
+package com.braur0.PartsVitality.metrics;
+
+import com.braur0.PartsVitality.api.event.PartHealedEvent;
+import com.braur0.PartsVitality.damage.DebuffTiers;
+import com.braur0.PartsVitality.model.Part;
+import org.bukkit.event.entity.EntityDamageEvent;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What happens to players' parts over time: damage by cause and part, part breaks, treatments and healed HP,
+ * and the time spent in each debuff tier.
+ * <p>
+ * Every counter is a striped adder in a flat array allocated up front, so recording is an index computation and
+ * an add from any thread. Counters are cumulative; {@link #snapshot()} reads them all for {@link AnalyticsWriter}.
+ */
+public final class DamageAnalytics {
+
+    /** Debuff tiers counted separately per group; deeper tiers are counted in the last one. */
+    public static final int TIER_SLOTS = 8;
+
+    static final EntityDamageEvent.DamageCause[] CAUSES = EntityDamageEvent.DamageCause.values();
+    static final PartHealedEvent.Cause[] HEAL_CAUSES = PartHealedEvent.Cause.values();
+
+    // Indexed by [cause * Part.COUNT + part]
+    private final LongAdder[] hits = adders(CAUSES.length * Part.COUNT);
+    private final DoubleAdder[] damage = doubleAdders(CAUSES.length * Part.COUNT);
+    private final LongAdder[] breaks = adders(CAUSES.length * Part.COUNT);
+    // Indexed by [heal cause * Part.COUNT + part]: completed treatments, and HP restored
+    private final LongAdder[] treatments = adders(HEAL_CAUSES.length * Part.COUNT);
+    private final DoubleAdder[] healed = doubleAdders(HEAL_CAUSES.length * Part.COUNT);
+    // Indexed by [group * TIER_SLOTS + tier]: player ticks spent in each tier
+    private final LongAdder[] tierTicks = adders(DebuffTiers.GROUP_COUNT * TIER_SLOTS);
+
+    /**
+     * Counts damage dealt to one part.
+     * @param damage The part HP lost.
+     * @param broke Whether the hit took the part to 0 HP.
+     */
+    public void recordDamage(EntityDamageEvent.DamageCause cause, Part part, double damage, boolean broke) {
+        int index = cause.ordinal() * Part.COUNT + part.ordinal();
+        hits[index].increment();
+        this.damage[index].add(damage);
+        if (broke) breaks[index].increment();
+    }
+
+    /**
+     * Counts HP restored to one part. Healing over time and regeneration record every step.
+     */
+    public void recordHealed(PartHealedEvent.Cause cause, Part part, double amount) {
+        healed[cause.ordinal() * Part.COUNT + part.ordinal()].add(amount);
+    }
+
+    /**
+     * Counts a completed healing or surgery.
+     */
+    public void recordTreatment(PartHealedEvent.Cause cause, Part part) {
+        treatments[cause.ordinal() * Part.COUNT + part.ordinal()].increment();
+    }
+
+    /**
+     * Counts ticks a player spent in a debuff tier.
+     */
+    public void recordTier(int group, int tier, long ticks) {
+        tierTicks[group * TIER_SLOTS + Math.min(tier, TIER_SLOTS - 1)].add(ticks);
+    }
+
+    /**
+     * Reads every counter. Updates made while reading land in this snapshot or the next one.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(System.currentTimeMillis(), sums(hits), sums(damage), sums(breaks),
+                sums(treatments), sums(healed), sums(tierTicks));
+    }
+
+    /**
+     * The counters at one point in time, laid out like the live arrays.
+     */
+    public record Snapshot(long timeMillis, long[] hits, double[] damage, long[] breaks,
+                           long[] treatments, double[] healed, long[] tierTicks) {
+
+        /**
+         * @return What was counted between an earlier snapshot and this one.
+         */
+        public Snapshot since(Snapshot earlier) {
+            return new Snapshot(timeMillis, minus(hits, earlier.hits), minus(damage, earlier.damage), minus(breaks, earlier.breaks),
+                    minus(treatments, earlier.treatments), minus(healed, earlier.healed), minus(tierTicks, earlier.tierTicks));
+        }
+    }
+
+    private static LongAdder[] adders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    private static DoubleAdder[] doubleAdders(int size) {
+        DoubleAdder[] adders = new DoubleAdder[size];
+        for (int i = 0; i < size; i++) adders[i] = new DoubleAdder();
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders) {
+        long[] sums = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) sums[i] = adders[i].sum();
+        return sums;
+    }
+
+    private static double[] sums(DoubleAdder[] adders) {
+        double[] sums = new double[adders.length];
+        for (int i = 0; i < adders.length; i++) sums[i] = adders[i].sum();
+        return sums;
+    }
+
+    private static long[] minus(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        for (int i = 0; i < a.length; i++) result[i] = a[i] - b[i];
+        return result;
+    }
+
+    private static double[] minus(double[] a, double[] b) {
+        double[] result = new double[a.length];
+        for (int i = 0; i < a.length; i++) result[i] = a[i] - b[i];
+        return result;
+    }
+}
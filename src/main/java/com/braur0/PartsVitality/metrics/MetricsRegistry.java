@@ -0,0 +1,133 @@
+package com.braur0.PartsVitality.metrics;
+
+import org.bukkit.event.entity.EntityDamageEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the plugin's time goes: latency histograms for the hot handlers and counters for hit detection
+ * and damage causes. Everything is recorded with striped adders, so recording is cheap from any thread.
+ */
+public final class MetricsRegistry {
+
+    public final LatencyHistogram damageHandler = new LatencyHistogram("onPlayerDamage");
+    public final LatencyHistogram hitLocation = new LatencyHistogram("getHitY");
+    public final LatencyHistogram damageFlush = new LatencyHistogram("onTickEnd (damage flush)");
+    public final LatencyHistogram debuffUpdate = new LatencyHistogram("updateDebuffs");
+    public final LatencyHistogram armorDisplay = new LatencyHistogram("updateArmorDisplay");
+    public final LatencyHistogram displayClick = new LatencyHistogram("onInventoryClick (display toggle)");
+    public final LatencyHistogram treatmentClick = new LatencyHistogram("onInventoryClick (treatment)");
+    public final LatencyHistogram regeneration = new LatencyHistogram("regeneration slice");
+
+    // Hits whose entry point on the hitbox was found / not found
+    public final LongAdder hitsLocated = new LongAdder();
+    public final LongAdder hitsMissed = new LongAdder();
+    // Projectile hits located from the impact recorded by ProjectileHitEvent, without a ray trace
+    public final LongAdder projectileImpacts = new LongAdder();
+    // Located damage that had to be spread over all parts because its location was unknown
+    public final LongAdder allPartsFallbacks = new LongAdder();
+    // Explosions that damaged players, and the players they damaged
+    public final LongAdder explosions = new LongAdder();
+    public final LongAdder explosionVictims = new LongAdder();
+    // Mob hits left to vanilla because the mob table was full
+    public final LongAdder untrackedMobs = new LongAdder();
+    // Players visited by passive regeneration, and ticks whose slice ran out of budget and carried players over
+    public final LongAdder regenVisits = new LongAdder();
+    public final LongAdder regenCarryOvers = new LongAdder();
+    // Damage events the journal dropped because its ring buffer was full
+    public final LongAdder journalDropped = new LongAdder();
+
+    private final EntityDamageEvent.DamageCause[] causes = EntityDamageEvent.DamageCause.values();
+    private final LongAdder[] eventsByCause = new LongAdder[causes.length];
+    private final DoubleAdder[] damageByCause = new DoubleAdder[causes.length];
+
+    private volatile long startNanos = System.nanoTime();
+
+    public MetricsRegistry() {
+        for (int i = 0; i < causes.length; i++) {
+            eventsByCause[i] = new LongAdder();
+            damageByCause[i] = new DoubleAdder();
+        }
+    }
+
+    public List<LatencyHistogram> getHistograms() {
+        return List.of(damageHandler, hitLocation, damageFlush, debuffUpdate, armorDisplay, displayClick, treatmentClick, regeneration);
+    }
+
+    public void recordDamage(EntityDamageEvent.DamageCause cause, double damage) {
+        eventsByCause[cause.ordinal()].increment();
+        damageByCause[cause.ordinal()].add(damage);
+    }
+
+    /**
+     * Clears every metric and restarts the rate window.
+     */
+    public void reset() {
+        for (LatencyHistogram histogram : getHistograms()) histogram.reset();
+        hitsLocated.reset();
+        hitsMissed.reset();
+        projectileImpacts.reset();
+        allPartsFallbacks.reset();
+        explosions.reset();
+        explosionVictims.reset();
+        untrackedMobs.reset();
+        regenVisits.reset();
+        regenCarryOvers.reset();
+        journalDropped.reset();
+        for (int i = 0; i < causes.length; i++) {
+            eventsByCause[i].reset();
+            damageByCause[i].reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Formats every metric as plain text lines.
+     * @param extraLines Additional lines to append (e.g. counters kept elsewhere).
+     */
+    public List<String> report(List<String> extraLines) {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1e9);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Window: %.1f s", seconds));
+
+        for (LatencyHistogram histogram : getHistograms()) {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.count() == 0) {
+                lines.add(snapshot.name() + ": no calls");
+                continue;
+            }
+            lines.add(String.format(Locale.ROOT, "%s: n=%d (%.1f/s) p50=%s p99=%s max=%s total=%.1f ms/s",
+                    snapshot.name(), snapshot.count(), snapshot.count() / seconds,
+                    formatNanos(snapshot.percentile(0.50)), formatNanos(snapshot.percentile(0.99)),
+                    formatNanos(snapshot.maxNanos()), snapshot.totalNanos() / 1e6 / seconds));
+        }
+
+        long located = hitsLocated.sum();
+        long missed = hitsMissed.sum();
+        lines.add(String.format(Locale.ROOT, "Hit location: %d found (%d from projectile impacts), %d missed, %d all-parts fallbacks",
+                located, projectileImpacts.sum(), missed, allPartsFallbacks.sum()));
+        lines.add(String.format(Locale.ROOT, "Explosions: %d blasts, %d victims hit",
+                explosions.sum(), explosionVictims.sum()));
+        lines.add(String.format(Locale.ROOT, "Regeneration: %d players visited, %d ticks over budget",
+                regenVisits.sum(), regenCarryOvers.sum()));
+
+        for (int i = 0; i < causes.length; i++) {
+            long events = eventsByCause[i].sum();
+            if (events == 0) continue;
+            lines.add(String.format(Locale.ROOT, "Damage %s: %d events (%.2f/s), %.1f hearts",
+                    causes[i].name(), events, events / seconds, damageByCause[i].sum()));
+        }
+        lines.addAll(extraLines);
+        return lines;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,207 @@
+package com.braur0.PartsVitality.model;
+
+import com.braur0.PartsVitality.damage.DebuffTiers;
+
+import java.util.Arrays;
+
+/**
+ * Part HP of mobs, keyed by entity id.
+ * <p>
+ * Mobs can number in the tens of thousands, so instead of an object per mob the entries live in flat
+ * primitive arrays: an open-addressing hash table (linear probing) of entity ids, with each slot's part HP
+ * and applied debuff tiers stored at the same index in parallel arrays. The table grows by doubling up to
+ * a fixed number of entries; once full, further mobs are simply not tracked.
+ * <p>
+ * Main thread only; on region-threaded servers, callers synchronize on the table.
+ */
+public final class MobPartHPTable {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+    // The table doubles before more than half of its slots are used, which keeps probe sequences short
+    private static final double MAX_LOAD = 0.5;
+
+    /** Bytes used by one slot: the entity id, a float per part and a byte per debuff group. */
+    public static final int BYTES_PER_SLOT = Integer.BYTES + Part.COUNT * Float.BYTES + DebuffTiers.GROUP_COUNT;
+
+    private final int maxEntries;
+    private int[] entityIds;
+    // Part HP of slot i at [i * Part.COUNT + part ordinal]
+    private float[] partHP;
+    // Applied debuff tier of slot i at [i * GROUP_COUNT + group]
+    private byte[] debuffTiers;
+    private int mask;
+    private int size;
+
+    /**
+     * @param maxEntries The most mobs tracked at once.
+     */
+    public MobPartHPTable(int maxEntries) {
+        this.maxEntries = Math.max(0, maxEntries);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        entityIds = new int[capacity];
+        Arrays.fill(entityIds, EMPTY);
+        partHP = new float[capacity * Part.COUNT];
+        debuffTiers = new byte[capacity * DebuffTiers.GROUP_COUNT];
+        mask = capacity - 1;
+    }
+
+    private static int hash(int entityId) {
+        int h = entityId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return The slot of the mob, or -1 if it is not tracked.
+     */
+    public int find(int entityId) {
+        for (int slot = hash(entityId) & mask; ; slot = (slot + 1) & mask) {
+            int id = entityIds[slot];
+            if (id == entityId) return slot;
+            if (id == EMPTY) return -1;
+        }
+    }
+
+    /**
+     * Finds the mob, or starts tracking it at full HP.
+     * @param maxHP The max HP of every part, indexed by Part ordinal.
+     * @return The slot of the mob, or -1 if the table is full.
+     */
+    public int getOrCreate(int entityId, double[] maxHP) {
+        int slot = find(entityId);
+        if (slot >= 0) return slot;
+        if (size >= maxEntries) return -1;
+
+        if (size + 1 > entityIds.length * MAX_LOAD) {
+            grow();
+        }
+        slot = hash(entityId) & mask;
+        while (entityIds[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        entityIds[slot] = entityId;
+        for (int i = 0; i < Part.COUNT; i++) {
+            partHP[slot * Part.COUNT + i] = (float) maxHP[i];
+        }
+        Arrays.fill(debuffTiers, slot * DebuffTiers.GROUP_COUNT, (slot + 1) * DebuffTiers.GROUP_COUNT, (byte) DebuffTiers.TIER_NONE);
+        size++;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldIds = entityIds;
+        float[] oldHP = partHP;
+        byte[] oldTiers = debuffTiers;
+        allocate(oldIds.length * 2);
+        for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+            int id = oldIds[oldSlot];
+            if (id == EMPTY) continue;
+            int slot = hash(id) & mask;
+            while (entityIds[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            moveSlot(oldIds, oldHP, oldTiers, oldSlot, slot);
+        }
+    }
+
+    private void moveSlot(int[] fromIds, float[] fromHP, byte[] fromTiers, int from, int to) {
+        entityIds[to] = fromIds[from];
+        System.arraycopy(fromHP, from * Part.COUNT, partHP, to * Part.COUNT, Part.COUNT);
+        System.arraycopy(fromTiers, from * DebuffTiers.GROUP_COUNT, debuffTiers, to * DebuffTiers.GROUP_COUNT, DebuffTiers.GROUP_COUNT);
+    }
+
+    /**
+     * Stops tracking the mob.
+     * @return Whether it was tracked.
+     */
+    public boolean remove(int entityId) {
+        int slot = find(entityId);
+        if (slot < 0) return false;
+
+        // Shift later entries of the probe sequence back into the gap, so lookups never need tombstones
+        int gap = slot;
+        for (int next = (gap + 1) & mask; entityIds[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(entityIds[next]) & mask;
+            // Move the entry if its home slot is not cyclically within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                moveSlot(entityIds, partHP, debuffTiers, next, gap);
+                gap = next;
+            }
+        }
+        entityIds[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    public double getPartHP(int slot, Part part) {
+        return partHP[slot * Part.COUNT + part.ordinal()];
+    }
+
+    /**
+     * Copies the part HP of a slot into an array indexed by Part ordinal.
+     */
+    public void copyPartHP(int slot, double[] target) {
+        for (int i = 0; i < Part.COUNT; i++) {
+            target[i] = partHP[slot * Part.COUNT + i];
+        }
+    }
+
+    /**
+     * Overwrites the part HP of a slot from an array indexed by Part ordinal.
+     */
+    public void setPartHP(int slot, double[] values) {
+        for (int i = 0; i < Part.COUNT; i++) {
+            partHP[slot * Part.COUNT + i] = (float) values[i];
+        }
+    }
+
+    /**
+     * @return The debuff tier last applied to the mob for a group, or PartHP.DEBUFF_TIER_UNKNOWN.
+     */
+    public int getDebuffTier(int slot, int group) {
+        return debuffTiers[slot * DebuffTiers.GROUP_COUNT + group];
+    }
+
+    public void setDebuffTier(int slot, int group, int tier) {
+        debuffTiers[slot * DebuffTiers.GROUP_COUNT + group] = (byte) tier;
+    }
+
+    /**
+     * Brings every tracked mob in line with a new config: part HP is capped at the new max HP, and the applied
+     * debuff tiers become unknown, since they were applied from the old debuff table.
+     * @param maxHP The new max HP of every part, indexed by Part ordinal.
+     */
+    public void reconfigure(double[] maxHP) {
+        for (int slot = 0; slot < entityIds.length; slot++) {
+            if (entityIds[slot] == EMPTY) continue;
+            for (int i = 0; i < Part.COUNT; i++) {
+                int index = slot * Part.COUNT + i;
+                partHP[index] = Math.min(partHP[index], (float) maxHP[i]);
+            }
+        }
+        Arrays.fill(debuffTiers, (byte) PartHP.DEBUFF_TIER_UNKNOWN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return The memory held by the table's arrays, in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) entityIds.length * BYTES_PER_SLOT;
+    }
+}
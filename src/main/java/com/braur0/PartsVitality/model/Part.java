@@ -0,0 +1,66 @@
+package com.braur0.PartsVitality.model;
+
+/**
+ * The body parts tracked by PartHP.
+ * The ordinal is used as an index into per-part arrays, and {@link #bit()} as a flag in part bitmasks.
+ */
+public enum Part {
+
+    HEAD("head", 39),   // Helmet slot
+    CHEST("chest", 38), // Chestplate slot
+    LEGS("legs", 37),   // Leggings slot
+    FEET("feet", 36);   // Boots slot
+
+    /** Cached copy of values() to avoid cloning the array on every iteration. */
+    public static final Part[] VALUES = values();
+    public static final int COUNT = VALUES.length;
+    /** A bitmask with every part set. */
+    public static final int ALL_MASK = (1 << COUNT) - 1;
+
+    private final String key;
+    private final int armorSlot;
+
+    Part(String key, int armorSlot) {
+        this.key = key;
+        this.armorSlot = armorSlot;
+    }
+
+    /**
+     * @return The lowercase name used in config.yml and by the String-based API.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The player inventory slot number of the armor piece covering this part.
+     */
+    public int getArmorSlot() {
+        return armorSlot;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static Part fromKey(String key) {
+        if (key == null) return null;
+        return switch (key.toLowerCase()) {
+            case "head" -> HEAD;
+            case "chest" -> CHEST;
+            case "legs" -> LEGS;
+            case "feet" -> FEET;
+            default -> null;
+        };
+    }
+
+    public static Part fromArmorSlot(int slot) {
+        return switch (slot) {
+            case 39 -> HEAD;
+            case 38 -> CHEST;
+            case 37 -> LEGS;
+            case 36 -> FEET;
+            default -> null;
+        };
+    }
+}
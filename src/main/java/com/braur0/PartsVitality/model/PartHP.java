@@ -1,19 +1,16 @@
 package com.braur0.PartsVitality.model;
 
-import org.bukkit.configuration.file.FileConfiguration;
+import com.braur0.PartsVitality.config.DebuffTable;
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.display.ArmorDisplay;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.Damageable;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.inventory.EquipmentSlot;
-import org.bukkit.enchantments.Enchantment;
-import org.bukkit.inventory.ItemFlag;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class PartHP {
 
@@ -23,66 +20,259 @@ public class PartHP {
     public static final String FEET = "feet";
     public static final List<String> ALL_PARTS = Arrays.asList(HEAD, CHEST, LEGS, FEET);
 
-    private static FileConfiguration config;
+    private static volatile PluginConfig config;
+    // Null until the plugin is enabled (and in headless use)
+    private static volatile MetricsRegistry metrics;
 
-    // A map to temporarily store original durability values when displaying part HP
-    private final transient Map<Integer, Integer> originalDamageMap = new HashMap<>();
+    // Marks a debuff group whose applied effect is not known
+    public static final int DEBUFF_TIER_UNKNOWN = -1;
+    // Marks a tick that never happened
+    public static final int TICK_UNSET = Integer.MIN_VALUE;
 
-    private final Map<String, Double> partHPMap = new ConcurrentHashMap<>();
+    // What the player's armor currently shows, and its real durability while it shows part HP.
+    // Allocated only when the display is first updated.
+    private transient ArmorDisplay armorDisplay;
+    private transient double[] displayRatios;
+
+    private final double[] partHP = new double[Part.COUNT];
+    // Kept up to date by setPartHP so hot paths never need to re-scan the parts
+    private double totalHP;
+    private int brokenMask;
+    // Set whenever part HP changes, cleared once the values have been queued for saving
+    private boolean dirty;
+
+    // The debuff tier currently applied to the player for each debuff group, and the table they were resolved against
+    private final int[] debuffTiers = new int[DebuffTable.GROUP_COUNT];
+    private DebuffTable debuffTable;
+    // The max health penalty currently applied to the player, NaN if not known
+    private double appliedHealthPenalty = Double.NaN;
+    // Server ticks of the last damage and the last passive regeneration, TICK_UNSET if none
+    private int lastDamageTick = TICK_UNSET;
+    private int lastRegenTick = TICK_UNSET;
 
     public PartHP() {
         // Set initial HP
-        partHPMap.put(HEAD, getMaxHPPerPart(HEAD));
-        partHPMap.put(CHEST, getMaxHPPerPart(CHEST));
-        partHPMap.put(LEGS, getMaxHPPerPart(LEGS));
-        partHPMap.put(FEET, getMaxHPPerPart(FEET));
+        for (Part part : Part.VALUES) {
+            partHP[part.ordinal()] = getMaxHPPerPart(part);
+            totalHP += partHP[part.ordinal()];
+        }
+        refreshBrokenMask();
+    }
+
+    /**
+     * Creates part HP from saved values.
+     * @param values The HP of every part, indexed by Part ordinal.
+     */
+    public PartHP(double[] values) {
+        for (Part part : Part.VALUES) {
+            partHP[part.ordinal()] = Math.max(0, Math.min(getMaxHPPerPart(part), values[part.ordinal()]));
+            totalHP += partHP[part.ordinal()];
+        }
+        refreshBrokenMask();
+    }
+
+    public double getPartHP(Part part) {
+        return partHP[part.ordinal()];
+    }
+
+    public void setPartHP(Part part, double hp) {
+        int index = part.ordinal();
+        double newHP = Math.max(0, Math.min(getMaxHPPerPart(part), hp));
+        totalHP += newHP - partHP[index];
+        partHP[index] = newHP;
+        dirty = true;
+        if (newHP <= 0) {
+            brokenMask |= part.bit();
+        } else {
+            brokenMask &= ~part.bit();
+        }
+    }
+
+    /**
+     * @return The sum of the HP of all parts.
+     */
+    public double getTotalHP() {
+        return totalHP;
+    }
+
+    /**
+     * @return A bitmask of the parts with 0 HP (see {@link Part#bit()}).
+     */
+    public int getBrokenMask() {
+        return brokenMask;
+    }
+
+    public int getBrokenPartCount() {
+        return Integer.bitCount(brokenMask);
+    }
+
+    public boolean isBroken(Part part) {
+        return (brokenMask & part.bit()) != 0;
+    }
+
+    private void refreshBrokenMask() {
+        brokenMask = 0;
+        for (Part part : Part.VALUES) {
+            if (partHP[part.ordinal()] <= 0) brokenMask |= part.bit();
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Copies the HP of every part without touching the dirty flag.
+     * @param target Receives the HP, indexed by Part ordinal.
+     */
+    public void copyPartHP(double[] target) {
+        System.arraycopy(partHP, 0, target, 0, Part.COUNT);
+    }
+
+    /**
+     * Copies the HP of every part and clears the dirty flag.
+     * @return A new array indexed by Part ordinal.
+     */
+    public double[] takeSnapshot() {
+        dirty = false;
+        return partHP.clone();
     }
 
+    /**
+     * @param table The debuff table in use. Tiers applied from another table (before a reload) are not known in this one.
+     * @return The debuff tier last applied for a group, or DEBUFF_TIER_UNKNOWN.
+     */
+    public int getDebuffTier(DebuffTable table, int group) {
+        return table == debuffTable ? debuffTiers[group] : DEBUFF_TIER_UNKNOWN;
+    }
+
+    /**
+     * Records the tier applied for a group. Recording a tier from another table forgets the other groups' tiers.
+     */
+    public void setDebuffTier(DebuffTable table, int group, int tier) {
+        if (table != debuffTable) {
+            Arrays.fill(debuffTiers, DEBUFF_TIER_UNKNOWN);
+            debuffTable = table;
+        }
+        debuffTiers[group] = tier;
+    }
+
+    /**
+     * Forgets the applied debuff tiers, so the next update re-applies every debuff from scratch.
+     * Used when the player's potion effects may have been changed by something else.
+     */
+    public void resetDebuffTiers() {
+        Arrays.fill(debuffTiers, DEBUFF_TIER_UNKNOWN);
+    }
+
+    /**
+     * @return The max health penalty last applied, or NaN if not known.
+     */
+    public double getAppliedHealthPenalty() {
+        return appliedHealthPenalty;
+    }
+
+    public void setAppliedHealthPenalty(double penalty) {
+        this.appliedHealthPenalty = penalty;
+    }
+
+    /**
+     * Forgets the applied max health penalty, so the next update checks the player's attribute again.
+     */
+    public void resetHealthPenalty() {
+        appliedHealthPenalty = Double.NaN;
+    }
+
+    public int getLastDamageTick() {
+        return lastDamageTick;
+    }
+
+    public void setLastDamageTick(int tick) {
+        this.lastDamageTick = tick;
+    }
+
+    /**
+     * @return The tick passive regeneration last visited this player, or TICK_UNSET.
+     */
+    public int getLastRegenTick() {
+        return lastRegenTick;
+    }
+
+    public void setLastRegenTick(int tick) {
+        this.lastRegenTick = tick;
+    }
+
+    // --- String-based API, kept for compatibility ---
+
     public double getPartHP(String part) {
-        return partHPMap.getOrDefault(part, 0.0);
+        Part p = Part.fromKey(part);
+        return p != null ? getPartHP(p) : 0.0;
     }
 
     public void setPartHP(String part, double hp) {
-        partHPMap.put(part, Math.max(0, Math.min(getMaxHPPerPart(part), hp)));
+        Part p = Part.fromKey(part);
+        if (p != null) setPartHP(p, hp);
     }
 
+    /**
+     * @return A snapshot of the part HP keyed by part name.
+     */
     public Map<String, Double> getPartHPMap() {
-        return partHPMap;
+        Map<String, Double> map = new LinkedHashMap<>();
+        for (Part part : Part.VALUES) {
+            map.put(part.getKey(), getPartHP(part));
+        }
+        return map;
     }
 
-    public static void loadConfig(FileConfiguration configuration) {
+    public static void loadConfig(PluginConfig configuration) {
         config = configuration;
     }
 
+    public static void setMetrics(MetricsRegistry registry) {
+        metrics = registry;
+    }
+
     public static double getMaxHPPerPart(String part) {
-        return config.getDouble("parts." + part.toLowerCase() + ".max-hp", 20.0);
+        Part p = Part.fromKey(part);
+        return p != null ? getMaxHPPerPart(p) : 20.0;
     }
 
-    public static String getPartNameFromArmorSlot(int slot) {
-        return switch (slot) {
-            case 39 -> HEAD;  // Helmet slot
-            case 38 -> CHEST; // Chestplate slot
-            case 37 -> LEGS;  // Leggings slot
-            case 36 -> FEET;  // Boots slot
-            default -> null;
-        };
+    public static double getMaxHPPerPart(Part part) {
+        return config.getMaxHP(part);
     }
 
-    private String getPartNameFromEquipmentSlot(EquipmentSlot equipmentSlot) {
-        return switch (equipmentSlot) {
-            case HEAD -> HEAD;
-            case CHEST -> CHEST;
-            case LEGS -> LEGS;
-            case FEET -> FEET;
-            default -> null;
-        };
+    /**
+     * @return The sum of the max HP of all parts.
+     */
+    public static double getTotalMaxHP() {
+        return config.totalMaxHP;
+    }
+
+    /**
+     * Clamps every part to its current max HP, e.g. after a reload lowered it.
+     */
+    public void clampToMaxHP() {
+        for (Part part : Part.VALUES) {
+            setPartHP(part, getPartHP(part));
+        }
+    }
+
+    public static String getPartNameFromArmorSlot(int slot) {
+        Part part = Part.fromArmorSlot(slot);
+        return part != null ? part.getKey() : null;
     }
 
     public List<String> getRemainingParts() {
-        return partHPMap.entrySet().stream()
-                .filter(entry -> entry.getValue() > 0)
-                .map(Map.Entry::getKey)
-                .toList();
+        List<String> remaining = new ArrayList<>(Part.COUNT);
+        for (Part part : Part.VALUES) {
+            if (!isBroken(part)) remaining.add(part.getKey());
+        }
+        return remaining;
     }
 
     /**
@@ -92,71 +282,39 @@ public class PartHP {
      * @param clickedSlot The slot number that was clicked.
      */
     public void updateArmorDisplay(Player player, boolean showPartHP, int clickedSlot) {
-        // Iterate over armor slots directly to ensure changes are applied.
-        // Using getArmorContents() returns a copy, so modifications won't be saved.
-        for (EquipmentSlot equipmentSlot : List.of(EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET)) {
-            ItemStack armor = player.getInventory().getItem(equipmentSlot);
-            int inventoryArrayIndex = getInventoryArrayIndex(equipmentSlot);
-
-            if (armor == null || armor.getType().isAir()) continue;
-
-            ItemMeta meta = armor.getItemMeta();
-            if (!(meta instanceof Damageable damageable)) continue;
-
-            if (showPartHP) {
-                // Store the original durability
-                originalDamageMap.putIfAbsent(inventoryArrayIndex, damageable.getDamage());
-
-                // Convert part HP to a durability bar
-                String partName = getPartNameFromEquipmentSlot(equipmentSlot);
-                if (partName == null) continue;
-
-                double current = getPartHP(partName);
-                double max = getMaxHPPerPart(partName);
-                double hpRatio = (max > 0) ? current / max : 0.0;
-
-                int maxDurability = armor.getType().getMaxDurability();
-                int displayDamage = (int) (maxDurability * (1.0 - hpRatio));
-
-                damageable.setDamage(displayDamage);
-
-                // Manually convert to slot number as EquipmentSlot.getSlot() is not available in 1.20.1
-                int currentArmorSlot = switch (equipmentSlot) {
-                    case HEAD -> 39;
-                    case CHEST -> 38;
-                    case LEGS -> 37;
-                    case FEET -> 36;
-                    default -> -1;
-                };
-
-                if (currentArmorSlot == clickedSlot) {
-                    meta.addEnchant(Enchantment.DURABILITY, 1, true);
-                    meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
-                } else {
-                    meta.removeEnchant(Enchantment.DURABILITY);
-                }
-
-            } else {
-                // Revert to the saved original durability
-                Integer originalDamage = originalDamageMap.get(inventoryArrayIndex);
-                if (originalDamage != null) damageable.setDamage(originalDamage);
-                // Remove all enchantments
-                meta.removeEnchant(Enchantment.DURABILITY);
-            }
-            armor.setItemMeta(meta);
-            // Set the modified item back to the slot
-            player.getInventory().setItem(equipmentSlot, armor);
+        Part clickedPart = Part.fromArmorSlot(clickedSlot);
+        updateArmorDisplayWithGlow(player, showPartHP, clickedPart != null ? clickedPart.bit() : 0);
+    }
+
+    /**
+     * Updates the display of the player's armor (Durability or Part HP).
+     * Only armor pieces whose visible state changed are rewritten.
+     * @param player The target player.
+     * @param showPartHP Whether to show part HP.
+     * @param glowMask A bitmask of the parts whose armor should glow (see {@link Part#bit()}).
+     */
+    public void updateArmorDisplayWithGlow(Player player, boolean showPartHP, int glowMask) {
+        long start = System.nanoTime();
+        if (armorDisplay == null) {
+            if (!showPartHP) return; // Never changed, so already showing durability
+            armorDisplay = new ArmorDisplay();
+            displayRatios = new double[Part.COUNT];
+        }
+
+        for (Part part : Part.VALUES) {
+            double max = getMaxHPPerPart(part);
+            displayRatios[part.ordinal()] = (max > 0) ? getPartHP(part) / max : 0.0;
         }
-        if (!showPartHP) originalDamageMap.clear(); // Clear saved data when reverting the display
+        armorDisplay.render(player, displayRatios, showPartHP, glowMask);
+
+        MetricsRegistry registry = metrics;
+        if (registry != null) registry.armorDisplay.recordSince(start);
     }
 
-    private int getInventoryArrayIndex(EquipmentSlot slot) {
-        return switch (slot) {
-            case HEAD -> 3;
-            case CHEST -> 2;
-            case LEGS -> 1;
-            case FEET -> 0;
-            default -> -1;
-        };
+    /**
+     * @return The player's armor display state, or null if the display was never changed.
+     */
+    public ArmorDisplay getArmorDisplay() {
+        return armorDisplay;
     }
 }
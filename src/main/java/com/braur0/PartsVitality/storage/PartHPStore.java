@@ -0,0 +1,389 @@
+package com.braur0.PartsVitality.storage;
+
+import com.braur0.PartsVitality.model.Part;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persists part HP in an append-only log of fixed-size binary records.
+ * <p>
+ * Each record is the player's UUID, the HP of every part and a CRC32 of both. On the next start, a record cut short
+ * by a crash is truncated and a corrupt record elsewhere is skipped. The newest valid record of a player wins. When the log grows to several
+ * times the number of live records, it is compacted into a new file that atomically replaces the old one.
+ * <p>
+ * Snapshots are queued with {@link #enqueue} and written in batches by a single background thread,
+ * so no file I/O happens on the main thread.
+ */
+public class PartHPStore {
+
+    private static final int MAGIC = 0x50564850; // "PVHP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    public static final int RECORD_SIZE = Long.BYTES * 2 + Double.BYTES * Part.COUNT + Integer.BYTES;
+
+    // Records written per batch before the buffer is handed to the channel
+    private static final int BATCH_RECORDS = 256;
+    // Compact when the log holds this many times more records than there are players
+    private static final int COMPACTION_RATIO = 4;
+    private static final int COMPACTION_MIN_RECORDS = 1024;
+
+    private final Path file;
+    private final Logger logger;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "PartsVitality-Storage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Snapshots waiting to be written, newest per player
+    private final Map<UUID, double[]> pending = new ConcurrentHashMap<>();
+
+    // Guarded by ioLock
+    private final Object ioLock = new Object();
+    private final Map<UUID, Long> index = new HashMap<>(); // Offset of each player's newest record
+    private FileChannel channel;
+    private long fileSize;
+
+    // Only used by the writer thread (or the caller of close() once the writer has stopped)
+    private final ByteBuffer batchBuffer = ByteBuffer.allocate(RECORD_SIZE * BATCH_RECORDS);
+    private final CRC32 writeCrc = new CRC32();
+    // The snapshots being written, published to the index only once they are on disk
+    private final List<UUID> batchUuids = new ArrayList<>();
+    private final List<double[]> batchValues = new ArrayList<>();
+
+    public PartHPStore(Path file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the log, creating it if needed, and indexes every valid record.
+     * A partial record at the end (e.g. from a crash during a write) is truncated; corrupt records are skipped.
+     */
+    public void open() throws IOException {
+        synchronized (ioLock) {
+            Files.createDirectories(file.getParent());
+            channel = openChannel(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                writeHeader(channel);
+                fileSize = HEADER_SIZE;
+                return;
+            }
+            checkHeader(channel);
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Queues a snapshot to be written on the next flush. Only the newest snapshot per player is kept.
+     * @param values The HP of every part, indexed by Part ordinal. The array must not be modified afterwards.
+     */
+    public void enqueue(UUID uuid, double[] values) {
+        pending.put(uuid, values);
+    }
+
+    /**
+     * Writes all queued snapshots on the background thread.
+     */
+    public void flushAsync() {
+        if (pending.isEmpty()) return;
+        writer.execute(this::flushSafely);
+    }
+
+    /**
+     * Loads the newest saved part HP of a player. Safe to call from any thread.
+     * @return The HP of every part indexed by Part ordinal, or null if nothing is saved.
+     */
+    public double[] load(UUID uuid) {
+        synchronized (ioLock) {
+            double[] queued = pending.get(uuid);
+            if (queued != null) return queued.clone();
+
+            Long offset = index.get(uuid);
+            if (offset == null || channel == null) return null;
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+                readFully(channel, buffer, offset);
+                buffer.flip();
+                double[] values = new double[Part.COUNT];
+                if (decodeRecord(buffer, new CRC32(), values) == null) {
+                    logger.warning("Corrupt part HP record for " + uuid + ", ignoring it.");
+                    return null;
+                }
+                return values;
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to load part HP for " + uuid, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Stops the background thread, writes everything still queued and closes the log.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for the storage thread to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+        synchronized (ioLock) {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close the part HP log", e);
+            }
+            channel = null;
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to write part HP data", e);
+        }
+    }
+
+    /**
+     * Writes all queued snapshots on the calling thread.
+     * Snapshots stay queued (and are retried by the next flush) until they are durably written.
+     */
+    public void flush() throws IOException {
+        synchronized (ioLock) {
+            if (channel == null || pending.isEmpty()) return;
+
+            batchUuids.clear();
+            batchValues.clear();
+            for (Map.Entry<UUID, double[]> entry : pending.entrySet()) {
+                batchUuids.add(entry.getKey());
+                batchValues.add(entry.getValue());
+            }
+
+            // Nothing is published until the whole batch is on disk, so a failure leaves the log and the index as they were
+            long start = fileSize;
+            try {
+                long position = start;
+                batchBuffer.clear();
+                for (int i = 0; i < batchUuids.size(); i++) {
+                    encodeRecord(batchBuffer, batchUuids.get(i), batchValues.get(i));
+                    if (!batchBuffer.hasRemaining()) {
+                        position = writeBatch(position);
+                    }
+                }
+                if (batchBuffer.position() > 0) {
+                    position = writeBatch(position);
+                }
+                channel.force(false);
+                fileSize = position;
+            } catch (IOException e) {
+                discardUncommitted(start);
+                throw e;
+            }
+
+            for (int i = 0; i < batchUuids.size(); i++) {
+                UUID uuid = batchUuids.get(i);
+                double[] values = batchValues.get(i);
+                index.put(uuid, start + (long) i * RECORD_SIZE);
+                // Only drop the entry if it was not replaced by a newer snapshot in the meantime
+                pending.remove(uuid, values);
+            }
+            batchUuids.clear();
+            batchValues.clear();
+
+            if (fileSize > HEADER_SIZE + (long) RECORD_SIZE * Math.max(COMPACTION_MIN_RECORDS, index.size() * COMPACTION_RATIO)) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * @return The position after the written records.
+     */
+    private long writeBatch(long position) throws IOException {
+        batchBuffer.flip();
+        int length = batchBuffer.remaining();
+        while (batchBuffer.hasRemaining()) {
+            channel.write(batchBuffer, position + (length - batchBuffer.remaining()));
+        }
+        batchBuffer.clear();
+        return position + length;
+    }
+
+    /**
+     * Cuts off whatever part of a failed batch reached the file, so it is not read back on the next start.
+     */
+    private void discardUncommitted(long size) {
+        batchBuffer.clear();
+        try {
+            if (channel.size() > size) channel.truncate(size);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to discard a partly written part HP batch", e);
+        }
+    }
+
+    /**
+     * Rewrites the log with only the newest record of each player, then atomically replaces the old file.
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        Map<UUID, Long> newIndex = new HashMap<>(index.size() * 2);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+        try (FileChannel out = openChannel(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeHeader(out);
+            long position = HEADER_SIZE;
+            for (Map.Entry<UUID, Long> entry : index.entrySet()) {
+                record.clear();
+                readFully(channel, record, entry.getValue());
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record, position + (RECORD_SIZE - record.remaining()));
+                }
+                newIndex.put(entry.getKey(), position);
+                position += RECORD_SIZE;
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            index.clear();
+            index.putAll(newIndex);
+        } finally {
+            // Reopen whichever file is now in place; if the move failed, the old log and index are still valid
+            channel = openChannel(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            fileSize = channel.size();
+        }
+        logger.fine("Compacted part HP log to " + index.size() + " records.");
+    }
+
+    private void rebuildIndex() throws IOException {
+        index.clear();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * BATCH_RECORDS);
+        CRC32 crc = new CRC32();
+        double[] scratch = new double[Part.COUNT];
+        // Records are fixed size, so a corrupt one can be skipped; only a partial record can follow the last full one
+        long end = HEADER_SIZE + (fileSize - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        long position = HEADER_SIZE;
+        int corrupt = 0;
+
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            readFully(channel, buffer, position);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                UUID uuid = decodeRecord(buffer, crc, scratch);
+                if (uuid != null) {
+                    index.put(uuid, position);
+                } else {
+                    corrupt++;
+                    buffer.position(buffer.position() + RECORD_SIZE);
+                }
+                position += RECORD_SIZE;
+            }
+        }
+
+        if (corrupt > 0) {
+            logger.warning("Skipped " + corrupt + " corrupt part HP records in " + file.getFileName() + ".");
+        }
+        if (end < fileSize) {
+            logger.warning("Discarding " + (fileSize - end) + " bytes of an incomplete part HP record at the end of " + file.getFileName() + ".");
+            channel.truncate(end);
+            channel.force(false);
+            fileSize = end;
+        }
+    }
+
+    private void encodeRecord(ByteBuffer buffer, UUID uuid, double[] values) {
+        int start = buffer.position();
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        for (int i = 0; i < Part.COUNT; i++) {
+            buffer.putDouble(values[i]);
+        }
+        writeCrc.reset();
+        writeCrc.update(buffer.array(), start, RECORD_SIZE - Integer.BYTES);
+        buffer.putInt((int) writeCrc.getValue());
+    }
+
+    /**
+     * Reads one record from the buffer's position.
+     * @return The UUID of the record, or null if its checksum does not match.
+     */
+    private static UUID decodeRecord(ByteBuffer buffer, CRC32 crc, double[] values) {
+        int start = buffer.position();
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, RECORD_SIZE - Integer.BYTES);
+        int expected = buffer.getInt(start + RECORD_SIZE - Integer.BYTES);
+        if ((int) crc.getValue() != expected) return null;
+
+        UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+        for (int i = 0; i < Part.COUNT; i++) {
+            values[i] = buffer.getDouble();
+        }
+        buffer.getInt(); // Skip the checksum
+        return uuid;
+    }
+
+    /**
+     * Opens a file of the log. Tests replace this to inject I/O failures.
+     */
+    FileChannel openChannel(Path path, OpenOption... options) throws IOException {
+        return FileChannel.open(path, options);
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            target.write(header, HEADER_SIZE - header.remaining());
+        }
+        target.force(true);
+    }
+
+    private static void checkHeader(FileChannel source) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(source, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Unrecognized part HP log format");
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, offset);
+            if (read < 0) throw new IOException("Unexpected end of part HP log");
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.entity.Player;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.config.DebuffTable;
+import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.metrics.AnalyticsWriter;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.model.PartHP;
+
+/**
+ * Samples every online player's debuff tiers once a second, and hands a snapshot of the damage analytics
+ * to the {@link AnalyticsWriter} at every export interval.
+ * <p>
+ * On region-threaded servers each player is sampled on the player's own thread.
+ */
+public class AnalyticsTask implements Runnable {
+
+    // Ticks between debuff tier samples; each sample counts for this many ticks
+    private static final long SAMPLE_TICKS = 20L;
+
+    private final PartsVitality plugin;
+    private final ArmorStatsManager armorStatsManager;
+    private final DamageAnalytics analytics;
+    private final AnalyticsWriter writer;
+    private final TaskScheduler scheduler;
+    private final boolean regionThreaded;
+    private final long samplesPerExport;
+
+    private long samples;
+    private TaskScheduler.Task task;
+
+    /**
+     * @param exportIntervalTicks Ticks between exports, rounded to whole samples.
+     */
+    public AnalyticsTask(PartsVitality plugin, ArmorStatsManager armorStatsManager, DamageAnalytics analytics,
+                         AnalyticsWriter writer, long exportIntervalTicks) {
+        this.plugin = plugin;
+        this.armorStatsManager = armorStatsManager;
+        this.analytics = analytics;
+        this.writer = writer;
+        this.scheduler = plugin.getTaskScheduler();
+        this.regionThreaded = scheduler.isRegionThreaded();
+        this.samplesPerExport = Math.max(1, exportIntervalTicks / SAMPLE_TICKS);
+    }
+
+    public void start() {
+        if (task == null) {
+            task = scheduler.runGlobalTimer(this, SAMPLE_TICKS, SAMPLE_TICKS);
+        }
+    }
+
+    /**
+     * Stops sampling and writes the last interval.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        writer.close(analytics.snapshot());
+    }
+
+    @Override
+    public void run() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            if (regionThreaded) {
+                scheduler.runForEntity(player, () -> sample(player), 1L);
+            } else {
+                sample(player);
+            }
+        }
+        if (++samples % samplesPerExport == 0) {
+            writer.writeAsync(analytics.snapshot());
+        }
+    }
+
+    private void sample(Player player) {
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP == null) return;
+        DebuffTable debuffs = plugin.getPluginConfig().debuffs;
+        for (int group = 0; group < DebuffTable.GROUP_COUNT; group++) {
+            int tier = partHP.getDebuffTier(debuffs, group);
+            // Not counted until the debuffs are next re-applied
+            if (tier == PartHP.DEBUFF_TIER_UNKNOWN) continue;
+            analytics.recordTier(group, tier, SAMPLE_TICKS);
+        }
+    }
+}
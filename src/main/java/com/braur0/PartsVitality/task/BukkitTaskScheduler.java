@@ -0,0 +1,58 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Runs everything through the Bukkit scheduler. Every entity is owned by the main thread.
+ */
+final class BukkitTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    BukkitTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return false;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        plugin.getServer().getScheduler().runTask(plugin, task);
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask bukkitTask = plugin.getServer().getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return bukkitTask::cancel;
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task, long delayTicks) {
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            if (entity.isValid()) task.run();
+        }, Math.max(1L, delayTicks));
+    }
+
+    @Override
+    public Task runEntityTimer(Entity entity, Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask[] holder = new BukkitTask[1];
+        holder[0] = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            if (!entity.isValid()) {
+                holder[0].cancel();
+                return;
+            }
+            task.run();
+        }, Math.max(1L, delayTicks), periodTicks);
+        return holder[0]::cancel;
+    }
+}
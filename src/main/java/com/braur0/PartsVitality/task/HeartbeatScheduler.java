@@ -0,0 +1,225 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.Sound;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.entity.Player;
+
+import com.braur0.PartsVitality.PartsVitality;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plays the low-health heartbeat for every player from a single timer.
+ * <p>
+ * Upcoming beats are kept in a timing wheel: one bucket per tick, indexed by the tick of the beat.
+ * Each tick only the bucket that is due is visited. Health re-checks requested by events are coalesced
+ * with a dirty flag, so a player is re-checked at most once per tick however many events they receive.
+ * <p>
+ * On region-threaded servers no single thread may touch every player, so the wheel is not used:
+ * each check and beat is instead a delayed task on the player's own scheduler, and an entry is only
+ * touched by the thread that owns its player.
+ */
+public class HeartbeatScheduler implements Runnable {
+
+    private static final int INTERVAL_CRITICAL = 10; // 0.5 seconds
+    private static final int INTERVAL_LOW = 30;      // 1.5 seconds
+    private static final int INTERVAL_MID = 50;      // 2.5 seconds
+    private static final int INTERVAL_HIGH = 70;     // 3.5 seconds
+    // The old per-player task counted in 10 tick steps and spent one extra step resetting its counter,
+    // so consecutive beats are this much further apart than the first one.
+    private static final int COUNTER_STEP = 10;
+
+    private static final double HEARTBEAT_THRESHOLD = 0.75;
+
+    // Must be a power of two larger than the longest beat period
+    private static final int WHEEL_SIZE = 128;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long NOT_SCHEDULED = -1;
+
+    private static final class Entry {
+        private final Player player;
+        // The tick of the next beat: a wheel tick, or on region-threaded servers the player's own tick count
+        private long dueTick = NOT_SCHEDULED;
+        private boolean dirty;
+
+        private Entry(Player player) {
+            this.player = player;
+        }
+    }
+
+    private final TaskScheduler scheduler;
+    private final boolean regionThreaded;
+    // Written from the threads of every player on region-threaded servers
+    private final Map<UUID, Entry> entries;
+    // The timing wheel, only used on the main thread of regular servers
+    private final List<Entry> dirtyEntries = new ArrayList<>();
+    @SuppressWarnings("unchecked")
+    private final List<Entry>[] wheel = new List[WHEEL_SIZE];
+    private long currentTick;
+    private TaskScheduler.Task task;
+
+    public HeartbeatScheduler(PartsVitality plugin) {
+        this(plugin.getTaskScheduler());
+    }
+
+    HeartbeatScheduler(TaskScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.regionThreaded = scheduler.isRegionThreaded();
+        this.entries = regionThreaded ? new ConcurrentHashMap<>() : new HashMap<>();
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    public void start() {
+        // Region-threaded servers schedule every player separately instead
+        if (task == null && !regionThreaded) {
+            task = scheduler.runGlobalTimer(this, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        entries.clear();
+    }
+
+    /**
+     * Requests a health check for the player on the next tick.
+     * Must be called on the thread that owns the player.
+     */
+    public void markDirty(Player player) {
+        Entry entry = entries.computeIfAbsent(player.getUniqueId(), uuid -> new Entry(player));
+        if (!entry.dirty) {
+            entry.dirty = true;
+            if (regionThreaded) {
+                scheduler.runForEntity(player, () -> check(entry), 1L);
+            } else {
+                dirtyEntries.add(entry);
+            }
+        }
+    }
+
+    /**
+     * A coalesced health check on a region-threaded server, run on the player's thread.
+     */
+    private void check(Entry entry) {
+        entry.dirty = false;
+        if (entries.get(entry.player.getUniqueId()) != entry) return; // Removed in the meantime
+        double healthPercentage = getHealthPercentage(entry);
+        if (Double.isNaN(healthPercentage)) return;
+        // Start beating if needed, or beat sooner if health dropped; otherwise the new health is picked up at the next beat
+        int interval = getInterval(healthPercentage);
+        if (entry.dueTick == NOT_SCHEDULED || entry.player.getTicksLived() + interval < entry.dueTick) {
+            scheduleOnEntity(entry, interval);
+        }
+    }
+
+    /**
+     * A heartbeat on a region-threaded server, run on the player's thread.
+     */
+    private void beat(Entry entry, long dueTick) {
+        if (entry.dueTick != dueTick) return; // Removed or rescheduled in the meantime
+        entry.dueTick = NOT_SCHEDULED;
+        double healthPercentage = getHealthPercentage(entry);
+        if (Double.isNaN(healthPercentage)) return;
+
+        entry.player.playSound(entry.player.getLocation(), Sound.ENTITY_WARDEN_HEARTBEAT, 0.7f, 1.0f);
+        scheduleOnEntity(entry, getInterval(healthPercentage) + COUNTER_STEP);
+    }
+
+    private void scheduleOnEntity(Entry entry, int delayTicks) {
+        long dueTick = entry.player.getTicksLived() + delayTicks;
+        entry.dueTick = dueTick;
+        scheduler.runForEntity(entry.player, () -> beat(entry, dueTick), delayTicks);
+    }
+
+    /**
+     * Stops the heartbeat for the player.
+     */
+    public void remove(Player player) {
+        Entry entry = entries.remove(player.getUniqueId());
+        if (entry != null) {
+            entry.dueTick = NOT_SCHEDULED; // Left in its bucket and skipped when the bucket comes due
+        }
+    }
+
+    @Override
+    public void run() {
+        currentTick++;
+
+        // Coalesced health checks
+        if (!dirtyEntries.isEmpty()) {
+            for (Entry entry : dirtyEntries) {
+                entry.dirty = false;
+                if (entries.get(entry.player.getUniqueId()) != entry) continue; // Removed in the meantime
+                double healthPercentage = getHealthPercentage(entry);
+                if (Double.isNaN(healthPercentage)) continue;
+                // Start beating if needed, or beat sooner if health dropped; otherwise the new health is picked up at the next beat.
+                // A beat moved forward leaves its old bucket entry behind, which is skipped as stale.
+                int interval = getInterval(healthPercentage);
+                if (entry.dueTick == NOT_SCHEDULED || currentTick + interval < entry.dueTick) {
+                    schedule(entry, interval);
+                }
+            }
+            dirtyEntries.clear();
+        }
+
+        // Beats due this tick
+        List<Entry> bucket = wheel[(int) (currentTick & WHEEL_MASK)];
+        if (bucket.isEmpty()) return;
+        // Beats are always rescheduled at least COUNTER_STEP ticks ahead, so never into this bucket
+        for (Entry entry : bucket) {
+            if (entry.dueTick != currentTick) continue; // Stale (removed or rescheduled) entry
+            entry.dueTick = NOT_SCHEDULED;
+            double healthPercentage = getHealthPercentage(entry);
+            if (Double.isNaN(healthPercentage)) continue;
+
+            entry.player.playSound(entry.player.getLocation(), Sound.ENTITY_WARDEN_HEARTBEAT, 0.7f, 1.0f);
+            schedule(entry, getInterval(healthPercentage) + COUNTER_STEP);
+        }
+        bucket.clear();
+    }
+
+    /**
+     * @return The player's health percentage, or NaN if no heartbeat should play (in which case the entry is removed).
+     */
+    private double getHealthPercentage(Entry entry) {
+        Player player = entry.player;
+        if (!player.isOnline() || player.isDead()) {
+            remove(player);
+            return Double.NaN;
+        }
+
+        double healthPercentage = player.getHealth() / player.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+        // No heartbeat if health is above 75%
+        if (healthPercentage > HEARTBEAT_THRESHOLD) {
+            remove(player);
+            return Double.NaN;
+        }
+        return healthPercentage;
+    }
+
+    private void schedule(Entry entry, int delayTicks) {
+        entry.dueTick = currentTick + delayTicks;
+        wheel[(int) (entry.dueTick & WHEEL_MASK)].add(entry);
+    }
+
+    /**
+     * Determines the sound interval in ticks based on health percentage (1 second = 20 ticks).
+     */
+    private static int getInterval(double healthPercentage) {
+        int percent = (int) (healthPercentage * 100);
+        if (percent <= 25) return INTERVAL_CRITICAL;
+        if (percent <= 45) return INTERVAL_LOW;
+        if (percent <= 60) return INTERVAL_MID;
+        return INTERVAL_HIGH;
+    }
+}
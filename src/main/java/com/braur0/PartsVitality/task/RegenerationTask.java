@@ -0,0 +1,177 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.Server;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.entity.Player;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.api.event.PartHealedEvent;
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passive part regeneration from a single plugin-wide timer.
+ * <p>
+ * The online players are walked in rounds: a round starts at most every interval, and is spread over that many ticks
+ * in round-robin slices. A slice stops early when it uses up the per-tick time budget; the players left over
+ * are visited on the next tick. Each visit restores the regeneration of every tick since the player's previous visit
+ * (minus ticks still in combat), so the result is the same however the work ends up sliced.
+ * <p>
+ * On region-threaded servers the slices are walked on the global region thread and each visit runs on the player's own thread.
+ */
+public class RegenerationTask implements Runnable {
+
+    private final PartsVitality plugin;
+    private final ArmorStatsManager armorStatsManager;
+    private final ArmorDamageListener armorDamageListener;
+    private final MetricsRegistry metrics;
+    private final TaskScheduler scheduler;
+    private final boolean regionThreaded;
+
+    // The players of the current round, visited from the cursor on (timer thread only)
+    private final List<Player> round = new ArrayList<>();
+    private int cursor;
+    private int roundStartTick = PartHP.TICK_UNSET;
+    // The tick regeneration was last switched on; ticks before it never count. Read on the players' threads.
+    private volatile int enabledTick = PartHP.TICK_UNSET;
+    private TaskScheduler.Task task;
+
+    public RegenerationTask(PartsVitality plugin, ArmorStatsManager armorStatsManager, ArmorDamageListener armorDamageListener) {
+        this.plugin = plugin;
+        this.armorStatsManager = armorStatsManager;
+        this.armorDamageListener = armorDamageListener;
+        this.metrics = plugin.getMetrics();
+        this.scheduler = plugin.getTaskScheduler();
+        this.regionThreaded = scheduler.isRegionThreaded();
+    }
+
+    public void start() {
+        if (task == null) {
+            task = scheduler.runGlobalTimer(this, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        round.clear();
+        cursor = 0;
+        enabledTick = PartHP.TICK_UNSET;
+    }
+
+    @Override
+    public void run() {
+        PluginConfig config = plugin.getPluginConfig();
+        Server server = plugin.getServer();
+        if (!config.regenEnabled) {
+            round.clear();
+            cursor = 0;
+            enabledTick = PartHP.TICK_UNSET;
+            return;
+        }
+
+        int tick = server.getCurrentTick();
+        if (enabledTick == PartHP.TICK_UNSET) {
+            // Switched on (at startup or by a reload): the time it was off is not made up for
+            enabledTick = tick;
+        }
+        if (cursor >= round.size()) {
+            // Start the next round once the interval since the last one has passed
+            if (roundStartTick != PartHP.TICK_UNSET && tick - roundStartTick < config.regenIntervalTicks) return;
+            round.clear();
+            round.addAll(server.getOnlinePlayers());
+            cursor = 0;
+            roundStartTick = tick;
+            if (round.isEmpty()) return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + config.regenBudgetNanos;
+        // Spread the round over the interval; a slice cut short by the budget carries its players over to the next tick
+        int sliceSize = (round.size() + config.regenIntervalTicks - 1) / config.regenIntervalTicks;
+        int sliceEnd = Math.min(round.size(), cursor + sliceSize);
+        int visited = 0;
+        do {
+            Player player = round.set(cursor++, null);
+            if (regionThreaded) {
+                scheduler.runForEntity(player, () -> visit(player, plugin.getPluginConfig()), 1L);
+            } else {
+                visit(player, config);
+            }
+            visited++;
+        } while (cursor < sliceEnd && System.nanoTime() < deadline);
+
+        if (cursor < sliceEnd) {
+            metrics.regenCarryOvers.increment();
+        }
+        metrics.regenVisits.add(visited);
+        metrics.regeneration.recordSince(start);
+    }
+
+    /**
+     * Restores the regeneration a player earned since their last visit. Runs on the thread that owns the player.
+     */
+    private void visit(Player player, PluginConfig config) {
+        if (!player.isOnline()) return;
+        PartHP partHP = armorStatsManager.getPartHP(player);
+        if (partHP == null) return;
+
+        int now = plugin.getServer().getCurrentTick();
+        int lastVisit = partHP.getLastRegenTick();
+        partHP.setLastRegenTick(now);
+        if (lastVisit == PartHP.TICK_UNSET) return; // The first visit only starts the clock
+
+        // Only ticks after the combat cooldown, while regeneration was on, count
+        int lastDamage = partHP.getLastDamageTick();
+        int from = lastDamage == PartHP.TICK_UNSET ? lastVisit : Math.max(lastVisit, lastDamage + config.regenCombatCooldownTicks);
+        int since = enabledTick;
+        if (since == PartHP.TICK_UNSET) return; // Switched off in the meantime
+        from = Math.max(from, since);
+        int elapsed = now - from;
+        if (elapsed <= 0) return;
+
+        double multiplier = player.isSleeping() || player.isSneaking() ? config.regenRestingMultiplier : 1.0;
+        DamageAnalytics analytics = plugin.getDamageAnalytics();
+        boolean healed = false;
+        for (Part part : Part.VALUES) {
+            double perTick = config.getRegenPerTick(part);
+            // Broken parts need surgery first
+            if (perTick <= 0 || partHP.isBroken(part)) continue;
+            double currentHP = partHP.getPartHP(part);
+            if (currentHP >= PartHP.getMaxHPPerPart(part)) continue;
+
+            double amount = perTick * multiplier * elapsed;
+            if (PartHealedEvent.hasListeners()) {
+                PartHealedEvent event = new PartHealedEvent(player, part, PartHealedEvent.Cause.REGENERATION, currentHP, amount);
+                plugin.getServer().getPluginManager().callEvent(event);
+                if (event.isCancelled()) continue;
+                amount = event.getAmount();
+            }
+            partHP.setPartHP(part, currentHP + amount);
+            if (analytics != null) {
+                analytics.recordHealed(PartHealedEvent.Cause.REGENERATION, part, partHP.getPartHP(part) - currentHP);
+            }
+            healed = true;
+        }
+        if (!healed) return;
+
+        // Bring health up to the total part HP, as healing does, without ever lowering it
+        double targetHealth = DamageEngine.BASE_MAX_HEALTH * partHP.getTotalHP() / PartHP.getTotalMaxHP();
+        double newHealth = Math.min(player.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue(), targetHealth);
+        if (newHealth > player.getHealth()) {
+            player.setHealth(newHealth);
+        }
+        armorDamageListener.refreshPlayer(player, partHP);
+    }
+}
@@ -0,0 +1,65 @@
+package com.braur0.PartsVitality.task;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs tasks through the region schedulers of a region-threaded (Folia) server:
+ * entity work on the entity's scheduler, everything else on the global region or async scheduler.
+ */
+final class RegionTaskScheduler implements TaskScheduler {
+
+    private final Plugin plugin;
+
+    RegionTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * @return Whether the server is region-threaded.
+     */
+    static boolean isSupported() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        ScheduledTask scheduled = plugin.getServer().getGlobalRegionScheduler()
+                .runAtFixedRate(plugin, t -> task.run(), Math.max(1L, delayTicks), periodTicks);
+        return scheduled::cancel;
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        plugin.getServer().getAsyncScheduler().runNow(plugin, t -> task.run());
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task, long delayTicks) {
+        // The retired callback is null: the task is dropped if the entity is removed first
+        entity.getScheduler().runDelayed(plugin, t -> task.run(), null, Math.max(1L, delayTicks));
+    }
+
+    @Override
+    public Task runEntityTimer(Entity entity, Runnable task, long delayTicks, long periodTicks) {
+        ScheduledTask scheduled = entity.getScheduler().runAtFixedRate(plugin, t -> task.run(), null, Math.max(1L, delayTicks), periodTicks);
+        if (scheduled == null) return () -> { }; // The entity was already removed
+        return scheduled::cancel;
+    }
+}
@@ -0,0 +1,75 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Runs the plugin's tasks on the right thread for the server it is on.
+ * <p>
+ * Ownership model: all per-player state (part HP, the armor display, treatments, heartbeats, pending damage effects)
+ * belongs to the thread that owns the player, and is only read or written there. On a regular server that is
+ * the main thread. On a region-threaded (Folia) server it is the thread of the region the player is in,
+ * so work on a player is always scheduled with {@link #runForEntity} rather than run from a global task.
+ * Maps that several threads look players up in are concurrent; the per-player objects in them are not synchronized.
+ */
+public interface TaskScheduler {
+
+    /**
+     * A scheduled task that can be cancelled.
+     */
+    interface Task {
+        void cancel();
+    }
+
+    /**
+     * @return A Folia scheduler if the server is region-threaded, otherwise a Bukkit scheduler.
+     */
+    static TaskScheduler create(Plugin plugin) {
+        return RegionTaskScheduler.isSupported() ? new RegionTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * @return Whether entities are ticked on several threads, so no single thread may touch every player.
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Runs a task on the next tick on the main thread (or the global region thread).
+     */
+    void runGlobal(Runnable task);
+
+    /**
+     * Runs a task repeatedly on the main thread (or the global region thread).
+     * On region-threaded servers such a task must not touch entities.
+     */
+    Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task off the server threads.
+     */
+    void runAsync(Runnable task);
+
+    /**
+     * Runs a task on the thread that owns the entity, after at least one tick.
+     * The task is dropped if the entity is removed (e.g. the player quits) before it runs.
+     */
+    void runForEntity(Entity entity, Runnable task, long delayTicks);
+
+    /**
+     * Runs a task repeatedly on the thread that owns the entity, until cancelled or the entity is removed.
+     */
+    Task runEntityTimer(Entity entity, Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs a task on the next tick where it may message the sender: the sender's own thread for players,
+     * otherwise the main thread.
+     */
+    default void runFor(CommandSender sender, Runnable task) {
+        if (sender instanceof Entity entity) {
+            runForEntity(entity, task, 1L);
+        } else {
+            runGlobal(task);
+        }
+    }
+}
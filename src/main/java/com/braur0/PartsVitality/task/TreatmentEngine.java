@@ -0,0 +1,357 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.attribute.Attribute;
+import org.bukkit.entity.Player;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.api.event.PartHealedEvent;
+import com.braur0.PartsVitality.config.Lang;
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.listener.PlayerInventoryListener;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs every healing and surgery session from a single plugin-wide tick loop.
+ * <p>
+ * Sessions are held in one table (one slot per part for each player) and advanced every tick:
+ * sound cadence, heal-over-time, completion and display refresh all happen here,
+ * so starting a treatment schedules no tasks.
+ * <p>
+ * On region-threaded servers a player's sessions are advanced by a timer on the player's own scheduler instead,
+ * started with their first session and cancelled with their last, so each player is only touched by the thread that owns them.
+ */
+public class TreatmentEngine implements Runnable {
+
+    private final PartsVitality plugin;
+    private final ArmorDamageListener armorDamageListener;
+    private final PlayerInventoryListener playerInventoryListener;
+
+    /**
+     * One player's sessions and treatment clock.
+     */
+    private static final class PlayerSessions {
+        // Indexed by Part ordinal
+        private final TreatmentSession[] slots = new TreatmentSession[Part.COUNT];
+        private long tick;
+        // The player's own timer, on region-threaded servers only
+        private TaskScheduler.Task task;
+    }
+
+    private final TaskScheduler scheduler;
+    private final boolean regionThreaded;
+    // Active sessions per player; written from the threads of every player on region-threaded servers
+    private final Map<UUID, PlayerSessions> sessions;
+    private TaskScheduler.Task task;
+
+    public TreatmentEngine(PartsVitality plugin, ArmorDamageListener armorDamageListener, PlayerInventoryListener playerInventoryListener) {
+        this.plugin = plugin;
+        this.armorDamageListener = armorDamageListener;
+        this.playerInventoryListener = playerInventoryListener;
+        this.scheduler = plugin.getTaskScheduler();
+        this.regionThreaded = scheduler.isRegionThreaded();
+        this.sessions = regionThreaded ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    public void start() {
+        // Region-threaded servers run a timer per treated player instead
+        if (task == null && !regionThreaded) {
+            task = scheduler.runGlobalTimer(this, 1L, 1L);
+        }
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        for (PlayerSessions playerSessions : sessions.values()) {
+            if (playerSessions.task != null) playerSessions.task.cancel();
+        }
+        sessions.clear();
+    }
+
+    /**
+     * Starts a treatment, plays its first sound and makes the treated part glow.
+     */
+    public void startSession(Player player, PartHP partHP, Part part, TreatmentSession.Type type, PluginConfig config, double healAmount) {
+        UUID uuid = player.getUniqueId();
+        PlayerSessions playerSessions = sessions.get(uuid);
+        if (playerSessions == null) {
+            playerSessions = new PlayerSessions();
+            sessions.put(uuid, playerSessions);
+            if (regionThreaded) {
+                PlayerSessions owner = playerSessions;
+                owner.task = scheduler.runEntityTimer(player, () -> {
+                    if (!tick(owner)) remove(uuid, owner);
+                }, 1L, 1L);
+            }
+        }
+        TreatmentSession session = new TreatmentSession(player, partHP, part, type, config, healAmount, playerSessions.tick);
+        playerSessions.slots[part.ordinal()] = session;
+        playSound(session, playerSessions.tick);
+        refreshDisplay(player, partHP);
+    }
+
+    public boolean isTreating(Player player) {
+        return sessions.containsKey(player.getUniqueId());
+    }
+
+    public boolean isTreating(Player player, Part part) {
+        PlayerSessions playerSessions = sessions.get(player.getUniqueId());
+        return playerSessions != null && playerSessions.slots[part.ordinal()] != null;
+    }
+
+    public int getSessionCount(Player player) {
+        PlayerSessions playerSessions = sessions.get(player.getUniqueId());
+        if (playerSessions == null) return 0;
+        int count = 0;
+        for (TreatmentSession session : playerSessions.slots) {
+            if (session != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return A bitmask of the parts being treated (see {@link Part#bit()}).
+     */
+    public int getTreatedMask(Player player) {
+        PlayerSessions playerSessions = sessions.get(player.getUniqueId());
+        if (playerSessions == null) return 0;
+        int mask = 0;
+        for (TreatmentSession session : playerSessions.slots) {
+            if (session != null) mask |= session.part.bit();
+        }
+        return mask;
+    }
+
+    /**
+     * Interrupts all of the player's treatments.
+     * @return Whether any treatment was running.
+     */
+    public boolean interrupt(Player player) {
+        PlayerSessions playerSessions = sessions.remove(player.getUniqueId());
+        if (playerSessions == null) return false;
+        if (playerSessions.task != null) playerSessions.task.cancel();
+        // Returning the item is not part of the concept, so it's not done
+        for (TreatmentSession session : playerSessions.slots) {
+            if (session != null) {
+                // Update the display to remove the glow, while respecting the player's current view mode.
+                session.partHP.updateArmorDisplay(player, playerInventoryListener.isViewingPartHP(player), -1);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drops all of the player's treatments without touching the display (e.g. on quit).
+     */
+    public void remove(Player player) {
+        PlayerSessions playerSessions = sessions.remove(player.getUniqueId());
+        if (playerSessions != null && playerSessions.task != null) playerSessions.task.cancel();
+    }
+
+    private void remove(UUID uuid, PlayerSessions playerSessions) {
+        sessions.remove(uuid, playerSessions);
+        if (playerSessions.task != null) playerSessions.task.cancel();
+    }
+
+    @Override
+    public void run() {
+        if (sessions.isEmpty()) return;
+
+        Iterator<PlayerSessions> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            if (!tick(iterator.next())) iterator.remove();
+        }
+    }
+
+    /**
+     * Advances one player's sessions by a tick.
+     * @return Whether any session is still running.
+     */
+    private boolean tick(PlayerSessions playerSessions) {
+        long currentTick = ++playerSessions.tick;
+        TreatmentSession[] slots = playerSessions.slots;
+        boolean active = false;
+        for (int i = 0; i < slots.length; i++) {
+            TreatmentSession session = slots[i];
+            if (session == null) continue;
+
+            if (!session.player.isOnline()) {
+                slots[i] = null;
+                continue;
+            }
+
+            boolean beat = currentTick >= session.nextSoundTick;
+            if (beat) {
+                playSound(session, currentTick);
+            }
+            if (session.isHealOverTime()) {
+                healOverTime(session, beat);
+            }
+            if (currentTick >= session.endTick) {
+                slots[i] = null;
+                complete(session, slots);
+                continue;
+            }
+            active = true;
+        }
+        return active;
+    }
+
+    private void playSound(TreatmentSession session, long currentTick) {
+        PluginConfig config = session.config;
+        Player player = session.player;
+        if (session.type == TreatmentSession.Type.HEALING) {
+            player.playSound(player.getLocation(), config.healingSound, config.healingSoundVolume, config.healingSoundPitch);
+        } else {
+            player.playSound(player.getLocation(), config.surgerySound, config.surgerySoundVolume, config.surgerySoundPitch);
+        }
+        session.nextSoundTick = currentTick + session.getSoundInterval();
+    }
+
+    private void healOverTime(TreatmentSession session, boolean beat) {
+        PartHP partHP = session.partHP;
+        // A part broken during the treatment needs surgery first
+        if (partHP.isBroken(session.part)) return;
+        double amount = callHealedEvent(session, PartHealedEvent.Cause.HEALING, session.healAmount / session.getDurationTicks());
+        if (Double.isNaN(amount)) return;
+        double previousHP = partHP.getPartHP(session.part);
+        partHP.setPartHP(session.part, previousHP + amount);
+        recordHealed(session, PartHealedEvent.Cause.HEALING, previousHP);
+        // Keep the bar moving for players looking at it, at the sound cadence
+        if (beat && playerInventoryListener.isViewingPartHP(session.player)) {
+            refreshDisplay(session.player, partHP);
+        }
+    }
+
+    private void complete(TreatmentSession session, TreatmentSession[] remaining) {
+        if (session.type == TreatmentSession.Type.HEALING) {
+            completeHealing(session);
+        } else {
+            completeSurgery(session);
+        }
+
+        // If in part HP display mode or other treatments are running, update the display immediately.
+        // Otherwise revert to normal display to remove the glow.
+        Player player = session.player;
+        int treatedMask = 0;
+        for (TreatmentSession other : remaining) {
+            if (other != null) treatedMask |= other.part.bit();
+        }
+        if (treatedMask != 0 || playerInventoryListener.isViewingPartHP(player)) {
+            session.partHP.updateArmorDisplayWithGlow(player, true, treatedMask);
+        } else {
+            session.partHP.updateArmorDisplay(player, false, -1);
+        }
+    }
+
+    private void completeHealing(TreatmentSession session) {
+        Player player = session.player;
+        PartHP partHP = session.partHP;
+        PluginConfig config = session.config;
+
+        // Execute healing (heal-over-time sessions have already restored their amount)
+        if (!session.isHealOverTime()) {
+            double amount = callHealedEvent(session, PartHealedEvent.Cause.HEALING, session.healAmount);
+            if (!Double.isNaN(amount)) {
+                double currentHP = partHP.getPartHP(session.part);
+                double maxHP = PartHP.getMaxHPPerPart(session.part);
+                double newHP = Math.min(maxHP, currentHP + amount);
+                partHP.setPartHP(session.part, newHP);
+                recordHealed(session, PartHealedEvent.Cause.HEALING, currentHP);
+            }
+        }
+        recordTreatment(session, PartHealedEvent.Cause.HEALING);
+
+        // Recalculate player's health to sync with the total part HP
+        double totalMaxPartHP = PartHP.getTotalMaxHP();
+        double totalCurrentPartHP = partHP.getTotalHP();
+        double healthRatio = totalCurrentPartHP / totalMaxPartHP;
+
+        // Always calculate health based on the vanilla default max health (20.0)
+        double baseMaxHealth = 20.0;
+        double newPlayerHealth = baseMaxHealth * healthRatio;
+
+        double maxPlayerHP = player.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+        player.setHealth(Math.min(maxPlayerHP, newPlayerHealth));
+
+        // Healing doesn't fix a broken part, but the debuff state might change, so update it
+        armorDamageListener.updateDebuffs(player, partHP);
+        armorDamageListener.updateHealthPenalty(player, partHP);
+
+        player.sendMessage(Lang.get(player, "healing-complete"));
+        player.playSound(player.getLocation(), config.healingCompleteSound, config.healingCompleteSoundVolume, config.healingCompleteSoundPitch);
+    }
+
+    private void completeSurgery(TreatmentSession session) {
+        Player player = session.player;
+        PartHP partHP = session.partHP;
+        PluginConfig config = session.config;
+
+        // Execute surgery
+        double restoredHP = callHealedEvent(session, PartHealedEvent.Cause.SURGERY, config.surgeryRestoredHp);
+        if (!Double.isNaN(restoredHP)) {
+            double previousHP = partHP.getPartHP(session.part);
+            partHP.setPartHP(session.part, restoredHP);
+            recordHealed(session, PartHealedEvent.Cause.SURGERY, previousHP);
+        }
+        recordTreatment(session, PartHealedEvent.Cause.SURGERY);
+
+        // Recalculate max HP penalty (as one broken part is now fixed)
+        armorDamageListener.updateHealthPenalty(player, partHP);
+
+        // Also restore a small amount of health
+        double maxPlayerHP = player.getAttribute(Attribute.GENERIC_MAX_HEALTH).getValue();
+        double currentHealth = player.getHealth();
+        player.setHealth(Math.min(maxPlayerHP, currentHealth + 1.0)); // Restore 0.5 hearts
+
+        player.sendMessage(Lang.get(player, "surgery-complete"));
+        player.playSound(player.getLocation(), config.surgeryCompleteSound, config.surgeryCompleteSoundVolume, config.surgeryCompleteSoundPitch);
+    }
+
+    /**
+     * Lets other plugins change or cancel the HP a treatment restores. The event is only created when someone listens to it.
+     * @return The HP to restore, or NaN if the treatment's effect was cancelled.
+     */
+    private double callHealedEvent(TreatmentSession session, PartHealedEvent.Cause cause, double amount) {
+        if (!PartHealedEvent.hasListeners()) return amount;
+        PartHealedEvent event = new PartHealedEvent(session.player, session.part, cause, session.partHP.getPartHP(session.part), amount);
+        plugin.getServer().getPluginManager().callEvent(event);
+        return event.isCancelled() ? Double.NaN : event.getAmount();
+    }
+
+    /**
+     * Counts the HP a treatment restored since the part was at previousHP.
+     */
+    private void recordHealed(TreatmentSession session, PartHealedEvent.Cause cause, double previousHP) {
+        DamageAnalytics analytics = plugin.getDamageAnalytics();
+        if (analytics != null) {
+            analytics.recordHealed(cause, session.part, session.partHP.getPartHP(session.part) - previousHP);
+        }
+    }
+
+    private void recordTreatment(TreatmentSession session, PartHealedEvent.Cause cause) {
+        DamageAnalytics analytics = plugin.getDamageAnalytics();
+        if (analytics != null) {
+            analytics.recordTreatment(cause, session.part);
+        }
+    }
+
+    /**
+     * Shows part HP with every part under treatment glowing.
+     */
+    private void refreshDisplay(Player player, PartHP partHP) {
+        partHP.updateArmorDisplayWithGlow(player, true, getTreatedMask(player));
+    }
+}
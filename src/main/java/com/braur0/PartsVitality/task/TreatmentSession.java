@@ -0,0 +1,63 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.entity.Player;
+
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+
+/**
+ * A single treatment (healing or surgery) of one part, advanced by {@link TreatmentEngine}.
+ */
+public class TreatmentSession {
+
+    public enum Type {
+        HEALING,
+        SURGERY
+    }
+
+    final Player player;
+    final PartHP partHP;
+    final Part part;
+    final Type type;
+    // The configuration snapshot at the time the treatment started
+    final PluginConfig config;
+    // Part HP restored by a healing session (unused for surgery)
+    final double healAmount;
+
+    final long startTick;
+    final long endTick;
+    long nextSoundTick;
+
+    TreatmentSession(Player player, PartHP partHP, Part part, Type type, PluginConfig config, double healAmount, long startTick) {
+        this.player = player;
+        this.partHP = partHP;
+        this.part = part;
+        this.type = type;
+        this.config = config;
+        this.healAmount = healAmount;
+        this.startTick = startTick;
+        this.endTick = startTick + getDurationTicks();
+        this.nextSoundTick = startTick;
+    }
+
+    public Part getPart() {
+        return part;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    int getDurationTicks() {
+        return type == Type.HEALING ? config.healingDurationTicks : config.surgeryDurationTicks;
+    }
+
+    long getSoundInterval() {
+        return Math.max(1, type == Type.HEALING ? config.healingSoundInterval : config.surgerySoundInterval);
+    }
+
+    boolean isHealOverTime() {
+        return type == Type.HEALING && config.healOverTime;
+    }
+}
@@ -0,0 +1,18 @@
+package com.braur0.PartsVitality.benchmark;
+
+/**
+ * The kinds of damage the benchmarks and the load simulation put a player through.
+ * See {@link StandIns#damageEvent} for the event each one creates.
+ */
+public enum DamageScenario {
+    // A zombie swinging at the chest from 1.5 blocks
+    MELEE,
+    // An arrow fired from 40 blocks, just before it reaches the head
+    PROJECTILE,
+    // A block explosion, spread over all parts
+    EXPLOSION,
+    // A fall onto legs and feet
+    FALL,
+    // Fire ticks: small damage to all parts
+    DOT
+}
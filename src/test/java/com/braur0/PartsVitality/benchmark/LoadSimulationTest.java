@@ -0,0 +1,374 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.listener.PlayerHealingListener;
+import com.braur0.PartsVitality.listener.PlayerInventoryListener;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+import com.braur0.PartsVitality.task.TreatmentEngine;
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulates a server full of players fighting: every tick, a random mix of damage, healing clicks and display toggles
+ * goes through the real listeners, then the treatment loop and the end-of-tick flush run, as on a server.
+ * Reports how long the plugin takes per tick and how much it allocates, and fails when the plugin's share of the tick
+ * goes over its budget, or when the run is slower than a saved baseline.
+ * <p>
+ * Tagged "load" and left out of {@code mvn test}; it runs with the load profile, changed with system properties:
+ * <pre>
+ * mvn -Pload test -Dload.players=500 -Dload.baseline=load-baseline.properties
+ * </pre>
+ * Properties:
+ * <ul>
+ * <li>{@code load.players} (200), {@code load.ticks} measured (3000) and {@code load.warmup} ticks (600)</li>
+ * <li>{@code load.hit-rate}: chance that a player takes a hit in a tick (0.1)</li>
+ * <li>{@code load.mix}: relative weights of the damage scenarios, e.g. {@code melee=40,projectile=20,explosion=5,fall=15,dot=20}</li>
+ * <li>{@code load.heal-rate} and {@code load.toggle-rate}: chance that a player clicks a treatment item or toggles the display in a tick (0.002, 0.005)</li>
+ * <li>{@code load.max-mean-percent}: the most of a 50 ms tick the plugin may take on average (10)</li>
+ * <li>{@code load.max-p99-percent}: the most of a 50 ms tick the plugin may take in the slowest 1% of ticks (50)</li>
+ * <li>{@code load.baseline}: a file saved by an earlier run; the test fails if this run is slower by more than {@code load.threshold} percent (10)</li>
+ * <li>{@code load.save}: writes this run as a baseline</li>
+ * <li>{@code load.report}: where the report is written (target/load-simulation.txt)</li>
+ * <li>{@code load.seed} (1)</li>
+ * </ul>
+ * The tick budget is an absolute bound that holds on a slow build machine; the baseline comparison is the one that catches
+ * small regressions, on the machine the baseline was saved on.
+ * Allocation includes the stand-ins' own (proxy calls box their arguments), so compare it with a baseline rather than reading it on its own.
+ * It is only measured on JVMs that can count the bytes a thread allocates, and is reported as NaN elsewhere.
+ */
+@Tag("load")
+class LoadSimulationTest {
+
+    private static final DamageScenario[] SCENARIOS = DamageScenario.values();
+    private static final double TICK_NANOS = 50_000_000.0;
+
+    /**
+     * One simulated player, with its events created up front so the simulation itself allocates nothing.
+     */
+    private static final class SimulatedPlayer {
+        private final Player player;
+        private final PartHP partHP;
+        // Indexed by DamageScenario ordinal
+        private final EntityDamageEvent[] damage = new EntityDamageEvent[SCENARIOS.length];
+        // Indexed by Part ordinal
+        private final StandIns.StandInClick[] heal = new StandIns.StandInClick[Part.COUNT];
+        private final StandIns.StandInClick[] surgery = new StandIns.StandInClick[Part.COUNT];
+        private final StandIns.StandInClick toggle;
+
+        private SimulatedPlayer(StandIns.Plugin plugin, Material healingItem, Material surgeryItem) {
+            this.player = StandIns.player();
+            this.partHP = plugin.armorStatsManager.getOrCreatePartHP(player);
+            for (DamageScenario scenario : SCENARIOS) {
+                damage[scenario.ordinal()] = StandIns.damageEvent(scenario, player);
+            }
+            for (Part part : Part.VALUES) {
+                heal[part.ordinal()] = StandIns.click(player, part, ClickType.LEFT, new StandIns.StandInItemStack(healingItem));
+                surgery[part.ordinal()] = StandIns.click(player, part, ClickType.LEFT, new StandIns.StandInItemStack(surgeryItem));
+            }
+            this.toggle = StandIns.click(player, Part.HEAD, ClickType.SHIFT_RIGHT, new StandIns.StandInItemStack(Material.AIR));
+        }
+    }
+
+    @Test
+    void pluginStaysWithinItsTickBudget() throws IOException {
+        int players = Integer.parseInt(option("players", "200"));
+        int ticks = Math.max(1, Integer.parseInt(option("ticks", "3000")));
+        int warmup = Math.max(0, Integer.parseInt(option("warmup", "600")));
+        double hitRate = Double.parseDouble(option("hit-rate", "0.1"));
+        double healRate = Double.parseDouble(option("heal-rate", "0.002"));
+        double toggleRate = Double.parseDouble(option("toggle-rate", "0.005"));
+        double[] mix = parseMix(option("mix", "melee=40,projectile=20,explosion=5,fall=15,dot=20"));
+        double maxMeanPercent = Double.parseDouble(option("max-mean-percent", "10"));
+        double maxP99Percent = Double.parseDouble(option("max-p99-percent", "50"));
+        double threshold = Double.parseDouble(option("threshold", "10"));
+        SplittableRandom random = new SplittableRandom(Long.parseLong(option("seed", "1")));
+
+        StandIns.Plugin plugin = StandIns.plugin();
+        PluginConfig config = plugin.config;
+        Material healingItem = firstItem(config, true);
+        Material surgeryItem = firstItem(config, false);
+        SimulatedPlayer[] simulated = new SimulatedPlayer[players];
+        for (int i = 0; i < players; i++) {
+            simulated[i] = new SimulatedPlayer(plugin, healingItem, surgeryItem);
+        }
+
+        ArmorDamageListener damageListener = plugin.armorDamageListener;
+        PlayerInventoryListener inventoryListener = plugin.playerInventoryListener;
+        PlayerHealingListener healingListener = plugin.playerHealingListener;
+        TreatmentEngine treatmentEngine = plugin.treatmentEngine;
+        ServerTickEndEvent tickEnd = new ServerTickEndEvent(0, 0.0, 0L);
+        AllocationCounter allocation = AllocationCounter.create();
+
+        // What each player does in the current tick, decided before the clock starts
+        EntityDamageEvent[] plannedHits = new EntityDamageEvent[players];
+        StandIns.StandInClick[] plannedClicks = new StandIns.StandInClick[players];
+        long[] tickNanos = new long[ticks];
+        long allocatedBytes = 0;
+        long hits = 0;
+        long clicks = 0;
+
+        for (int tick = -warmup; tick < ticks; tick++) {
+            if (tick == 0) {
+                // Measure from a clean slate
+                plugin.plugin.getMetrics().reset();
+                System.gc();
+            }
+            int tickHits = 0;
+            int tickClicks = 0;
+            for (int i = 0; i < players; i++) {
+                SimulatedPlayer sim = simulated[i];
+                plannedHits[i] = random.nextDouble() < hitRate ? sim.damage[pick(mix, random.nextDouble())] : null;
+                plannedClicks[i] = planClick(sim, random, healRate, toggleRate);
+                if (plannedHits[i] != null) tickHits++;
+                if (plannedClicks[i] != null) {
+                    plannedClicks[i].reset();
+                    tickClicks++;
+                }
+            }
+
+            long allocatedBefore = allocation.currentThreadBytes();
+            long start = System.nanoTime();
+            // Clicks first: they only start treatments, so the part HP they were planned on still holds
+            for (int i = 0; i < players; i++) {
+                StandIns.StandInClick click = plannedClicks[i];
+                if (click == null) continue;
+                // In the order the server calls them (NORMAL, then HIGH)
+                inventoryListener.onInventoryClick(click);
+                healingListener.onInventoryClick(click);
+            }
+            for (int i = 0; i < players; i++) {
+                if (plannedHits[i] != null) damageListener.onPlayerDamage(plannedHits[i]);
+            }
+            treatmentEngine.run();
+            damageListener.onTickEnd(tickEnd);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocation.currentThreadBytes() - allocatedBefore;
+
+            // Keep players in a realistic state instead of letting everyone end up broken
+            for (SimulatedPlayer sim : simulated) {
+                if (sim.partHP.getTotalHP() >= PartHP.getTotalMaxHP() * 0.4) continue;
+                for (Part part : Part.VALUES) {
+                    sim.partHP.setPartHP(part, PartHP.getMaxHPPerPart(part));
+                }
+            }
+
+            if (tick >= 0) {
+                tickNanos[tick] = elapsed;
+                allocatedBytes += allocated;
+                hits += tickHits;
+                clicks += tickClicks;
+            }
+        }
+
+        Arrays.sort(tickNanos);
+        Result result = new Result(players, mean(tickNanos), percentile(tickNanos, 0.50), percentile(tickNanos, 0.99),
+                tickNanos[ticks - 1], allocation.supported() ? (double) allocatedBytes / ticks : Double.NaN);
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format(Locale.ROOT, "%d players, %d ticks measured after %d warmup ticks", players, ticks, warmup));
+        report.add(String.format(Locale.ROOT, "Per tick: %.1f hits, %.2f clicks", (double) hits / ticks, (double) clicks / ticks));
+        report.add(String.format(Locale.ROOT, "Plugin time per tick: mean %s, p50 %s, p99 %s, max %s (%.2f%% of a 50 ms tick at the mean)",
+                formatNanos(result.meanNanos), formatNanos(result.p50Nanos), formatNanos(result.p99Nanos),
+                formatNanos(result.maxNanos), result.meanNanos / TICK_NANOS * 100));
+        report.add(String.format(Locale.ROOT, "Allocation per tick: %.1f KB", result.bytesPerTick / 1024));
+        for (String line : plugin.plugin.getMetrics().report(List.of())) {
+            report.add("  " + line);
+        }
+
+        String save = option("save", null);
+        if (save != null) {
+            result.save(Path.of(save));
+            report.add("Baseline saved to " + save);
+        }
+        String baseline = option("baseline", null);
+        boolean regressed = baseline != null && compare(result, Result.load(Path.of(baseline)), threshold, report);
+        Path reportFile = Path.of(option("report", "target/load-simulation.txt"));
+        if (reportFile.getParent() != null) Files.createDirectories(reportFile.getParent());
+        Files.write(reportFile, report);
+
+        // Every planned hit must have gone through the damage listener, or the timings measure nothing
+        assertEquals(hits, plugin.plugin.getMetrics().damageHandler.snapshot().count(), "Hits handled by the damage listener");
+        assertTrue(result.meanNanos <= TICK_NANOS * maxMeanPercent / 100,
+                "Mean plugin time per tick " + formatNanos(result.meanNanos) + " is over the budget of " + maxMeanPercent + "% of a tick");
+        assertTrue(result.p99Nanos <= TICK_NANOS * maxP99Percent / 100,
+                "p99 plugin time per tick " + formatNanos(result.p99Nanos) + " is over the budget of " + maxP99Percent + "% of a tick");
+        assertFalse(regressed, "Slower than the baseline by more than " + threshold + "%, see " + reportFile);
+    }
+
+    private static String option(String name, String defaultValue) {
+        return System.getProperty("load." + name, defaultValue);
+    }
+
+    /**
+     * Picks a click for a player, only when the listeners would accept it: a treatment item that fits the part's state,
+     * or a display toggle.
+     */
+    private static StandIns.StandInClick planClick(SimulatedPlayer sim, SplittableRandom random, double healRate, double toggleRate) {
+        double roll = random.nextDouble();
+        if (roll < toggleRate) return sim.toggle;
+        if (roll >= toggleRate + healRate) return null;
+        Part part = Part.VALUES[random.nextInt(Part.COUNT)];
+        double partHP = sim.partHP.getPartHP(part);
+        if (partHP <= 0) return sim.surgery[part.ordinal()];
+        return partHP < PartHP.getMaxHPPerPart(part) ? sim.heal[part.ordinal()] : null;
+    }
+
+    /**
+     * Counts the bytes allocated by the current thread, on JVMs that expose it (HotSpot and OpenJ9 do).
+     */
+    private record AllocationCounter(com.sun.management.ThreadMXBean threads) {
+
+        static AllocationCounter create() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean allocation && allocation.isThreadAllocatedMemorySupported()) {
+                allocation.setThreadAllocatedMemoryEnabled(true);
+                return new AllocationCounter(allocation);
+            }
+            return new AllocationCounter(null);
+        }
+
+        boolean supported() {
+            return threads != null;
+        }
+
+        /**
+         * @return The bytes allocated so far, or 0 where this is not supported.
+         */
+        long currentThreadBytes() {
+            return threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+        }
+    }
+
+    private record Result(int players, double meanNanos, long p50Nanos, long p99Nanos, long maxNanos, double bytesPerTick) {
+
+        static Result load(Path file) throws IOException {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+            return new Result(Integer.parseInt(properties.getProperty("players")),
+                    Double.parseDouble(properties.getProperty("mean-nanos")),
+                    Long.parseLong(properties.getProperty("p50-nanos")),
+                    Long.parseLong(properties.getProperty("p99-nanos")),
+                    Long.parseLong(properties.getProperty("max-nanos")),
+                    Double.parseDouble(properties.getProperty("bytes-per-tick")));
+        }
+
+        void save(Path file) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("players", Integer.toString(players));
+            properties.setProperty("mean-nanos", Double.toString(meanNanos));
+            properties.setProperty("p50-nanos", Long.toString(p50Nanos));
+            properties.setProperty("p99-nanos", Long.toString(p99Nanos));
+            properties.setProperty("max-nanos", Long.toString(maxNanos));
+            properties.setProperty("bytes-per-tick", Double.toString(bytesPerTick));
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                properties.store(writer, "PartsVitality load simulation baseline");
+            }
+        }
+    }
+
+    /**
+     * Adds this run against the baseline to the report.
+     * @return Whether the mean or p99 tick time, or the allocation per tick, grew by more than the threshold.
+     */
+    private static boolean compare(Result current, Result baseline, double thresholdPercent, List<String> report) {
+        if (current.players != baseline.players) {
+            report.add(String.format(Locale.ROOT, "Warning: the baseline was recorded with %d players, this run has %d", baseline.players, current.players));
+        }
+        boolean regressed = compare("Mean tick", current.meanNanos, baseline.meanNanos, thresholdPercent, report);
+        regressed |= compare("p99 tick", current.p99Nanos, baseline.p99Nanos, thresholdPercent, report);
+        regressed |= compare("Allocation per tick", current.bytesPerTick, baseline.bytesPerTick, thresholdPercent, report);
+        report.add(regressed ? "REGRESSION: slower than the baseline by more than " + thresholdPercent + "%" : "No regression against the baseline");
+        return regressed;
+    }
+
+    private static boolean compare(String name, double current, double baseline, double thresholdPercent, List<String> report) {
+        // Allocation is NaN when either run could not measure it, and then not compared
+        if (Double.isNaN(current) || Double.isNaN(baseline)) {
+            report.add("  " + name + ": not measured");
+            return false;
+        }
+        double change = baseline > 0 ? (current - baseline) / baseline * 100 : 0;
+        boolean regressed = change > thresholdPercent;
+        report.add(String.format(Locale.ROOT, "  %s: %+.1f%% against the baseline%s", name, change, regressed ? "  <-- regression" : ""));
+        return regressed;
+    }
+
+    /**
+     * @return The cumulative weights of the damage scenarios, indexed by DamageScenario ordinal and normalized to end at 1.
+     */
+    private static double[] parseMix(String mix) {
+        double[] weights = new double[SCENARIOS.length];
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.split("=");
+            if (pair.length != 2) throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            weights[DamageScenario.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)).ordinal()] = Double.parseDouble(pair[1]);
+        }
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            weights[i] = total;
+        }
+        if (total <= 0) throw new IllegalArgumentException("The damage mix has no weight");
+        for (int i = 0; i < weights.length; i++) weights[i] /= total;
+        return weights;
+    }
+
+    private static int pick(double[] cumulative, double roll) {
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (roll < cumulative[i]) return i;
+        }
+        return cumulative.length - 1;
+    }
+
+    /**
+     * @return The first material in config.yml usable for healing (or surgery).
+     */
+    private static Material firstItem(PluginConfig config, boolean healing) {
+        for (Material material : Material.values()) {
+            if (healing ? config.isHealingItem(material) : config.isSurgeryItem(material)) return material;
+        }
+        throw new IllegalStateException("config.yml has no " + (healing ? "healing" : "surgery") + " items");
+    }
+
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long value : values) sum += value;
+        return sum / values.length;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    private static String formatNanos(double nanos) {
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,404 @@
+package com.braur0.PartsVitality.benchmark;
+
+import com.braur0.PartsVitality.PartsVitality;
+import com.braur0.PartsVitality.config.PluginConfig;
+import com.braur0.PartsVitality.listener.ArmorDamageListener;
+import com.braur0.PartsVitality.listener.PlayerHealingListener;
+import com.braur0.PartsVitality.listener.PlayerInventoryListener;
+import com.braur0.PartsVitality.manager.ArmorStatsManager;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.metrics.MetricsRegistry;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.model.PartHP;
+import com.braur0.PartsVitality.task.TaskScheduler;
+import com.braur0.PartsVitality.task.TreatmentEngine;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.attribute.AttributeModifier;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Arrow;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Pose;
+import org.bukkit.entity.Zombie;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.potion.PotionEffectType;
+import org.bukkit.util.BoundingBox;
+import org.bukkit.util.Vector;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight stand-ins for the Bukkit objects the plugin touches, so its hot paths can run without a server.
+ * Interfaces are implemented with dynamic proxies that only answer the calls the plugin makes.
+ * Shared by the load simulation test and the JMH benchmarks, which the benchmark profile compiles as test sources.
+ */
+final class StandIns {
+
+    private StandIns() {
+    }
+
+    /**
+     * The plugin wired the same way onEnable does, minus everything that needs a running server.
+     */
+    static final class Plugin {
+        final PartsVitality plugin;
+        final PluginConfig config;
+        final ArmorStatsManager armorStatsManager;
+        final ArmorDamageListener armorDamageListener;
+        final PlayerInventoryListener playerInventoryListener;
+        final TreatmentEngine treatmentEngine;
+        final PlayerHealingListener playerHealingListener;
+
+        private Plugin() throws ReflectiveOperationException {
+            registerPotionEffectTypes();
+            this.config = loadBundledConfig();
+            PartHP.loadConfig(config);
+
+            // JavaPlugin refuses to be constructed outside a plugin class loader, so skip the constructor
+            this.plugin = allocate(PartsVitality.class);
+            setField(plugin, "pluginConfig", config);
+            setField(plugin, "metrics", new MetricsRegistry());
+            setField(plugin, "taskScheduler", TaskScheduler.create(plugin));
+            setField(plugin, "damageAnalytics", config.analyticsEnabled ? new DamageAnalytics() : null);
+            this.armorStatsManager = new ArmorStatsManager(plugin);
+            this.armorDamageListener = new ArmorDamageListener(plugin, armorStatsManager);
+            this.playerInventoryListener = new PlayerInventoryListener(plugin, armorStatsManager);
+            setField(plugin, "armorStatsManager", armorStatsManager);
+            setField(plugin, "armorDamageListener", armorDamageListener);
+            setField(plugin, "playerInventoryListener", playerInventoryListener);
+            this.treatmentEngine = new TreatmentEngine(plugin, armorDamageListener, playerInventoryListener);
+            this.playerHealingListener = new PlayerHealingListener(plugin, armorStatsManager, treatmentEngine);
+            setField(plugin, "treatmentEngine", treatmentEngine);
+        }
+    }
+
+    static Plugin plugin() {
+        try {
+            return new Plugin();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to set up the stand-in plugin", e);
+        }
+    }
+
+    /**
+     * A player standing at the origin, facing south, wearing a full set of diamond armor.
+     */
+    static Player player() {
+        return (Player) proxy(new PlayerHandler(), Player.class);
+    }
+
+    /**
+     * A living entity whose eyes are at the given location (e.g. a zombie swinging at the player).
+     */
+    static Entity attacker(Location eyeLocation, Class<? extends Entity> type) {
+        Map<String, Object> answers = Map.of("getEyeLocation", eyeLocation, "getLocation", eyeLocation);
+        return (Entity) proxy((self, method, args) -> answer(answers, method), type);
+    }
+
+    /**
+     * A projectile at the given location moving with the given velocity.
+     */
+    static Entity projectile(Location location, Vector velocity, Class<? extends Entity> type) {
+        Map<String, Object> answers = Map.of("getLocation", location, "getVelocity", velocity);
+        return (Entity) proxy((self, method, args) -> answer(answers, method), type);
+    }
+
+    /**
+     * A damage event of the given kind hitting the player.
+     */
+    @SuppressWarnings("deprecation")
+    static EntityDamageEvent damageEvent(DamageScenario scenario, Player player) {
+        return switch (scenario) {
+            case MELEE -> {
+                Location eye = new Location(null, 0.5, 65.62, 2.0);
+                eye.setDirection(new Vector(0.0, -0.4, -1.5));
+                yield new EntityDamageByEntityEvent(attacker(eye, Zombie.class), player,
+                        EntityDamageEvent.DamageCause.ENTITY_ATTACK, 3.0);
+            }
+            case PROJECTILE -> {
+                // Arrows move ~3 blocks per tick; this is the last position before the hit, arriving at head height
+                Location position = new Location(null, 0.5, 65.75, 3.3);
+                Vector velocity = new Vector(0.0, -0.05, -3.0);
+                yield new EntityDamageByEntityEvent(projectile(position, velocity, Arrow.class), player,
+                        EntityDamageEvent.DamageCause.PROJECTILE, 6.0);
+            }
+            case EXPLOSION -> new EntityDamageEvent(player, EntityDamageEvent.DamageCause.BLOCK_EXPLOSION, 12.0);
+            case FALL -> new EntityDamageEvent(player, EntityDamageEvent.DamageCause.FALL, 4.0);
+            case DOT -> new EntityDamageEvent(player, EntityDamageEvent.DamageCause.FIRE_TICK, 1.0);
+        };
+    }
+
+    /**
+     * A click on the armor slot of a part in the player's own inventory, holding an item on the cursor.
+     * The event can be reused; call {@link StandInClick#reset()} before each dispatch.
+     */
+    static StandInClick click(Player player, Part part, ClickType clickType, ItemStack cursor) {
+        try {
+            // The real constructor needs an InventoryView, which only the server can provide
+            StandInClick click = allocate(StandInClick.class);
+            click.player = player;
+            click.part = part;
+            click.clickType = clickType;
+            click.cursor = cursor;
+            return click;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a stand-in click", e);
+        }
+    }
+
+    static final class StandInClick extends InventoryClickEvent {
+        private Player player;
+        private Part part;
+        private ClickType clickType;
+        private ItemStack cursor;
+        private boolean cancelled;
+
+        private StandInClick() {
+            super(null, null, 0, null, null); // Never called, see click()
+        }
+
+        void reset() {
+            cancelled = false;
+            cursor.setAmount(64);
+        }
+
+        @Override
+        public HumanEntity getWhoClicked() {
+            return player;
+        }
+
+        @Override
+        public InventoryType.SlotType getSlotType() {
+            return InventoryType.SlotType.ARMOR;
+        }
+
+        @Override
+        public ClickType getClick() {
+            return clickType;
+        }
+
+        @Override
+        public boolean isShiftClick() {
+            return clickType.isShiftClick();
+        }
+
+        @Override
+        public int getSlot() {
+            return part.getArmorSlot();
+        }
+
+        @Override
+        public ItemStack getCursor() {
+            return cursor;
+        }
+
+        @Override
+        public ItemStack getCurrentItem() {
+            return player.getInventory().getItem(part.getArmorSlot());
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCancelled(boolean cancel) {
+            cancelled = cancel;
+        }
+    }
+
+    private static final class PlayerHandler implements InvocationHandler {
+        private final UUID uuid = UUID.randomUUID();
+        private final Location location = new Location(null, 0.5, 64.0, 0.5);
+        private final BoundingBox boundingBox = new BoundingBox(0.2, 64.0, 0.2, 0.8, 65.8, 0.8);
+        private final Map<EquipmentSlot, ItemStack> armor = new EnumMap<>(EquipmentSlot.class);
+        private final PlayerInventory inventory = (PlayerInventory) proxy(this::inventory, PlayerInventory.class);
+        private final double[] maxHealth = {20.0};
+        private final List<AttributeModifier> maxHealthModifiers = new ArrayList<>();
+        private final AttributeInstance maxHealthAttribute = (AttributeInstance) proxy(this::attribute, AttributeInstance.class);
+        private double health = 20.0;
+
+        private PlayerHandler() {
+            armor.put(EquipmentSlot.HEAD, new StandInItemStack(Material.DIAMOND_HELMET));
+            armor.put(EquipmentSlot.CHEST, new StandInItemStack(Material.DIAMOND_CHESTPLATE));
+            armor.put(EquipmentSlot.LEGS, new StandInItemStack(Material.DIAMOND_LEGGINGS));
+            armor.put(EquipmentSlot.FEET, new StandInItemStack(Material.DIAMOND_BOOTS));
+        }
+
+        @Override
+        public Object invoke(Object self, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getUniqueId": return uuid;
+                case "getLocation": return location.clone();
+                case "getBoundingBox": return boundingBox.clone();
+                case "getPose": return Pose.STANDING;
+                case "getInventory": return inventory;
+                case "getAttribute": return maxHealthAttribute;
+                case "getHealth": return health;
+                case "setHealth": health = (Double) args[0]; return null;
+                case "isOnline": return true;
+                case "addPotionEffect": return true;
+                case "hashCode": return uuid.hashCode();
+                case "equals": return self == args[0];
+                default: return defaultValue(method.getReturnType());
+            }
+        }
+
+        private Object inventory(Object self, Method method, Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof EquipmentSlot slot) {
+                if (method.getName().equals("getItem")) return armor.get(slot);
+                if (method.getName().equals("setItem")) {
+                    armor.put(slot, (ItemStack) args[1]);
+                    return null;
+                }
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private Object attribute(Object self, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getBaseValue": return maxHealth[0];
+                case "setBaseValue": maxHealth[0] = (Double) args[0]; return null;
+                case "getValue": {
+                    double value = maxHealth[0];
+                    for (AttributeModifier modifier : maxHealthModifiers) value += modifier.getAmount();
+                    return value;
+                }
+                case "getModifiers": return List.copyOf(maxHealthModifiers);
+                case "addModifier": maxHealthModifiers.add((AttributeModifier) args[0]); return null;
+                case "removeModifier": maxHealthModifiers.remove(args[0]); return null;
+                default: return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * An armor piece that keeps its damage in a field instead of going through the server's item factory.
+     */
+    static final class StandInItemStack extends ItemStack {
+        private final Material type;
+        private int damage;
+
+        StandInItemStack(Material type) {
+            this.type = type;
+        }
+
+        @Override
+        public Material getType() {
+            return type;
+        }
+
+        @Override
+        public int getEnchantmentLevel(org.bukkit.enchantments.Enchantment enchantment) {
+            return 0;
+        }
+
+        @Override
+        public ItemMeta getItemMeta() {
+            // Like the real thing, every call returns a fresh copy
+            int[] metaDamage = {damage};
+            return (ItemMeta) proxy((self, method, args) -> switch (method.getName()) {
+                case "getDamage" -> metaDamage[0];
+                case "setDamage" -> {
+                    metaDamage[0] = (Integer) args[0];
+                    yield null;
+                }
+                case "hasDamage" -> metaDamage[0] > 0;
+                default -> defaultValue(method.getReturnType());
+            }, Damageable.class);
+        }
+
+        @Override
+        public boolean setItemMeta(ItemMeta itemMeta) {
+            if (itemMeta instanceof Damageable damageable) damage = damageable.getDamage();
+            return true;
+        }
+    }
+
+    private static Object answer(Map<String, Object> answers, Method method) {
+        Object answer = answers.get(method.getName());
+        if (answer instanceof Location location) return location.clone();
+        if (answer instanceof Vector vector) return vector.clone();
+        return answer != null ? answer : defaultValue(method.getReturnType());
+    }
+
+    private static Object proxy(InvocationHandler handler, Class<?> type) {
+        return Proxy.newProxyInstance(StandIns.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0.0f;
+        return 0.0;
+    }
+
+    private static PluginConfig loadBundledConfig() {
+        InputStream stream = StandIns.class.getClassLoader().getResourceAsStream("config.yml");
+        if (stream == null) throw new IllegalStateException("config.yml is not on the classpath");
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        return new PluginConfig(yaml, Logger.getLogger("PartsVitality-StandIns"));
+    }
+
+    /**
+     * The server normally registers the potion effect types by name at startup; do the same with the
+     * built-in constants so the debuff rules in config.yml resolve.
+     */
+    @SuppressWarnings("unchecked")
+    private static void registerPotionEffectTypes() throws ReflectiveOperationException {
+        Field byNameField = PotionEffectType.class.getDeclaredField("byName");
+        byNameField.setAccessible(true);
+        Map<String, PotionEffectType> byName = (Map<String, PotionEffectType>) byNameField.get(null);
+        for (Field field : PotionEffectType.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == PotionEffectType.class) {
+                byName.putIfAbsent(field.getName().toLowerCase(Locale.ENGLISH), (PotionEffectType) field.get(null));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T allocate(Class<T> type) throws ReflectiveOperationException {
+        Field unsafeField = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+        unsafeField.setAccessible(true);
+        Object unsafe = unsafeField.get(null);
+        return (T) unsafe.getClass().getMethod("allocateInstance", Class.class).invoke(unsafe, type);
+    }
+
+    private static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
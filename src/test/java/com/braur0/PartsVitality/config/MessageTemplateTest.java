@@ -0,0 +1,98 @@
+package com.braur0.PartsVitality.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MessageTemplateTest {
+
+    /**
+     * How messages were filled in before templates: one String.replace per placeholder.
+     */
+    private static String reference(String text, Map<String, String> placeholders) {
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            text = text.replace("{" + entry.getKey() + "}", entry.getValue());
+        }
+        return text;
+    }
+
+    private static String render(String text, Map<String, String> placeholders) {
+        return MessageTemplate.compile(text).render(placeholders);
+    }
+
+    @Test
+    void textWithoutPlaceholdersIsUnchanged() {
+        assertEquals("", MessageTemplate.compile("").render());
+        assertEquals("Plain text.", MessageTemplate.compile("Plain text.").render(Map.of("a", "1")));
+        assertEquals("Plain text.", MessageTemplate.compile("Plain text.").render("a", "1"));
+    }
+
+    @Test
+    void placeholdersAreFilledIn() {
+        assertEquals("Steve's HEAD is at 12.5 HP",
+                render("{player}'s {part} is at {hp} HP", Map.of("player", "Steve", "part", "HEAD", "hp", "12.5")));
+        assertEquals("HP: 3", MessageTemplate.compile("HP: {hp}").render("hp", "3"));
+    }
+
+    @Test
+    void adjacentAndRepeatedPlaceholdersAreFilledIn() {
+        assertEquals("12", render("{a}{b}", Map.of("a", "1", "b", "2")));
+        assertEquals("1 and 1", render("{a} and {a}", Map.of("a", "1")));
+        assertEquals("x1y", MessageTemplate.compile("x{a}y").render("a", "1"));
+    }
+
+    @Test
+    void missingPlaceholdersAreLeftAsTheyAre() {
+        assertEquals("{a} and {b}", MessageTemplate.compile("{a} and {b}").render());
+        assertEquals("1 and {b}", render("{a} and {b}", Map.of("a", "1")));
+        assertEquals("{a} and 2", MessageTemplate.compile("{a} and {b}").render("b", "2"));
+    }
+
+    @Test
+    void strayBracesAreKeptAsText() {
+        assertEquals("a } b", render("a } b", Map.of("a", "1")));
+        assertEquals("} 1 {", render("} {a} {", Map.of("a", "1")));
+        assertEquals("{} 1", render("{} {a}", Map.of("a", "1")));
+        assertEquals("{{1}}", render("{{{a}}}", Map.of("a", "1")));
+    }
+
+    @Test
+    void anUnclosedBraceEndsParsing() {
+        assertEquals("1 {a", render("{a} {a", Map.of("a", "1")));
+        assertEquals("{open 1", render("{open {a}", Map.of("a", "1")));
+        assertEquals("{", render("{", Map.of("a", "1")));
+    }
+
+    @Test
+    void anyKeyBetweenBracesIsAPlaceholder() {
+        assertEquals("Steve HP", render("{player name} HP", Map.of("player name", "Steve")));
+        assertEquals("1", render("{a.b}", Map.of("a.b", "1")));
+        assertEquals("{a b}", render("{a b}", Map.of("a", "1", "b", "2")));
+    }
+
+    @Test
+    void valuesAreNotFilledInAgain() {
+        assertEquals("{b} 2", render("{a} {b}", Map.of("a", "{b}", "b", "2")));
+    }
+
+    @Test
+    void randomMessagesMatchStringReplace() {
+        // Values without braces, so the order of the String.replace calls doesn't matter
+        Map<String, String> placeholders = new LinkedHashMap<>();
+        placeholders.put("a", "1");
+        placeholders.put("b", "22");
+        placeholders.put("a b", "333");
+        char[] alphabet = {'{', '}', 'a', 'b', ' ', 'x'};
+        SplittableRandom random = new SplittableRandom(14);
+        for (int i = 0; i < 100_000; i++) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; j++) chars[j] = alphabet[random.nextInt(alphabet.length)];
+            String text = new String(chars);
+            assertEquals(reference(text, placeholders), render(text, placeholders), text);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pins the damage rules the listener applied before they moved into the engine, with the shipped config.yml values.
+ */
+class DamageEngineTest {
+
+    // parts.*.max-hp, damage.damage-multiplier, durability.damage-per-durability-point and health-penalty-per-broken-part
+    private static final double[] MAX_HP = {20.0, 29.0, 27.0, 24.0};
+    private static final double MULTIPLIER = 5.0;
+    private static final double PER_DURABILITY_POINT = 0.4;
+    private static final double PENALTY = 5.0;
+    // The thresholds of every group in the debuffs section
+    private static final DebuffTiers TIERS = new DebuffTiers(new double[][]{{0.2, 0.5}, {0.2, 0.5}, {0.2, 0.5}});
+
+    // A standing player's hitbox
+    private static final double MIN_Y = 64.0;
+    private static final double HEIGHT = 1.8;
+
+    private static final int HEAD = Part.HEAD.ordinal();
+    private static final int CHEST = Part.CHEST.ordinal();
+    private static final int LEGS = Part.LEGS.ordinal();
+    private static final int FEET = Part.FEET.ordinal();
+
+    private static DamageEngine engine(boolean damageArmor) {
+        return new DamageEngine(MAX_HP, MULTIPLIER, damageArmor, PER_DURABILITY_POINT, PENALTY, TIERS, HitZoneTable.defaults());
+    }
+
+    private static DamageResult resolve(double[] partHP, DamageSource source, double hearts, double hitFraction) {
+        double hitY = Double.isNaN(hitFraction) ? Double.NaN : MIN_Y + hitFraction * HEIGHT;
+        return engine(true).resolve(partHP, source, hearts, hitY, MIN_Y, HEIGHT, BodyPose.STANDING, new DamageResult());
+    }
+
+    @Test
+    void locatedHitsGoToTheZoneTheyLandIn() {
+        // The old listener's boundaries: head from 85%, chest from 40%, legs from 10% of the hitbox height
+        double[] fractions = {0.85, 0.849, 0.4, 0.399, 0.1, 0.099, 0.0, 1.0};
+        Part[] expected = {Part.HEAD, Part.CHEST, Part.CHEST, Part.LEGS, Part.LEGS, Part.FEET, Part.FEET, Part.HEAD};
+        for (int i = 0; i < fractions.length; i++) {
+            DamageResult result = resolve(MAX_HP, DamageSource.MELEE, 1.0, fractions[i]);
+            assertEquals(expected[i].bit(), result.targetMask, "Hit at " + fractions[i]);
+            assertEquals(expected[i].bit(), result.damagedMask, "Hit at " + fractions[i]);
+            assertEquals(1.0 * MULTIPLIER, result.partDamage[expected[i].ordinal()], 1e-12);
+        }
+    }
+
+    @Test
+    void unlocatedHitsAreSplitEvenlyOverAllParts() {
+        DamageResult result = resolve(MAX_HP, DamageSource.PROJECTILE, 2.0, Double.NaN);
+        assertEquals(Part.ALL_MASK, result.targetMask);
+        for (Part part : Part.VALUES) {
+            assertEquals(2.0 * MULTIPLIER / Part.COUNT, result.partDamage[part.ordinal()], 1e-12);
+            assertEquals(MAX_HP[part.ordinal()] - 2.5, result.partHP[part.ordinal()], 1e-12);
+        }
+    }
+
+    @Test
+    void fallDamageGoesToLegsAndFeetWithoutWearingArmor() {
+        DamageResult result = resolve(MAX_HP, DamageSource.FALL, 2.0, 0.9);
+        assertEquals(Part.LEGS.bit() | Part.FEET.bit(), result.damagedMask);
+        assertEquals(5.0, result.partDamage[LEGS], 1e-12);
+        assertEquals(5.0, result.partDamage[FEET], 1e-12);
+        assertEquals(0.0, result.partDamage[HEAD]);
+        assertArrayEquals(new int[Part.COUNT], result.durabilityPoints);
+    }
+
+    @Test
+    void otherDamageIsSplitOverAllPartsWithoutWearingArmor() {
+        DamageResult result = resolve(MAX_HP, DamageSource.OTHER, 1.0, Double.NaN);
+        assertEquals(Part.ALL_MASK, result.damagedMask);
+        for (Part part : Part.VALUES) {
+            assertEquals(1.25, result.partDamage[part.ordinal()], 1e-12);
+        }
+        assertArrayEquals(new int[Part.COUNT], result.durabilityPoints);
+    }
+
+    @Test
+    void voidIsInstantDeathAndLeavesPartsAlone() {
+        DamageResult result = resolve(MAX_HP, DamageSource.VOID, 4.0, Double.NaN);
+        assertTrue(result.instantDeath);
+        assertEquals(0, result.damagedMask);
+        assertArrayEquals(MAX_HP, result.partHP);
+    }
+
+    @Test
+    void brokenPartsAreLeftOutOfTheSplit() {
+        double[] partHP = {0.0, 29.0, 27.0, 24.0};
+        DamageResult result = resolve(partHP, DamageSource.OTHER, 3.0, Double.NaN);
+        assertEquals(Part.CHEST.bit() | Part.LEGS.bit() | Part.FEET.bit(), result.damagedMask);
+        assertEquals(0.0, result.partDamage[HEAD]);
+        for (int part : new int[]{CHEST, LEGS, FEET}) {
+            assertEquals(5.0, result.partDamage[part], 1e-12);
+        }
+    }
+
+    @Test
+    void hitOnABrokenTargetGoesEvenlyToTheRemainingParts() {
+        double[] partHP = {0.0, 29.0, 0.0, 24.0};
+        DamageResult result = resolve(partHP, DamageSource.MELEE, 2.0, 0.95);
+        assertEquals(Part.HEAD.bit(), result.targetMask);
+        assertEquals(Part.CHEST.bit() | Part.FEET.bit(), result.damagedMask);
+        assertEquals(5.0, result.partDamage[CHEST], 1e-12);
+        assertEquals(5.0, result.partDamage[FEET], 1e-12);
+        assertEquals(0.0, result.partHP[HEAD]);
+        assertEquals(0.0, result.partHP[LEGS]);
+    }
+
+    @Test
+    void hitWithEveryPartBrokenDealsNothing() {
+        DamageResult result = resolve(new double[Part.COUNT], DamageSource.MELEE, 2.0, 0.5);
+        assertEquals(0, result.damagedMask);
+        assertArrayEquals(new double[Part.COUNT], result.partDamage);
+        assertEquals(Part.ALL_MASK, result.brokenMask);
+    }
+
+    @Test
+    void partHPIsClampedAtZeroAndBreaksThePart() {
+        DamageResult result = resolve(MAX_HP, DamageSource.MELEE, 10.0, 0.95);
+        // The damage dealt is what was aimed at the part, not what it had left
+        assertEquals(50.0, result.partDamage[HEAD], 1e-12);
+        assertEquals(0.0, result.partHP[HEAD]);
+        assertEquals(Part.HEAD.bit(), result.brokenMask);
+        assertEquals(1, result.getBrokenPartCount());
+        assertEquals(20.0 - PENALTY, result.maxHealth, 1e-12);
+    }
+
+    @Test
+    void durabilityPointsAreTruncated() {
+        // 1 heart is 5 part damage, so 12.5 points
+        DamageResult result = resolve(MAX_HP, DamageSource.MELEE, 1.0, 0.5);
+        assertEquals(12, result.durabilityPoints[CHEST]);
+        // 0.3 part damage is less than a point
+        result = resolve(MAX_HP, DamageSource.MELEE, 0.06, 0.5);
+        assertEquals(0, result.durabilityPoints[CHEST]);
+        // Split over all parts, every part's share is truncated on its own: 1.25 / 0.4 = 3.125
+        result = resolve(MAX_HP, DamageSource.PROJECTILE, 1.0, Double.NaN);
+        assertArrayEquals(new int[]{3, 3, 3, 3}, result.durabilityPoints);
+    }
+
+    @Test
+    void armorIsNotWornWhenCustomDurabilityIsOff() {
+        DamageResult result = engine(false).resolve(MAX_HP, DamageSource.MELEE, 4.0, MIN_Y + 0.5 * HEIGHT,
+                MIN_Y, HEIGHT, BodyPose.STANDING, new DamageResult());
+        assertEquals(20.0, result.partDamage[CHEST], 1e-12);
+        assertArrayEquals(new int[Part.COUNT], result.durabilityPoints);
+    }
+
+    @Test
+    void debuffTiersFollowTheNewPartHP() {
+        // Head at 40% (tier 2, the 0.5 rule), chest at 10% (tier 1, the 0.2 rule), legs and feet untouched
+        double[] partHP = {MAX_HP[HEAD] * 0.4 + 5.0, MAX_HP[CHEST] * 0.1, 27.0, 24.0};
+        DamageResult result = resolve(partHP, DamageSource.MELEE, 1.0, 0.95);
+        assertArrayEquals(new int[]{2, 1, DebuffTiers.TIER_NONE}, result.debuffTiers);
+
+        // Legs and feet share a group: a ratio of exactly 0.5 of their combined HP is in the 0.5 rule
+        double[] legsDown = {20.0, 29.0, 6.5, 24.0};
+        result = resolve(legsDown, DamageSource.MELEE, 1.0, 0.05);
+        assertEquals(25.5, result.partHP[LEGS] + result.partHP[FEET]);
+        assertEquals(2, result.debuffTiers[DebuffTiers.GROUP_LEGS_AND_FEET]);
+    }
+
+    @Test
+    void maxHealthNeverDropsBelowOneHeart() {
+        DamageEngine engine = new DamageEngine(MAX_HP, MULTIPLIER, true, PER_DURABILITY_POINT, 7.0, TIERS, HitZoneTable.defaults());
+        assertEquals(20.0, engine.getMaxHealth(0), 1e-12);
+        assertEquals(6.0, engine.getMaxHealth(2), 1e-12);
+        assertEquals(DamageEngine.MIN_MAX_HEALTH, engine.getMaxHealth(3), 1e-12);
+        assertEquals(DamageEngine.MIN_MAX_HEALTH, engine.getMaxHealth(4), 1e-12);
+        assertEquals(18.0, engine.getHealthPenalty(4), 1e-12);
+        assertEquals(0.0, engine.getHealthPenalty(0), 1e-12);
+    }
+
+    @Test
+    void explosionIsWeightedTowardsTheNearestParts() {
+        // Goes off at foot level, half a block in front of the player
+        ExplosionContext blast = new ExplosionContext(0.5, MIN_Y, 1.0);
+        DamageResult result = engine(true).resolveExplosion(MAX_HP, 4.0, blast, 0.5, 0.5, MIN_Y, HEIGHT,
+                BodyPose.STANDING, new DamageResult());
+
+        assertEquals(Part.ALL_MASK, result.damagedMask);
+        double total = 0.0;
+        for (double damage : result.partDamage) total += damage;
+        assertEquals(4.0 * MULTIPLIER, total, 1e-9);
+        assertTrue(result.partDamage[FEET] > result.partDamage[LEGS]);
+        assertTrue(result.partDamage[LEGS] > result.partDamage[CHEST]);
+        assertTrue(result.partDamage[CHEST] > result.partDamage[HEAD]);
+        for (Part part : Part.VALUES) {
+            int index = part.ordinal();
+            assertEquals(result.partWeights[index] * total, result.partDamage[index], 1e-9);
+            assertEquals((int) (result.partDamage[index] / PER_DURABILITY_POINT), result.durabilityPoints[index]);
+        }
+    }
+
+    @Test
+    void explosionWeightOfBrokenPartsGoesToTheRestInProportion() {
+        ExplosionContext blast = new ExplosionContext(0.5, MIN_Y, 1.0);
+        DamageResult whole = engine(true).resolveExplosion(MAX_HP, 4.0, blast, 0.5, 0.5, MIN_Y, HEIGHT,
+                BodyPose.STANDING, new DamageResult());
+        double[] feetBroken = {20.0, 29.0, 27.0, 0.0};
+        DamageResult result = engine(true).resolveExplosion(feetBroken, 4.0, blast, 0.5, 0.5, MIN_Y, HEIGHT,
+                BodyPose.STANDING, new DamageResult());
+
+        assertEquals(0, result.damagedMask & Part.FEET.bit());
+        assertEquals(0.0, result.partDamage[FEET]);
+        double remaining = whole.partWeights[HEAD] + whole.partWeights[CHEST] + whole.partWeights[LEGS];
+        for (int part : new int[]{HEAD, CHEST, LEGS}) {
+            assertEquals(20.0 * whole.partWeights[part] / remaining, result.partDamage[part], 1e-9);
+        }
+    }
+
+    @Test
+    void explosionOnTheLastPartLeftDealsAllOfIt() {
+        // Nothing left but the head: it takes everything, however far it is from the blast
+        double[] onlyHead = {20.0, 0.0, 0.0, 0.0};
+        ExplosionContext blast = new ExplosionContext(0.5, MIN_Y, 1.0);
+        DamageResult result = engine(true).resolveExplosion(onlyHead, 2.0, blast, 0.5, 0.5, MIN_Y, HEIGHT,
+                BodyPose.STANDING, new DamageResult());
+        assertEquals(Part.HEAD.bit(), result.damagedMask);
+        assertEquals(10.0, result.partDamage[HEAD], 1e-12);
+        assertEquals(10.0, result.partHP[HEAD], 1e-12);
+        assertEquals(20.0 - 3 * PENALTY, result.maxHealth, 1e-12);
+    }
+}
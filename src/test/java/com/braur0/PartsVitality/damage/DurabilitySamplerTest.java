@@ -0,0 +1,118 @@
+package com.braur0.PartsVitality.damage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurabilitySamplerTest {
+
+    private static final int SAMPLES = 200_000;
+    // Upper 0.1% point of the standard normal, for the chi-square critical values
+    private static final double Z_999 = 3.090;
+
+    @Test
+    void withoutUnbreakingEveryPointIsLost() {
+        SplittableRandom random = new SplittableRandom(1);
+        assertEquals(37, DurabilitySampler.sampleLoss(37, 0, random));
+        assertEquals(0, DurabilitySampler.sampleLoss(0, 3, random));
+        assertEquals(0, DurabilitySampler.sampleLoss(-4, 3, random));
+    }
+
+    @Test
+    void lossIsNeverMoreThanThePoints() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int i = 0; i < SAMPLES; i++) {
+            int points = 1 + random.nextInt(100);
+            int loss = DurabilitySampler.sampleLoss(points, 1 + random.nextInt(3), random);
+            assertTrue(loss >= 0 && loss <= points, "Loss " + loss + " out of range for " + points + " points");
+        }
+    }
+
+    /**
+     * The one-step sample must follow Binomial(n, 1 / (L + 1)), the distribution of the old per-point loop.
+     */
+    @Test
+    void matchesTheBinomialDistribution() {
+        int[][] cases = {{1, 1}, {5, 3}, {20, 1}, {60, 3}, {200, 2}};
+        SplittableRandom random = new SplittableRandom(42);
+        for (int[] c : cases) {
+            int n = c[0];
+            int level = c[1];
+            long[] observed = new long[n + 1];
+            for (int i = 0; i < SAMPLES; i++) {
+                observed[DurabilitySampler.sampleLoss(n, level, random)]++;
+            }
+            assertFitsBinomial(observed, n, 1.0 / (level + 1.0), "n=" + n + ", level=" + level);
+        }
+    }
+
+    /**
+     * Side by side with the per-point loop the sampler replaced, the mean loss agrees within sampling error.
+     */
+    @Test
+    void agreesWithThePerPointLoop() {
+        SplittableRandom random = new SplittableRandom(7);
+        int n = 40;
+        for (int level = 1; level <= 3; level++) {
+            double p = 1.0 / (level + 1.0);
+            long sampled = 0;
+            long looped = 0;
+            for (int i = 0; i < SAMPLES; i++) {
+                sampled += DurabilitySampler.sampleLoss(n, level, random);
+                for (int point = 0; point < n; point++) {
+                    if (random.nextDouble() < p) looped++;
+                }
+            }
+            double difference = (sampled - looped) / (double) SAMPLES;
+            // Standard error of the difference of two means, each with variance n p (1 - p)
+            double standardError = Math.sqrt(2.0 * n * p * (1.0 - p) / SAMPLES);
+            assertTrue(Math.abs(difference) < 4.0 * standardError,
+                    "Level " + level + ": mean loss differs by " + difference);
+        }
+    }
+
+    /**
+     * Pearson's chi-square goodness of fit, pooling adjacent outcomes until each bin expects at least 5 samples.
+     */
+    private static void assertFitsBinomial(long[] observed, int n, double p, String label) {
+        double chiSquare = 0.0;
+        int bins = 0;
+        double expectedBin = 0.0;
+        long observedBin = 0;
+        for (int k = 0; k <= n; k++) {
+            expectedBin += SAMPLES * binomialPmf(n, k, p);
+            observedBin += observed[k];
+            if (expectedBin >= 5.0 || k == n) {
+                if (expectedBin > 0.0) {
+                    chiSquare += (observedBin - expectedBin) * (observedBin - expectedBin) / expectedBin;
+                    bins++;
+                }
+                expectedBin = 0.0;
+                observedBin = 0;
+            }
+        }
+        int degrees = Math.max(1, bins - 1);
+        assertTrue(chiSquare < chiSquareCritical(degrees),
+                label + ": chi-square " + chiSquare + " with " + degrees + " degrees of freedom");
+    }
+
+    private static double binomialPmf(int n, int k, double p) {
+        double logCoefficient = 0.0;
+        for (int i = 1; i <= k; i++) {
+            logCoefficient += Math.log(n - k + i) - Math.log(i);
+        }
+        return Math.exp(logCoefficient + k * Math.log(p) + (n - k) * Math.log1p(-p));
+    }
+
+    /**
+     * The 99.9% point of the chi-square distribution (Wilson-Hilferty approximation).
+     */
+    private static double chiSquareCritical(int degrees) {
+        double a = 2.0 / (9.0 * degrees);
+        double root = 1.0 - a + Z_999 * Math.sqrt(a);
+        return degrees * root * root * root;
+    }
+}
@@ -0,0 +1,108 @@
+package com.braur0.PartsVitality.damage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitLocatorTest {
+
+    // A standing player's hitbox
+    private static final double MIN_X = 0.2, MIN_Y = 64.0, MIN_Z = 0.2;
+    private static final double MAX_X = 0.8, MAX_Y = 65.8, MAX_Z = 0.8;
+    private static final double MAX_DISTANCE = 6.0;
+    // The increment the stepped search used to march along the ray by default
+    private static final double STEP = 0.1;
+
+    @Test
+    void entersThroughTheFrontFace() {
+        double t = HitLocator.intersect(0.5, 65.0, 3.0, 0.0, 0.0, -1.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertEquals(2.2, t, 1e-12);
+    }
+
+    @Test
+    void originInsideTheBoxIsDistanceZero() {
+        double t = HitLocator.intersect(0.5, 65.0, 0.5, 1.0, 0.0, 0.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertEquals(0.0, t);
+    }
+
+    @Test
+    void axisParallelRayOutsideTheSlabMisses() {
+        double t = HitLocator.intersect(1.5, 65.0, 3.0, 0.0, 0.0, -1.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertTrue(Double.isNaN(t));
+    }
+
+    @Test
+    void boxBeyondMaxDistanceMisses() {
+        double t = HitLocator.intersect(0.5, 65.0, 10.0, 0.0, 0.0, -1.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertTrue(Double.isNaN(t));
+    }
+
+    @Test
+    void rayPointingAwayMisses() {
+        double t = HitLocator.intersect(0.5, 65.0, 3.0, 0.0, 0.0, 1.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertTrue(Double.isNaN(t));
+    }
+
+    @Test
+    void entryYFollowsTheRay() {
+        // Aimed down from 3 blocks away, so it enters the front face below eye height
+        double y = HitLocator.entryY(0.5, 65.62, 3.0, 0.0, -0.2, -1.0,
+                MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+        assertEquals(65.62 - 0.2 * 2.2, y, 1e-12);
+    }
+
+    /**
+     * The exact search must find every hit the stepped search found, and the stepped hit point
+     * must lie within one step past the exact entry point.
+     */
+    @Test
+    void agreesWithTheSteppedSearch() {
+        SplittableRandom random = new SplittableRandom(42);
+        int steppedHits = 0;
+        for (int i = 0; i < 200_000; i++) {
+            // Attackers around the victim, aiming roughly at it
+            double ox = 0.5 + random.nextDouble(-4.0, 4.0);
+            double oy = 64.0 + random.nextDouble(0.0, 3.0);
+            double oz = 0.5 + random.nextDouble(-4.0, 4.0);
+            double dx = 0.5 + random.nextDouble(-0.6, 0.6) - ox;
+            double dy = 64.9 + random.nextDouble(-1.5, 1.5) - oy;
+            double dz = 0.5 + random.nextDouble(-0.6, 0.6) - oz;
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            dx /= length;
+            dy /= length;
+            dz /= length;
+
+            double exact = HitLocator.intersect(ox, oy, oz, dx, dy, dz, MIN_X, MIN_Y, MIN_Z, MAX_X, MAX_Y, MAX_Z, MAX_DISTANCE);
+            double stepped = steppedSearch(ox, oy, oz, dx, dy, dz);
+            if (Double.isNaN(stepped)) continue;
+            steppedHits++;
+
+            assertFalse(Double.isNaN(exact), "The stepped search hit a ray the exact search missed");
+            assertTrue(exact <= stepped + 1e-9, "The exact entry is behind the stepped hit point");
+            assertTrue(stepped - exact < STEP + 1e-9, "The stepped hit point is more than a step past the entry");
+        }
+        assertTrue(steppedHits > 10_000, "Too few rays hit to compare: " + steppedHits);
+    }
+
+    /**
+     * The search this class replaced: march along the ray and stop at the first point inside the box.
+     */
+    private static double steppedSearch(double ox, double oy, double oz, double dx, double dy, double dz) {
+        for (double t = 0.0; t <= MAX_DISTANCE; t += STEP) {
+            double x = ox + dx * t;
+            double y = oy + dy * t;
+            double z = oz + dz * t;
+            if (x >= MIN_X && x <= MAX_X && y >= MIN_Y && y <= MAX_Y && z >= MIN_Z && z <= MAX_Z) return t;
+        }
+        return Double.NaN;
+    }
+}
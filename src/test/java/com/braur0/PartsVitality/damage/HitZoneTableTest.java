@@ -0,0 +1,145 @@
+package com.braur0.PartsVitality.damage;
+
+import com.braur0.PartsVitality.model.Part;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HitZoneTableTest {
+
+    private static final double MIN_Y = 64.0;
+
+    /**
+     * The hitbox height of a player in each pose.
+     */
+    private static double boxHeight(BodyPose pose) {
+        return switch (pose) {
+            case STANDING -> 1.8;
+            case SNEAKING -> 1.5;
+            case SWIMMING, CRAWLING, GLIDING -> 0.6;
+        };
+    }
+
+    /**
+     * The comparisons the lookup table replaces.
+     */
+    private static Part reference(double[] starts, double fraction) {
+        if (fraction >= starts[0]) return Part.HEAD;
+        if (fraction >= starts[1]) return Part.CHEST;
+        if (fraction >= starts[2]) return Part.LEGS;
+        return Part.FEET;
+    }
+
+    @Test
+    void everyPoseMatchesItsDefaultZones() {
+        HitZoneTable table = HitZoneTable.defaults();
+        SplittableRandom random = new SplittableRandom(15);
+        for (BodyPose pose : BodyPose.VALUES) {
+            double[] starts = pose.getDefaultZoneStarts();
+            double height = boxHeight(pose);
+            for (int i = 0; i < 100_000; i++) {
+                // Away from the zone starts, where rounding to the table's precision may differ
+                double fraction = random.nextDouble();
+                boolean nearStart = false;
+                for (double start : starts) {
+                    if (Math.abs(fraction - start) < 1.0 / HitZoneTable.RESOLUTION) nearStart = true;
+                }
+                if (nearStart) continue;
+
+                Part expected = reference(starts, fraction);
+                assertEquals(expected, table.classifyPart(pose, MIN_Y + fraction * height, MIN_Y, height),
+                        pose + " at " + fraction);
+            }
+        }
+    }
+
+    @Test
+    void hitOnAZoneStartBelongsToTheZoneAbove() {
+        HitZoneTable table = HitZoneTable.defaults();
+        for (BodyPose pose : BodyPose.VALUES) {
+            double[] starts = pose.getDefaultZoneStarts();
+            double height = boxHeight(pose);
+            Part[] zones = {Part.HEAD, Part.CHEST, Part.LEGS};
+            Part[] below = {Part.CHEST, Part.LEGS, Part.FEET};
+            for (int zone = 0; zone < zones.length; zone++) {
+                double y = MIN_Y + starts[zone] * height;
+                assertEquals(zones[zone], table.classifyPart(pose, y, MIN_Y, height), pose + " on the " + zones[zone] + " start");
+                assertEquals(below[zone], table.classifyPart(pose, y - 0.02 * height, MIN_Y, height), pose + " below the " + zones[zone] + " start");
+            }
+        }
+    }
+
+    @Test
+    void heightsOutsideTheBoxAreClamped() {
+        HitZoneTable table = HitZoneTable.defaults();
+        for (BodyPose pose : BodyPose.VALUES) {
+            double height = boxHeight(pose);
+            assertEquals(Part.HEAD, table.classifyPart(pose, MIN_Y + height + 0.5, MIN_Y, height));
+            assertEquals(Part.HEAD, table.classifyPart(pose, MIN_Y + height, MIN_Y, height));
+            assertEquals(Part.FEET, table.classifyPart(pose, MIN_Y - 0.5, MIN_Y, height));
+        }
+    }
+
+    @Test
+    void classifyReturnsThePartBit() {
+        HitZoneTable table = HitZoneTable.defaults();
+        for (BodyPose pose : BodyPose.VALUES) {
+            double height = boxHeight(pose);
+            for (int step = 0; step < HitZoneTable.RESOLUTION; step++) {
+                double y = MIN_Y + (step + 0.5) / HitZoneTable.RESOLUTION * height;
+                assertEquals(table.classifyPart(pose, y, MIN_Y, height).bit(), table.classify(pose, y, MIN_Y, height));
+            }
+        }
+    }
+
+    @Test
+    void posesAreConfiguredIndependently() {
+        double[][] starts = new double[BodyPose.COUNT][];
+        for (BodyPose pose : BodyPose.VALUES) starts[pose.ordinal()] = pose.getDefaultZoneStarts();
+        // Sneaking players hunch over: the head zone covers the top half
+        starts[BodyPose.SNEAKING.ordinal()] = new double[]{0.5, 0.2, 0.1};
+        HitZoneTable table = new HitZoneTable(starts);
+
+        double sneaking = boxHeight(BodyPose.SNEAKING);
+        assertEquals(Part.HEAD, table.classifyPart(BodyPose.SNEAKING, MIN_Y + 0.6 * sneaking, MIN_Y, sneaking));
+        assertEquals(Part.CHEST, table.classifyPart(BodyPose.SNEAKING, MIN_Y + 0.3 * sneaking, MIN_Y, sneaking));
+
+        double standing = boxHeight(BodyPose.STANDING);
+        assertEquals(Part.CHEST, table.classifyPart(BodyPose.STANDING, MIN_Y + 0.6 * standing, MIN_Y, standing));
+        assertEquals(Part.LEGS, table.classifyPart(BodyPose.STANDING, MIN_Y + 0.3 * standing, MIN_Y, standing));
+    }
+
+    @Test
+    void zoneStartingAboveTheOneOverItIsNeverHit() {
+        double[][] starts = new double[BodyPose.COUNT][];
+        for (BodyPose pose : BodyPose.VALUES) starts[pose.ordinal()] = pose.getDefaultZoneStarts();
+        // Gliding with no legs zone: it starts at the chest start
+        starts[BodyPose.GLIDING.ordinal()] = new double[]{0.7, 0.3, 0.3};
+        HitZoneTable table = new HitZoneTable(starts);
+
+        double height = boxHeight(BodyPose.GLIDING);
+        for (int step = 0; step < HitZoneTable.RESOLUTION; step++) {
+            double y = MIN_Y + (step + 0.5) / HitZoneTable.RESOLUTION * height;
+            assertNotEquals(Part.LEGS, table.classifyPart(BodyPose.GLIDING, y, MIN_Y, height));
+        }
+        assertTrue(Double.isNaN(table.getZoneCenter(BodyPose.GLIDING, Part.LEGS)));
+        assertEquals(0.15, table.getZoneCenter(BodyPose.GLIDING, Part.FEET), 1e-12);
+    }
+
+    @Test
+    void zoneCentersFollowThePose() {
+        HitZoneTable table = HitZoneTable.defaults();
+        assertEquals(0.925, table.getZoneCenter(BodyPose.STANDING, Part.HEAD), 1e-12);
+        assertEquals(0.625, table.getZoneCenter(BodyPose.STANDING, Part.CHEST), 1e-12);
+        assertEquals(0.25, table.getZoneCenter(BodyPose.STANDING, Part.LEGS), 1e-12);
+        assertEquals(0.05, table.getZoneCenter(BodyPose.STANDING, Part.FEET), 1e-12);
+        assertEquals(0.9, table.getZoneCenter(BodyPose.SNEAKING, Part.HEAD), 1e-12);
+        assertEquals(0.85, table.getZoneCenter(BodyPose.SWIMMING, Part.HEAD), 1e-12);
+        assertEquals(0.175, table.getZoneCenter(BodyPose.CRAWLING, Part.LEGS), 1e-12);
+        assertEquals(0.025, table.getZoneCenter(BodyPose.GLIDING, Part.FEET), 1e-12);
+    }
+}
@@ -0,0 +1,257 @@
+package com.braur0.PartsVitality.journal;
+
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageSource;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.storage.FailingFileChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DamageJournalTest {
+
+    private static final Logger LOGGER = Logger.getLogger("DamageJournalTest");
+
+    static {
+        // Failed writes are logged by the writer thread; the tests check the files instead
+        LOGGER.setLevel(Level.OFF);
+    }
+
+    @TempDir
+    Path directory;
+
+    private final List<DamageJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        for (DamageJournal journal : opened) journal.close();
+    }
+
+    private DamageJournal open(int capacity, long maxFileBytes, int maxFiles) {
+        DamageJournal journal = new DamageJournal(directory, LOGGER, capacity, maxFileBytes, maxFiles);
+        opened.add(journal);
+        return journal;
+    }
+
+    /**
+     * A record with every field set, distinct for each tick.
+     */
+    private static DamageRecord record(int tick) {
+        DamageRecord record = new DamageRecord();
+        record.tick = tick;
+        record.victimMost = 0x0123456789ABCDEFL * tick;
+        record.victimLeast = -tick;
+        record.cause = 13;
+        record.source = DamageSource.PROJECTILE;
+        record.pose = BodyPose.SNEAKING;
+        record.player = true;
+        record.explosion = tick % 2 == 0;
+        record.targetMask = 0b0001;
+        record.damagedMask = 0b0011;
+        record.brokenMask = 0b0010;
+        record.overriddenMask = 0b1000;
+        record.finalDamage = 7.25 + tick;
+        record.hitY = 65.4;
+        record.boxCenterX = -12.5;
+        record.boxMinY = 64.0;
+        record.boxCenterZ = 300.75;
+        record.boxHeight = 1.5;
+        record.attackerX = Double.NaN;
+        record.attackerY = 66.0;
+        record.attackerZ = -0.0;
+        for (int i = 0; i < Part.COUNT; i++) {
+            record.partHPBefore[i] = 20 + i;
+            record.partHPAfter[i] = 10.5 + i;
+        }
+        return record;
+    }
+
+    private static void assertRecordEquals(DamageRecord expected, DamageRecord actual) {
+        assertEquals(expected.tick, actual.tick);
+        assertEquals(expected.victimMost, actual.victimMost);
+        assertEquals(expected.victimLeast, actual.victimLeast);
+        assertEquals(expected.cause, actual.cause);
+        assertEquals(expected.source, actual.source);
+        assertEquals(expected.pose, actual.pose);
+        assertEquals(expected.player, actual.player);
+        assertEquals(expected.explosion, actual.explosion);
+        assertEquals(expected.targetMask, actual.targetMask);
+        assertEquals(expected.damagedMask, actual.damagedMask);
+        assertEquals(expected.brokenMask, actual.brokenMask);
+        assertEquals(expected.overriddenMask, actual.overriddenMask);
+        assertEquals(expected.finalDamage, actual.finalDamage);
+        assertEquals(expected.hitY, actual.hitY);
+        assertEquals(expected.boxCenterX, actual.boxCenterX);
+        assertEquals(expected.boxMinY, actual.boxMinY);
+        assertEquals(expected.boxCenterZ, actual.boxCenterZ);
+        assertEquals(expected.boxHeight, actual.boxHeight);
+        assertEquals(expected.attackerX, actual.attackerX);
+        assertEquals(expected.attackerY, actual.attackerY);
+        assertEquals(expected.attackerZ, actual.attackerZ);
+        assertArrayEquals(expected.partHPBefore, actual.partHPBefore);
+        assertArrayEquals(expected.partHPAfter, actual.partHPAfter);
+    }
+
+    /**
+     * @return The ticks of every record in the journal files, oldest file first.
+     */
+    private List<Integer> readTicks() throws IOException {
+        List<Integer> ticks = new ArrayList<>();
+        DamageRecord record = new DamageRecord();
+        for (Path file : DamageJournal.listFiles(directory)) {
+            try (DamageJournalReader reader = new DamageJournalReader(file)) {
+                while (reader.next(record)) ticks.add(record.tick);
+            }
+        }
+        return ticks;
+    }
+
+    @Test
+    void recordsSurviveEncodingAndDecoding() {
+        ByteBuffer buffer = ByteBuffer.allocate(DamageRecord.SIZE * 2);
+        DamageRecord original = record(3);
+        original.encode(buffer, DamageRecord.SIZE);
+        assertEquals(0, buffer.position());
+
+        buffer.position(DamageRecord.SIZE);
+        DamageRecord decoded = new DamageRecord();
+        assertTrue(decoded.decode(buffer));
+        assertEquals(DamageRecord.SIZE * 2, buffer.position());
+        assertRecordEquals(original, decoded);
+    }
+
+    @Test
+    void recordsWithAnUnknownSourceOrPoseAreInvalid() {
+        ByteBuffer buffer = ByteBuffer.allocate(DamageRecord.SIZE);
+        record(1).encode(buffer, 0);
+        // The source ordinal follows the tick, the victim and the cause
+        buffer.put(Integer.BYTES + Long.BYTES * 2 + 1, (byte) DamageSource.values().length);
+        assertFalse(new DamageRecord().decode(buffer));
+
+        buffer.clear();
+        record(1).encode(buffer, 0);
+        buffer.put(Integer.BYTES + Long.BYTES * 2 + 2, (byte) BodyPose.COUNT);
+        assertFalse(new DamageRecord().decode(buffer));
+    }
+
+    @Test
+    void recordsAreWrittenInOrderAndReadBack() throws IOException {
+        DamageJournal journal = open(16, 1 << 20, 4);
+        for (int tick = 0; tick < 10; tick++) {
+            assertTrue(journal.record(record(tick)));
+        }
+        journal.flush();
+
+        List<Path> files = DamageJournal.listFiles(directory);
+        assertEquals(1, files.size());
+        DamageRecord read = new DamageRecord();
+        try (DamageJournalReader reader = new DamageJournalReader(files.get(0))) {
+            for (int tick = 0; tick < 10; tick++) {
+                assertTrue(reader.next(read));
+                assertRecordEquals(record(tick), read);
+            }
+            assertFalse(reader.next(read));
+        }
+    }
+
+    @Test
+    void aFullRingDropsNewRecords() throws IOException {
+        DamageJournal journal = open(4, 1 << 20, 4);
+        for (int tick = 0; tick < 6; tick++) {
+            assertEquals(tick < 4, journal.record(record(tick)));
+        }
+        assertEquals(4, journal.getRecordedCount());
+        assertEquals(2, journal.getDroppedCount());
+
+        journal.flush();
+        // Writing frees the ring, which then wraps around
+        for (int tick = 6; tick < 9; tick++) {
+            assertTrue(journal.record(record(tick)));
+        }
+        journal.flush();
+        assertEquals(List.of(0, 1, 2, 3, 6, 7, 8), readTicks());
+    }
+
+    @Test
+    void filesAreRotatedAndTheOldestDeleted() throws IOException {
+        // Three records per file, two files kept
+        DamageJournal journal = open(64, DamageJournal.HEADER_SIZE + DamageRecord.SIZE * 3, 2);
+        for (int tick = 0; tick < 10; tick++) {
+            journal.record(record(tick));
+        }
+        journal.flush();
+
+        List<Path> files = DamageJournal.listFiles(directory);
+        assertEquals(2, files.size());
+        assertEquals(DamageJournal.HEADER_SIZE + DamageRecord.SIZE * 3, Files.size(files.get(0)));
+        assertEquals(DamageJournal.HEADER_SIZE + DamageRecord.SIZE, Files.size(files.get(1)));
+        assertEquals(List.of(6, 7, 8, 9), readTicks());
+    }
+
+    @Test
+    void aFailedWriteIsResumedWithoutDuplicates() throws IOException {
+        List<FailingFileChannel> channels = new ArrayList<>();
+        DamageJournal journal = new DamageJournal(directory, LOGGER, 16, 1 << 20, 4) {
+            @Override
+            FileChannel openChannel(Path path, OpenOption... options) throws IOException {
+                FailingFileChannel channel = new FailingFileChannel(FileChannel.open(path, options));
+                channels.add(channel);
+                return channel;
+            }
+        };
+        opened.add(journal);
+        journal.record(record(0));
+        journal.flush();
+
+        // The disk fills up half way through the second record of the next batch
+        channels.get(0).failAfter(DamageRecord.SIZE + DamageRecord.SIZE / 2);
+        for (int tick = 1; tick < 4; tick++) {
+            journal.record(record(tick));
+        }
+        assertThrows(IOException.class, journal::flush);
+
+        // The records not written in full go to a new file; the torn one ends the old file
+        journal.flush();
+        assertEquals(2, channels.size());
+        assertEquals(List.of(0, 1, 2, 3), readTicks());
+    }
+
+    @Test
+    void aFileWhoseHeaderFailsIsDeleted() throws IOException {
+        List<FailingFileChannel> channels = new ArrayList<>();
+        DamageJournal journal = new DamageJournal(directory, LOGGER, 16, 1 << 20, 4) {
+            @Override
+            FileChannel openChannel(Path path, OpenOption... options) throws IOException {
+                FailingFileChannel channel = new FailingFileChannel(FileChannel.open(path, options));
+                // Only the first file fails, part way through its header
+                if (channels.isEmpty()) channel.failAfter(DamageJournal.HEADER_SIZE / 2);
+                channels.add(channel);
+                return channel;
+            }
+        };
+        opened.add(journal);
+        journal.record(record(0));
+        assertThrows(IOException.class, journal::flush);
+        assertEquals(List.of(), DamageJournal.listFiles(directory));
+
+        journal.flush();
+        assertEquals(List.of(0), readTicks());
+    }
+}
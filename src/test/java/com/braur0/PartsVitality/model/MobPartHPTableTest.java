@@ -0,0 +1,184 @@
+package com.braur0.PartsVitality.model;
+
+import com.braur0.PartsVitality.damage.DebuffTiers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MobPartHPTableTest {
+
+    private static final double[] MAX_HP = {20, 29, 27, 24};
+    // The capacity of a new table
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The slot the table's hash puts an id in first, in a new table.
+     */
+    private static int home(int entityId) {
+        int h = entityId * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (INITIAL_CAPACITY - 1);
+    }
+
+    /**
+     * @return Ids with the same home slot as the given one, in increasing order.
+     */
+    private static int[] collidingIds(int entityId, int count) {
+        int[] ids = new int[count];
+        ids[0] = entityId;
+        int found = 1;
+        for (int id = entityId + 1; found < count; id++) {
+            if (home(id) == home(entityId)) ids[found++] = id;
+        }
+        return ids;
+    }
+
+    private static double[] partHP(MobPartHPTable table, int entityId) {
+        double[] values = new double[Part.COUNT];
+        table.copyPartHP(table.find(entityId), values);
+        return values;
+    }
+
+    @Test
+    void newMobsStartAtFullHPWithNoDebuff() {
+        MobPartHPTable table = new MobPartHPTable(16);
+        assertEquals(-1, table.find(7));
+
+        int slot = table.getOrCreate(7, MAX_HP);
+        assertEquals(slot, table.find(7));
+        assertEquals(slot, table.getOrCreate(7, new double[]{1, 1, 1, 1}));
+        assertEquals(1, table.size());
+        assertArrayEquals(MAX_HP, partHP(table, 7));
+        for (int group = 0; group < DebuffTiers.GROUP_COUNT; group++) {
+            assertEquals(DebuffTiers.TIER_NONE, table.getDebuffTier(slot, group));
+        }
+    }
+
+    @Test
+    void removingAMobShiftsItsCollidingSuccessorsBack() {
+        MobPartHPTable table = new MobPartHPTable(16);
+        int[] ids = collidingIds(5, 3);
+        for (int i = 0; i < ids.length; i++) {
+            int slot = table.getOrCreate(ids[i], MAX_HP);
+            table.setPartHP(slot, new double[]{i, i, i, i});
+            table.setDebuffTier(slot, 0, i);
+        }
+        int firstSlot = table.find(ids[0]);
+        int lastSlot = table.find(ids[2]);
+
+        assertTrue(table.remove(ids[0]));
+        assertFalse(table.remove(ids[0]));
+        assertEquals(-1, table.find(ids[0]));
+        assertEquals(2, table.size());
+
+        // The later entries moved up one slot each, keeping their values
+        assertEquals(firstSlot, table.find(ids[1]));
+        assertEquals((lastSlot - 1) & (INITIAL_CAPACITY - 1), table.find(ids[2]));
+        assertArrayEquals(new double[]{1, 1, 1, 1}, partHP(table, ids[1]));
+        assertArrayEquals(new double[]{2, 2, 2, 2}, partHP(table, ids[2]));
+        assertEquals(1, table.getDebuffTier(table.find(ids[1]), 0));
+        assertEquals(2, table.getDebuffTier(table.find(ids[2]), 0));
+    }
+
+    @Test
+    void aFullTableTracksNoMoreMobs() {
+        MobPartHPTable table = new MobPartHPTable(3);
+        for (int id = 0; id < 3; id++) {
+            assertNotEquals(-1, table.getOrCreate(id, MAX_HP));
+        }
+        assertEquals(-1, table.getOrCreate(3, MAX_HP));
+        assertEquals(-1, table.find(3));
+        // Mobs already tracked are still found
+        assertNotEquals(-1, table.getOrCreate(2, MAX_HP));
+
+        table.remove(0);
+        assertNotEquals(-1, table.getOrCreate(3, MAX_HP));
+    }
+
+    @Test
+    void growingKeepsEveryMob() {
+        MobPartHPTable table = new MobPartHPTable(1000);
+        for (int id = 0; id < 1000; id++) {
+            table.setPartHP(table.getOrCreate(id, MAX_HP), new double[]{id, id, id, id});
+        }
+        assertEquals(1000, table.size());
+        for (int id = 0; id < 1000; id++) {
+            assertArrayEquals(new double[]{id, id, id, id}, partHP(table, id));
+        }
+    }
+
+    @Test
+    void randomAddsAndRemovesMatchAMap() {
+        MobPartHPTable table = new MobPartHPTable(200);
+        Map<Integer, Double> reference = new HashMap<>();
+        List<Integer> tracked = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(18);
+        for (int i = 0; i < 100_000; i++) {
+            if (!tracked.isEmpty() && random.nextInt(3) == 0) {
+                int id = tracked.remove(random.nextInt(tracked.size()));
+                assertTrue(table.remove(id));
+                reference.remove(id);
+            } else {
+                // A small id range, so ids collide and come back after being removed
+                int id = random.nextInt(1000);
+                int slot = table.getOrCreate(id, MAX_HP);
+                if (slot < 0) {
+                    assertEquals(200, reference.size());
+                    continue;
+                }
+                if (!reference.containsKey(id)) tracked.add(id);
+                double hp = random.nextInt(20);
+                table.setPartHP(slot, new double[]{hp, hp, hp, hp});
+                reference.put(id, hp);
+            }
+        }
+        assertEquals(reference.size(), table.size());
+        for (int id = 0; id < 1000; id++) {
+            Double hp = reference.get(id);
+            if (hp == null) {
+                assertEquals(-1, table.find(id));
+            } else {
+                assertEquals(hp.doubleValue(), table.getPartHP(table.find(id), Part.HEAD));
+            }
+        }
+    }
+
+    @Test
+    void reconfigureCapsPartHPAndForgetsDebuffTiers() {
+        MobPartHPTable table = new MobPartHPTable(16);
+        int slot = table.getOrCreate(7, MAX_HP);
+        table.setPartHP(slot, new double[]{15, 29, 5, 24});
+        table.setDebuffTier(slot, 0, 2);
+        table.setDebuffTier(slot, 2, 1);
+
+        table.reconfigure(new double[]{10, 40, 27, 12});
+
+        double[] partHP = new double[Part.COUNT];
+        table.copyPartHP(table.find(7), partHP);
+        assertArrayEquals(new double[]{10, 29, 5, 12}, partHP);
+        for (int group = 0; group < DebuffTiers.GROUP_COUNT; group++) {
+            assertEquals(PartHP.DEBUFF_TIER_UNKNOWN, table.getDebuffTier(slot, group));
+        }
+    }
+
+    @Test
+    void mobsTrackedAfterAReconfigureStartWithNoDebuff() {
+        MobPartHPTable table = new MobPartHPTable(16);
+        table.getOrCreate(7, MAX_HP);
+        table.reconfigure(MAX_HP);
+
+        int slot = table.getOrCreate(8, MAX_HP);
+        for (int group = 0; group < DebuffTiers.GROUP_COUNT; group++) {
+            assertEquals(DebuffTiers.TIER_NONE, table.getDebuffTier(slot, group));
+        }
+    }
+}
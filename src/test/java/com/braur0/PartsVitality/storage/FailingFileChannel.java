@@ -0,0 +1,141 @@
+package com.braur0.PartsVitality.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A file channel that can be told to fail its writes part way, like a disk that fills up during a batch.
+ */
+public class FailingFileChannel extends FileChannel {
+
+    private final FileChannel delegate;
+    // Bytes still accepted before writes fail, or -1 to never fail
+    private long writeBudget = -1;
+
+    public FailingFileChannel(FileChannel delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Accepts this many more bytes, then fails every write.
+     */
+    public void failAfter(long bytes) {
+        writeBudget = bytes;
+    }
+
+    public void heal() {
+        writeBudget = -1;
+    }
+
+    private ByteBuffer admit(ByteBuffer source) throws IOException {
+        if (writeBudget < 0) return source;
+        if (writeBudget == 0) throw new IOException("No space left on device");
+        ByteBuffer slice = source.duplicate();
+        slice.limit(slice.position() + (int) Math.min(slice.remaining(), writeBudget));
+        return slice;
+    }
+
+    private int written(ByteBuffer source, ByteBuffer slice, int count) {
+        if (slice != source) {
+            source.position(source.position() + count);
+            writeBudget -= count;
+        }
+        return count;
+    }
+
+    @Override
+    public int write(ByteBuffer source, long position) throws IOException {
+        ByteBuffer slice = admit(source);
+        return written(source, slice, delegate.write(slice, position));
+    }
+
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        ByteBuffer slice = admit(source);
+        return written(source, slice, delegate.write(slice));
+    }
+
+    @Override
+    public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+        if (writeBudget >= 0) throw new IOException("No space left on device");
+        return delegate.write(sources, offset, length);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        if (writeBudget == 0) throw new IOException("No space left on device");
+        delegate.force(metaData);
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        return delegate.read(destination);
+    }
+
+    @Override
+    public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+        return delegate.read(destinations, offset, length);
+    }
+
+    @Override
+    public int read(ByteBuffer destination, long position) throws IOException {
+        return delegate.read(destination, position);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return delegate.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        delegate.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return delegate.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        delegate.truncate(size);
+        return this;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return delegate.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+        throw new IOException("Not supported");
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return delegate.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return delegate.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return delegate.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,221 @@
+package com.braur0.PartsVitality.storage;
+
+import com.braur0.PartsVitality.model.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartHPStoreTest {
+
+    private static final Logger LOGGER = Logger.getLogger("PartHPStoreTest");
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    static {
+        // The store logs every skipped record; the tests check the outcome instead
+        LOGGER.setLevel(Level.OFF);
+    }
+
+    @TempDir
+    Path directory;
+
+    private final List<PartHPStore> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeStores() {
+        for (PartHPStore store : opened) store.close();
+    }
+
+    private Path file() {
+        return directory.resolve("parthp.dat");
+    }
+
+    private PartHPStore open() throws IOException {
+        PartHPStore store = new PartHPStore(file(), LOGGER);
+        store.open();
+        opened.add(store);
+        return store;
+    }
+
+    private static double[] values(double base) {
+        double[] values = new double[Part.COUNT];
+        for (int i = 0; i < Part.COUNT; i++) values[i] = base + i;
+        return values;
+    }
+
+    private static void write(PartHPStore store, UUID uuid, double[] values) throws IOException {
+        store.enqueue(uuid, values);
+        store.flush();
+    }
+
+    @Test
+    void reloadsTheNewestRecordOfEachPlayer() throws IOException {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        PartHPStore store = open();
+        write(store, alice, values(1));
+        write(store, bob, values(10));
+        write(store, alice, values(2));
+        store.close();
+        opened.clear();
+
+        PartHPStore reopened = open();
+        assertArrayEquals(values(2), reopened.load(alice));
+        assertArrayEquals(values(10), reopened.load(bob));
+        assertNull(reopened.load(UUID.randomUUID()));
+    }
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        PartHPStore store = open();
+        write(store, alice, values(1));
+        write(store, bob, values(10));
+        store.close();
+        opened.clear();
+        long intact = Files.size(file());
+
+        // A crash half way through the next record
+        Files.write(file(), new byte[PartHPStore.RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+        PartHPStore reopened = open();
+        assertEquals(intact, Files.size(file()));
+        assertArrayEquals(values(1), reopened.load(alice));
+        assertArrayEquals(values(10), reopened.load(bob));
+
+        // New records go after the intact ones
+        write(reopened, alice, values(3));
+        reopened.close();
+        opened.clear();
+        assertArrayEquals(values(3), open().load(alice));
+    }
+
+    @Test
+    void corruptRecordInTheMiddleIsSkipped() throws IOException {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID carol = UUID.randomUUID();
+        PartHPStore store = open();
+        write(store, alice, values(1));   // Record 0
+        write(store, bob, values(10));    // Record 1
+        write(store, alice, values(2));   // Record 2, corrupted below
+        write(store, carol, values(20));  // Record 3
+        write(store, bob, values(11));    // Record 4
+        store.close();
+        opened.clear();
+        long size = Files.size(file());
+
+        flipByte(HEADER_SIZE + 2L * PartHPStore.RECORD_SIZE + 20);
+
+        PartHPStore reopened = open();
+        // Nothing after the corrupt record is lost, and the file is left whole
+        assertEquals(size, Files.size(file()));
+        // Alice falls back to her previous record
+        assertArrayEquals(values(1), reopened.load(alice));
+        assertArrayEquals(values(11), reopened.load(bob));
+        assertArrayEquals(values(20), reopened.load(carol));
+    }
+
+    @Test
+    void failedWriteKeepsTheSnapshotQueuedAndRetries() throws IOException {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        List<FailingFileChannel> channels = new ArrayList<>();
+        PartHPStore store = new PartHPStore(file(), LOGGER) {
+            @Override
+            FileChannel openChannel(Path path, OpenOption... options) throws IOException {
+                FailingFileChannel channel = new FailingFileChannel(FileChannel.open(path, options));
+                channels.add(channel);
+                return channel;
+            }
+        };
+        store.open();
+        opened.add(store);
+        write(store, alice, values(1));
+        long committed = Files.size(file());
+
+        // The disk fills up half way through the next batch
+        FailingFileChannel channel = channels.get(channels.size() - 1);
+        channel.failAfter(PartHPStore.RECORD_SIZE + PartHPStore.RECORD_SIZE / 2);
+        store.enqueue(alice, values(2));
+        store.enqueue(bob, values(10));
+        assertThrows(IOException.class, store::flush);
+
+        // The partial batch was cut off, and the snapshots are still served from the queue
+        assertEquals(committed, Files.size(file()));
+        assertArrayEquals(values(2), store.load(alice));
+        assertArrayEquals(values(10), store.load(bob));
+
+        // A restart at this point sees only what was committed
+        PartHPStore meanwhile = new PartHPStore(file(), LOGGER);
+        meanwhile.open();
+        assertArrayEquals(values(1), meanwhile.load(alice));
+        assertNull(meanwhile.load(bob));
+        meanwhile.close();
+
+        // Once there is space again, the next flush writes them
+        channel.heal();
+        store.flush();
+        store.close();
+        opened.clear();
+
+        PartHPStore reopened = open();
+        assertArrayEquals(values(2), reopened.load(alice));
+        assertArrayEquals(values(10), reopened.load(bob));
+    }
+
+    @Test
+    void compactionKeepsOnlyTheNewestRecords() throws IOException {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        PartHPStore store = open();
+        // Enough rewrites of two players to pass the compaction threshold
+        for (int i = 0; i < 600; i++) {
+            store.enqueue(alice, values(i));
+            store.enqueue(bob, values(1000 + i));
+            store.flush();
+        }
+        assertTrue(Files.size(file()) < HEADER_SIZE + 1024L * PartHPStore.RECORD_SIZE, "The log was not compacted");
+        assertArrayEquals(values(599), store.load(alice));
+        assertArrayEquals(values(1599), store.load(bob));
+        assertTrue(Files.notExists(file().resolveSibling("parthp.dat.compact")));
+
+        // Writes after compaction land in the new file
+        write(store, alice, values(-1));
+        store.close();
+        opened.clear();
+
+        PartHPStore reopened = open();
+        assertArrayEquals(values(-1), reopened.load(alice));
+        assertArrayEquals(values(1599), reopened.load(bob));
+    }
+
+    private void flipByte(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1);
+            channel.read(buffer, position);
+            buffer.put(0, (byte) (buffer.get(0) ^ 0xFF));
+            buffer.rewind();
+            channel.write(buffer, position);
+        }
+    }
+}
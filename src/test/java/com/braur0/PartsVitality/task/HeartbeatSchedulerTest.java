@@ -0,0 +1,140 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartbeatSchedulerTest {
+
+    private static final double MAX_HEALTH = 20.0;
+
+    /**
+     * A player whose health the test sets, recording the tick of every heartbeat it hears.
+     */
+    private static final class Patient {
+        private final List<Long> beats = new ArrayList<>();
+        private final Player player;
+        private double health;
+
+        private Patient(ManualTaskScheduler scheduler, double health) {
+            this.health = health;
+            UUID uuid = UUID.randomUUID();
+            AttributeInstance maxHealth = (AttributeInstance) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{AttributeInstance.class}, (proxy, method, args) ->
+                            method.getName().equals("getValue") ? MAX_HEALTH : null);
+            player = (Player) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Player.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getUniqueId" -> uuid;
+                        case "isOnline" -> true;
+                        case "isDead" -> false;
+                        case "getHealth" -> this.health;
+                        case "getAttribute" -> maxHealth;
+                        case "getTicksLived" -> (int) scheduler.currentTick();
+                        case "playSound" -> {
+                            beats.add(scheduler.currentTick());
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        default -> null;
+                    });
+        }
+    }
+
+    private static HeartbeatScheduler start(ManualTaskScheduler scheduler) {
+        HeartbeatScheduler heartbeat = new HeartbeatScheduler(scheduler);
+        heartbeat.start();
+        return heartbeat;
+    }
+
+    @Test
+    void beatsAtTheIntervalForTheHealth() {
+        for (boolean regionThreaded : new boolean[]{false, true}) {
+            ManualTaskScheduler scheduler = new ManualTaskScheduler(regionThreaded);
+            HeartbeatScheduler heartbeat = start(scheduler);
+            Patient patient = new Patient(scheduler, 4.0); // 20%: critical
+
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(60);
+
+            // Checked on tick 1, first beat 10 ticks later, then every 20 ticks
+            assertEquals(List.of(11L, 31L, 51L), patient.beats);
+        }
+    }
+
+    @Test
+    void noHeartbeatAboveThreshold() {
+        for (boolean regionThreaded : new boolean[]{false, true}) {
+            ManualTaskScheduler scheduler = new ManualTaskScheduler(regionThreaded);
+            HeartbeatScheduler heartbeat = start(scheduler);
+            Patient patient = new Patient(scheduler, 16.0); // 80%
+
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(200);
+
+            assertTrue(patient.beats.isEmpty());
+        }
+    }
+
+    @Test
+    void healthDropBringsTheNextBeatForward() {
+        for (boolean regionThreaded : new boolean[]{false, true}) {
+            ManualTaskScheduler scheduler = new ManualTaskScheduler(regionThreaded);
+            HeartbeatScheduler heartbeat = start(scheduler);
+            Patient patient = new Patient(scheduler, 14.0); // 70%: first beat 70 ticks after the check
+
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(5);
+            patient.health = 4.0; // 20%: critical
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(95);
+
+            // Re-checked on tick 6, so the first beat is on tick 16 instead of 71, and the beat on 71 is dropped
+            assertEquals(List.of(16L, 36L, 56L, 76L, 96L), patient.beats);
+        }
+    }
+
+    @Test
+    void healthRiseDoesNotPostponeTheNextBeat() {
+        for (boolean regionThreaded : new boolean[]{false, true}) {
+            ManualTaskScheduler scheduler = new ManualTaskScheduler(regionThreaded);
+            HeartbeatScheduler heartbeat = start(scheduler);
+            Patient patient = new Patient(scheduler, 4.0);
+
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(5);
+            patient.health = 14.0; // 70%
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(20);
+
+            // The beat already due on tick 11 still plays; the one after it uses the new interval
+            assertEquals(List.of(11L), patient.beats);
+            scheduler.tick(80);
+            assertEquals(List.of(11L, 91L), patient.beats);
+        }
+    }
+
+    @Test
+    void removedPlayerStopsBeating() {
+        for (boolean regionThreaded : new boolean[]{false, true}) {
+            ManualTaskScheduler scheduler = new ManualTaskScheduler(regionThreaded);
+            HeartbeatScheduler heartbeat = start(scheduler);
+            Patient patient = new Patient(scheduler, 4.0);
+
+            heartbeat.markDirty(patient.player);
+            scheduler.tick(20);
+            heartbeat.remove(patient.player);
+            scheduler.tick(100);
+
+            assertEquals(List.of(11L), patient.beats);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single-threaded stand-in for the server scheduler: nothing runs until {@link #tick()} is called,
+ * and every task that is due then runs on the calling thread, global tasks first.
+ */
+final class ManualTaskScheduler implements TaskScheduler {
+
+    private static final class Scheduled implements Task {
+        private final Runnable task;
+        private final long periodTicks;
+        private long dueTick;
+        private boolean cancelled;
+
+        private Scheduled(Runnable task, long dueTick, long periodTicks) {
+            this.task = task;
+            this.dueTick = dueTick;
+            this.periodTicks = periodTicks;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final boolean regionThreaded;
+    private final List<Scheduled> global = new ArrayList<>();
+    private final List<Scheduled> entity = new ArrayList<>();
+    private long currentTick;
+
+    ManualTaskScheduler(boolean regionThreaded) {
+        this.regionThreaded = regionThreaded;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Advances one tick and runs everything due in it, including tasks scheduled by those tasks for the same tick.
+     */
+    void tick() {
+        currentTick++;
+        runDue(global);
+        runDue(entity);
+    }
+
+    void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) tick();
+    }
+
+    private void runDue(List<Scheduled> tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            Scheduled scheduled = tasks.get(i);
+            if (scheduled.cancelled || scheduled.dueTick != currentTick) continue;
+            scheduled.task.run();
+            if (scheduled.periodTicks > 0) scheduled.dueTick += scheduled.periodTicks;
+            else scheduled.cancelled = true;
+        }
+        tasks.removeIf(scheduled -> scheduled.cancelled);
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return regionThreaded;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        global.add(new Scheduled(task, currentTick + 1, 0));
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        Scheduled scheduled = new Scheduled(task, currentTick + Math.max(1, delayTicks), periodTicks);
+        global.add(scheduled);
+        return scheduled;
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        task.run();
+    }
+
+    @Override
+    public void runForEntity(Entity target, Runnable task, long delayTicks) {
+        entity.add(new Scheduled(task, currentTick + Math.max(1, delayTicks), 0));
+    }
+
+    @Override
+    public Task runEntityTimer(Entity target, Runnable task, long delayTicks, long periodTicks) {
+        Scheduled scheduled = new Scheduled(task, currentTick + Math.max(1, delayTicks), periodTicks);
+        entity.add(scheduled);
+        return scheduled;
+    }
+}
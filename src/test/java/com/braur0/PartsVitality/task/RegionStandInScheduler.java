@@ -0,0 +1,212 @@
+package com.braur0.PartsVitality.task;
+
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A stand-in for a region-threaded server's schedulers.
+ * <p>
+ * Every region is a thread of its own. Each {@link #tick()} runs the global region and every region in parallel,
+ * and returns when all of them have finished the tick. An entity's tasks run on the thread of the region that
+ * owns it; entities can be moved to another region between ticks with {@link #moveTo}.
+ * Tasks that throw are collected in {@link #failures()} instead of stopping the thread.
+ */
+final class RegionStandInScheduler implements TaskScheduler {
+
+    private static final class Scheduled implements Task {
+        private final Runnable task;
+        private final long periodTicks;
+        private volatile long dueTick;
+        private volatile boolean cancelled;
+
+        private Scheduled(Runnable task, long dueTick, long periodTicks) {
+            this.task = task;
+            this.dueTick = dueTick;
+            this.periodTicks = periodTicks;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final int regionCount;
+    private final ExecutorService[] regions;
+    private final ExecutorService globalRegion;
+    private final ExecutorService async;
+    // The region each thread ticks, or -1 for the global region
+    private final ThreadLocal<Integer> currentRegion = new ThreadLocal<>();
+
+    private final Queue<Scheduled> globalTasks = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, Queue<Scheduled>> entityTasks = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> owners = new ConcurrentHashMap<>();
+    private final List<Throwable> failures = new CopyOnWriteArrayList<>();
+    private volatile long currentTick;
+
+    RegionStandInScheduler(int regionCount) {
+        this.regionCount = regionCount;
+        this.regions = new ExecutorService[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            int region = i;
+            regions[i] = Executors.newSingleThreadExecutor(runnable -> thread(runnable, "Region-" + region));
+            regions[i].execute(() -> currentRegion.set(region));
+        }
+        this.globalRegion = Executors.newSingleThreadExecutor(runnable -> thread(runnable, "Global-Region"));
+        globalRegion.execute(() -> currentRegion.set(-1));
+        AtomicInteger asyncThreads = new AtomicInteger();
+        this.async = Executors.newFixedThreadPool(4, runnable -> thread(runnable, "Async-" + asyncThreads.getAndIncrement()));
+    }
+
+    private static Thread thread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    int regionCount() {
+        return regionCount;
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    List<Throwable> failures() {
+        return failures;
+    }
+
+    /**
+     * Gives the entity to a region. Must be called between ticks.
+     */
+    void moveTo(Entity entity, int region) {
+        owners.put(entity.getUniqueId(), region);
+    }
+
+    /**
+     * @return Whether the calling thread is the one that owns the entity.
+     */
+    boolean isOwnedByCurrentThread(Entity entity) {
+        Integer region = currentRegion.get();
+        return region != null && region.equals(owners.get(entity.getUniqueId()));
+    }
+
+    /**
+     * @return Whether the calling thread is the global region's.
+     */
+    boolean isGlobalThread() {
+        Integer region = currentRegion.get();
+        return region != null && region == -1;
+    }
+
+    /**
+     * Runs one tick on every region and the global region, and waits for all of them to finish it.
+     */
+    void tick() throws Exception {
+        long tick = ++currentTick;
+        List<Future<?>> running = new ArrayList<>(regionCount + 1);
+        running.add(globalRegion.submit(() -> runDue(globalTasks, tick)));
+        for (int i = 0; i < regionCount; i++) {
+            int region = i;
+            running.add(regions[i].submit(() -> {
+                for (Map.Entry<UUID, Queue<Scheduled>> entry : entityTasks.entrySet()) {
+                    Integer owner = owners.get(entry.getKey());
+                    if (owner != null && owner == region) runDue(entry.getValue(), tick);
+                }
+            }));
+        }
+        for (Future<?> future : running) future.get(30, TimeUnit.SECONDS);
+    }
+
+    private void runDue(Queue<Scheduled> tasks, long tick) {
+        // Tasks added while running are due on a later tick, so they are left for it
+        int count = tasks.size();
+        for (int i = 0; i < count; i++) {
+            Scheduled scheduled = tasks.poll();
+            if (scheduled == null) break;
+            if (scheduled.cancelled) continue;
+            if (scheduled.dueTick > tick) {
+                tasks.add(scheduled);
+                continue;
+            }
+            try {
+                scheduled.task.run();
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+            if (scheduled.periodTicks > 0 && !scheduled.cancelled) {
+                scheduled.dueTick = tick + scheduled.periodTicks;
+                tasks.add(scheduled);
+            }
+        }
+    }
+
+    /**
+     * Stops every thread, waiting for running tasks and async work to finish.
+     */
+    void shutdown() throws InterruptedException {
+        for (ExecutorService region : regions) region.shutdown();
+        globalRegion.shutdown();
+        async.shutdown();
+        for (ExecutorService region : regions) region.awaitTermination(30, TimeUnit.SECONDS);
+        globalRegion.awaitTermination(30, TimeUnit.SECONDS);
+        async.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        globalTasks.add(new Scheduled(task, currentTick + 1, 0));
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        Scheduled scheduled = new Scheduled(task, currentTick + Math.max(1, delayTicks), periodTicks);
+        globalTasks.add(scheduled);
+        return scheduled;
+    }
+
+    @Override
+    public void runAsync(Runnable task) {
+        async.execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+    }
+
+    @Override
+    public void runForEntity(Entity entity, Runnable task, long delayTicks) {
+        queueFor(entity).add(new Scheduled(task, currentTick + Math.max(1, delayTicks), 0));
+    }
+
+    @Override
+    public Task runEntityTimer(Entity entity, Runnable task, long delayTicks, long periodTicks) {
+        Scheduled scheduled = new Scheduled(task, currentTick + Math.max(1, delayTicks), periodTicks);
+        queueFor(entity).add(scheduled);
+        return scheduled;
+    }
+
+    private Queue<Scheduled> queueFor(Entity entity) {
+        return entityTasks.computeIfAbsent(entity.getUniqueId(), uuid -> new ConcurrentLinkedQueue<>());
+    }
+}
@@ -0,0 +1,213 @@
+package com.braur0.PartsVitality.task;
+
+import com.braur0.PartsVitality.damage.BodyPose;
+import com.braur0.PartsVitality.damage.DamageEngine;
+import com.braur0.PartsVitality.damage.DamageResult;
+import com.braur0.PartsVitality.damage.DamageSource;
+import com.braur0.PartsVitality.damage.DebuffTiers;
+import com.braur0.PartsVitality.damage.HitZoneTable;
+import com.braur0.PartsVitality.metrics.DamageAnalytics;
+import com.braur0.PartsVitality.model.Part;
+import com.braur0.PartsVitality.storage.PartHPStore;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.entity.Player;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many players fighting on a stand-in region-threaded server: each player's damage, heartbeat and saves run on the
+ * thread of the region that owns them, players move between regions, and the shared parts (the damage engine,
+ * analytics, the part HP store and the heartbeat map) are used from all region threads, the global region and
+ * async threads at once.
+ */
+class RegionThreadingStressTest {
+
+    private static final int REGIONS = 8;
+    private static final int PLAYERS = 400;
+    private static final int TICKS = 300;
+    private static final int SAVE_INTERVAL = 10;
+    private static final int FLUSH_INTERVAL = 20;
+    private static final int MOVE_INTERVAL = 25;
+    private static final double MAX_HEALTH = 20.0;
+    private static final double PART_MAX_HP = 20.0;
+    private static final double BOX_MIN_Y = 64.0;
+    private static final double BOX_HEIGHT = 1.8;
+
+    private static final DamageSource[] SOURCES = {DamageSource.MELEE, DamageSource.PROJECTILE,
+            DamageSource.EXPLOSION, DamageSource.FALL, DamageSource.OTHER};
+    private static final EntityDamageEvent.DamageCause[] CAUSES = {EntityDamageEvent.DamageCause.ENTITY_ATTACK,
+            EntityDamageEvent.DamageCause.PROJECTILE, EntityDamageEvent.DamageCause.BLOCK_EXPLOSION,
+            EntityDamageEvent.DamageCause.FALL, EntityDamageEvent.DamageCause.FIRE_TICK};
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger wrongThread = new AtomicInteger();
+    private final AtomicLong beats = new AtomicLong();
+
+    /**
+     * A player's state. Only touched on the thread that owns the player, apart from the final checks.
+     */
+    private final class Fighter {
+        private final UUID uuid = UUID.randomUUID();
+        private final Player player;
+        private final SplittableRandom random;
+        private final double[] partHP = new double[Part.COUNT];
+        private final DamageResult result = new DamageResult();
+        private double health = MAX_HEALTH;
+        private long hits;
+        private double[] lastSaved;
+
+        private Fighter(RegionStandInScheduler scheduler, long seed) {
+            this.random = new SplittableRandom(seed);
+            Arrays.fill(partHP, PART_MAX_HP);
+            AttributeInstance maxHealth = (AttributeInstance) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{AttributeInstance.class}, (proxy, method, args) ->
+                            method.getName().equals("getValue") ? MAX_HEALTH : null);
+            player = (Player) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Player.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            // Safe from any thread on a region-threaded server
+                            case "getUniqueId": return uuid;
+                            case "hashCode": return uuid.hashCode();
+                            case "equals": return proxy == args[0];
+                            case "toString": return "Player " + uuid;
+                            default: break;
+                        }
+                        if (!scheduler.isOwnedByCurrentThread((Player) proxy)) wrongThread.incrementAndGet();
+                        return switch (method.getName()) {
+                            case "isOnline" -> true;
+                            case "isDead" -> false;
+                            case "getHealth" -> health;
+                            case "getAttribute" -> maxHealth;
+                            case "getTicksLived" -> (int) scheduler.currentTick();
+                            case "playSound" -> {
+                                beats.incrementAndGet();
+                                yield null;
+                            }
+                            default -> null;
+                        };
+                    });
+        }
+    }
+
+    @Test
+    @Timeout(value = 120, unit = TimeUnit.SECONDS)
+    void playersAreOnlyTouchedByTheirOwnRegion() throws Exception {
+        Logger logger = Logger.getLogger("RegionThreadingStressTest");
+        logger.setLevel(Level.OFF);
+        RegionStandInScheduler scheduler = new RegionStandInScheduler(REGIONS);
+        DamageEngine engine = new DamageEngine(new double[]{PART_MAX_HP, PART_MAX_HP, PART_MAX_HP, PART_MAX_HP},
+                1.0, true, 0.4, 5.0, new DebuffTiers(new double[][]{{0.2, 0.5}, {0.2, 0.5}, {0.2, 0.5}}),
+                HitZoneTable.defaults());
+        DamageAnalytics analytics = new DamageAnalytics();
+        PartHPStore store = new PartHPStore(directory.resolve("parthp.dat"), logger);
+        store.open();
+        HeartbeatScheduler heartbeat = new HeartbeatScheduler(scheduler);
+        heartbeat.start();
+
+        List<Fighter> fighters = new ArrayList<>(PLAYERS);
+        SplittableRandom random = new SplittableRandom(19);
+        for (int i = 0; i < PLAYERS; i++) {
+            Fighter fighter = new Fighter(scheduler, random.nextLong());
+            fighters.add(fighter);
+            scheduler.moveTo(fighter.player, random.nextInt(REGIONS));
+            scheduler.runEntityTimer(fighter.player, () -> fight(fighter, engine, analytics, store, heartbeat, scheduler), 1L, 1L);
+        }
+        // Periodic saves run on the global region, like the storage flush task
+        scheduler.runGlobalTimer(store::flushAsync, FLUSH_INTERVAL, FLUSH_INTERVAL);
+
+        AtomicInteger badLoads = new AtomicInteger();
+        for (int tick = 1; tick <= TICKS; tick++) {
+            // Pre-login loads happen on async threads
+            for (int i = 0; i < 4; i++) {
+                UUID uuid = fighters.get(random.nextInt(PLAYERS)).uuid;
+                scheduler.runAsync(() -> {
+                    double[] values = store.load(uuid);
+                    if (values != null && values.length != Part.COUNT) badLoads.incrementAndGet();
+                });
+            }
+            scheduler.tick();
+            if (tick % MOVE_INTERVAL == 0) {
+                for (int i = 0; i < PLAYERS / 10; i++) {
+                    scheduler.moveTo(fighters.get(random.nextInt(PLAYERS)).player, random.nextInt(REGIONS));
+                }
+            }
+        }
+        scheduler.shutdown();
+        store.close();
+
+        assertTrue(scheduler.failures().isEmpty(), () -> "Tasks failed: " + scheduler.failures());
+        assertEquals(0, wrongThread.get(), "Players were touched from a thread that does not own them");
+        assertEquals(0, badLoads.get());
+        assertTrue(beats.get() > 0, "No heartbeat played");
+
+        long expectedHits = 0;
+        for (Fighter fighter : fighters) expectedHits += fighter.hits;
+        long countedHits = 0;
+        for (long hits : analytics.snapshot().hits()) countedHits += hits;
+        assertEquals(expectedHits, countedHits, "Analytics lost hits recorded from several threads");
+
+        PartHPStore reopened = new PartHPStore(directory.resolve("parthp.dat"), logger);
+        reopened.open();
+        try {
+            for (Fighter fighter : fighters) {
+                assertArrayEquals(fighter.lastSaved, reopened.load(fighter.uuid));
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * One tick of a player's fight, on the thread that owns the player.
+     */
+    private void fight(Fighter fighter, DamageEngine engine, DamageAnalytics analytics, PartHPStore store,
+                       HeartbeatScheduler heartbeat, RegionStandInScheduler scheduler) {
+        if (!scheduler.isOwnedByCurrentThread(fighter.player)) wrongThread.incrementAndGet();
+
+        int index = fighter.random.nextInt(SOURCES.length);
+        double hitY = BOX_MIN_Y + fighter.random.nextDouble() * BOX_HEIGHT;
+        DamageResult result = engine.resolve(fighter.partHP, SOURCES[index], 0.5 + fighter.random.nextDouble() * 3.0,
+                hitY, BOX_MIN_Y, BOX_HEIGHT, BodyPose.STANDING, fighter.result);
+        for (Part part : Part.VALUES) {
+            double damage = result.partDamage[part.ordinal()];
+            if (damage <= 0.0) continue;
+            boolean broke = result.partHP[part.ordinal()] <= 0.0 && fighter.partHP[part.ordinal()] > 0.0;
+            analytics.recordDamage(CAUSES[index], part, damage, broke);
+            fighter.hits++;
+        }
+        System.arraycopy(result.partHP, 0, fighter.partHP, 0, Part.COUNT);
+        // Treated once too many parts are broken
+        if (result.getBrokenPartCount() >= 2) Arrays.fill(fighter.partHP, PART_MAX_HP);
+
+        double total = 0.0;
+        for (double hp : fighter.partHP) total += hp;
+        fighter.health = MAX_HEALTH * total / (PART_MAX_HP * Part.COUNT);
+        heartbeat.markDirty(fighter.player);
+
+        if (scheduler.currentTick() % SAVE_INTERVAL == 0) {
+            fighter.lastSaved = fighter.partHP.clone();
+            store.enqueue(fighter.uuid, fighter.lastSaved);
+        }
+    }
+}